@@ -0,0 +1,401 @@
+package com.Acrobot.Breeze.Collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A cache which can be read and written concurrently without a global lock.
+ * <p>
+ * Values are loaded at most once at the same time per key, other threads asking for the same key wait for that load.
+ * Loaded <tt>null</tt> values are cached as negative entries which expire after a configurable time,
+ * values can optionally expire too.
+ * When the cache grows over its maximum size the least recently accessed entries are evicted in a batch.
+ * Keys which are removed while their value is loading don't get the loaded value stored.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class ConcurrentCache<K, V> {
+    private final Map<K, Entry<V>> map = new ConcurrentHashMap<>();
+    private final Map<K, Load<V>> loading = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private volatile int maximumSize;
+    private volatile long ttl;
+    private volatile long negativeTtl;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Create a new cache
+     *
+     * @param maximumSize The maximum amount of entries
+     * @param negativeTtl How long negative entries are kept
+     * @param unit        The unit of the negative TTL
+     */
+    public ConcurrentCache(int maximumSize, long negativeTtl, TimeUnit unit) {
+        this(maximumSize, 0, negativeTtl, unit);
+    }
+
+    /**
+     * Create a new cache whose values expire
+     *
+     * @param maximumSize The maximum amount of entries
+     * @param ttl         How long values are kept, 0 to keep them until they are evicted
+     * @param negativeTtl How long negative entries are kept
+     * @param unit        The unit of the TTLs
+     */
+    public ConcurrentCache(int maximumSize, long ttl, long negativeTtl, TimeUnit unit) {
+        this.maximumSize = maximumSize;
+        this.ttl = unit.toNanos(ttl);
+        this.negativeTtl = unit.toNanos(negativeTtl);
+    }
+
+    /**
+     * Get a value from the cache or load it if it isn't cached yet
+     *
+     * @param key    The key
+     * @param loader The loader for the value, if it returns <tt>null</tt> a negative entry is cached
+     * @return The value or <tt>null</tt> if there is none
+     * @throws ExecutionException if the loader threw an exception, nothing is cached in that case
+     */
+    public V get(K key, Callable<? extends V> loader) throws ExecutionException {
+        Entry<V> entry = getEntry(key);
+        if (entry != null) {
+            return entry.value;
+        }
+
+        Load<V> task = new Load<>(loader);
+        Load<V> running = loading.putIfAbsent(key, task);
+        if (running == null) {
+            running = task;
+            try {
+                task.run();
+                store(key, task, newEntry(task.get()));
+            } catch (ExecutionException e) {
+                // Not cached, the next lookup will try again
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                loading.remove(key, task);
+            }
+        }
+
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExecutionException(e);
+        }
+    }
+
+    /**
+     * Get a value from the cache without loading it
+     *
+     * @param key The key
+     * @return The value or <tt>null</tt> if it isn't cached or cached as not existing
+     */
+    public V getIfPresent(K key) {
+        Entry<V> entry = getEntry(key);
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Check whether a key has a value or a negative entry without loading it or counting the lookup
+     *
+     * @param key The key
+     * @return Whether or not a lookup of the key would be answered from the cache
+     */
+    public boolean contains(K key) {
+        Entry<V> entry = map.get(key);
+        return entry != null && !entry.isExpired(System.nanoTime());
+    }
+
+    /**
+     * Get a cached value without loading it or counting the lookup
+     *
+     * @param key The key
+     * @return The value or <tt>null</tt> if it isn't cached or cached as not existing
+     */
+    public V peek(K key) {
+        Entry<V> entry = map.get(key);
+        return entry != null && !entry.isExpired(System.nanoTime()) ? entry.value : null;
+    }
+
+    /**
+     * Check whether a key is cached as not existing
+     *
+     * @param key The key
+     * @return Whether or not there is a negative entry for the key which didn't expire yet
+     */
+    public boolean isKnownAbsent(K key) {
+        Entry<V> entry = getEntry(key);
+        return entry != null && entry.value == null;
+    }
+
+    /**
+     * Add a value to the cache, replacing a (negative) entry
+     *
+     * @param key   The key
+     * @param value The value, must not be <tt>null</tt>
+     */
+    public void put(K key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Use markAbsent to cache a negative entry");
+        }
+        map.put(key, newEntry(value));
+        evictIfNeeded();
+    }
+
+    /**
+     * Cache a key as not existing, the negative entry expires after the negative TTL
+     *
+     * @param key The key
+     */
+    public void markAbsent(K key) {
+        map.put(key, newEntry(null));
+        evictIfNeeded();
+    }
+
+    /**
+     * Remove a key from the cache
+     *
+     * @param key The key
+     */
+    public void remove(K key) {
+        // The value which is currently loading might be outdated already
+        Load<V> load = loading.get(key);
+        if (load != null) {
+            load.invalidated = true;
+        }
+        map.remove(key);
+    }
+
+    public void clear() {
+        for (Load<V> load : loading.values()) {
+            load.invalidated = true;
+        }
+        map.clear();
+    }
+
+    /**
+     * Change the limits of the cache, e.g. after the config was reloaded
+     *
+     * @param maximumSize The maximum amount of entries
+     * @param negativeTtl How long new negative entries are kept
+     * @param unit        The unit of the negative TTL
+     */
+    public void resize(int maximumSize, long negativeTtl, TimeUnit unit) {
+        resize(maximumSize, 0, negativeTtl, unit);
+    }
+
+    /**
+     * Change the limits of a cache whose values expire
+     *
+     * @param maximumSize The maximum amount of entries
+     * @param ttl         How long new values are kept, 0 to keep them until they are evicted
+     * @param negativeTtl How long new negative entries are kept
+     * @param unit        The unit of the TTLs
+     */
+    public void resize(int maximumSize, long ttl, long negativeTtl, TimeUnit unit) {
+        this.maximumSize = maximumSize;
+        this.ttl = unit.toNanos(ttl);
+        this.negativeTtl = unit.toNanos(negativeTtl);
+        evictIfNeeded();
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * @return The amount of lookups which found a value or a negative entry in the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The amount of lookups which found a negative entry in the cache
+     */
+    public long getNegativeHits() {
+        return negativeHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private Entry<V> getEntry(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry != null) {
+            long now = System.nanoTime();
+            if (!entry.isExpired(now)) {
+                entry.lastAccess = now;
+                hits.increment();
+                if (entry.value == null) {
+                    negativeHits.increment();
+                }
+                return entry;
+            }
+            map.remove(key, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    private Entry<V> newEntry(V value) {
+        long now = System.nanoTime();
+        if (value == null) {
+            return new Entry<>(null, now, now + negativeTtl);
+        }
+        long ttl = this.ttl;
+        return new Entry<>(value, now, ttl > 0 ? now + ttl : Long.MAX_VALUE);
+    }
+
+    private void store(K key, Load<V> load, Entry<V> entry) {
+        // Don't overwrite values which were put while loading and don't store values which were removed while loading
+        map.compute(key, (k, existing) -> {
+            if (load.invalidated) {
+                return existing;
+            }
+            return existing == null || existing.isExpired(System.nanoTime()) ? entry : existing;
+        });
+        evictIfNeeded();
+    }
+
+    /**
+     * Evict the least recently accessed entries once the cache grew a bit over its maximum size.
+     * Evicting in batches and selecting the entries to evict in linear time keeps the cost per insertion low.
+     * The access times are copied first as other threads keep updating them.
+     */
+    private void evictIfNeeded() {
+        int maximumSize = this.maximumSize;
+        if (map.size() <= maximumSize + Math.max(16, maximumSize / 16) || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            List<K> keys = new ArrayList<>(map.size());
+            List<Entry<V>> values = new ArrayList<>(map.size());
+            long[] accesses = new long[map.size()];
+            int count = 0;
+            for (Map.Entry<K, Entry<V>> entry : map.entrySet()) {
+                if (entry.getValue().isExpired(now)) {
+                    map.remove(entry.getKey(), entry.getValue());
+                } else {
+                    if (count == accesses.length) {
+                        accesses = Arrays.copyOf(accesses, count * 2 + 1);
+                    }
+                    keys.add(entry.getKey());
+                    values.add(entry.getValue());
+                    accesses[count++] = entry.getValue().lastAccess;
+                }
+            }
+
+            int toEvict = count - Math.max(0, maximumSize);
+            if (toEvict > 0) {
+                long threshold = select(Arrays.copyOf(accesses, count), toEvict - 1);
+                // Evict everything older than the threshold first, then as many entries with that exact time as needed
+                int evicted = 0;
+                for (int i = 0; i < count && evicted < toEvict; i++) {
+                    if (accesses[i] < threshold) {
+                        evicted++;
+                        evict(keys.get(i), values.get(i));
+                    }
+                }
+                for (int i = 0; i < count && evicted < toEvict; i++) {
+                    if (accesses[i] == threshold) {
+                        evicted++;
+                        evict(keys.get(i), values.get(i));
+                    }
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void evict(K key, Entry<V> entry) {
+        if (map.remove(key, entry)) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Find the k-th smallest value (starting at 0) in linear average time, the array is reordered
+     */
+    private static long select(long[] values, int k) {
+        int left = 0;
+        int right = values.length - 1;
+        while (left < right) {
+            long pivot = values[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    long value = values[i];
+                    values[i++] = values[j];
+                    values[j--] = value;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return values[k];
+            }
+        }
+        return values[k];
+    }
+
+    /**
+     * A running load of a value, it is invalidated when its key is removed before it finished
+     */
+    private static class Load<V> extends FutureTask<V> {
+        private volatile boolean invalidated = false;
+
+        private Load(Callable<? extends V> loader) {
+            super(loader::call);
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+        private volatile long lastAccess;
+
+        private Entry(V value, long now, long expiresAt) {
+            this.value = value;
+            this.lastAccess = now;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt > 0;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.Acrobot.Breeze.Collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index over the names of all constants of an enum which can find constants by (partially typed) names.
+ * <p>
+ * A constant matches a name if the name is the exact name of the constant, a prefix of it or if every
+ * underscore separated part of the name is a prefix of the respective part of the constant's name
+ * (e.g. <tt>DIA_PICK</tt> for <tt>DIAMOND_PICKAXE</tt>). If multiple constants match then the one with the
+ * shortest name is returned, if they have the same length the one which was declared first.
+ *
+ * @param <E> The type of the enum
+ */
+public class EnumNameIndex<E extends Enum<E>> {
+    private static final Comparator<Entry<?>> BY_LENGTH = Comparator.<Entry<?>>comparingInt(entry -> entry.name.length())
+            .thenComparingInt(entry -> entry.constant.ordinal());
+
+    private final Map<String, E> byName;
+    private final Node<E> root = new Node<>();
+    /**
+     * Entries by the amount of their name's parts, sorted by name length and ordinal
+     */
+    private final Map<Integer, Entry<E>[]> byPartCount = new HashMap<>();
+
+    /**
+     * Create a new index
+     *
+     * @param values All constants of the enum
+     */
+    @SuppressWarnings("unchecked")
+    public EnumNameIndex(E[] values) {
+        byName = new HashMap<>(values.length * 4 / 3 + 1);
+        Map<Integer, List<Entry<E>>> partLists = new HashMap<>();
+        for (E value : values) {
+            String name = value.name();
+            Entry<E> entry = new Entry<>(value, name, split(name));
+            byName.put(name, value);
+            root.insert(entry, 0);
+            partLists.computeIfAbsent(entry.parts.length, k -> new ArrayList<>()).add(entry);
+        }
+        for (Map.Entry<Integer, List<Entry<E>>> parts : partLists.entrySet()) {
+            Entry<E>[] entries = parts.getValue().toArray(new Entry[0]);
+            Arrays.sort(entries, BY_LENGTH);
+            byPartCount.put(parts.getKey(), entries);
+        }
+    }
+
+    /**
+     * Get a constant by its exact name
+     *
+     * @param name The name
+     * @return The constant or <tt>null</tt> if there is none with that name
+     */
+    public E getExact(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * Find the constant which matches a name best
+     *
+     * @param name The (uppercase and underscore separated) name
+     * @return The constant or <tt>null</tt> if no constant matches the name
+     */
+    public E find(String name) {
+        E exact = byName.get(name);
+        if (exact != null) {
+            return exact;
+        }
+
+        Entry<E> best = root.find(name);
+
+        String[] nameParts = split(name);
+        if (nameParts.length > 1) {
+            Entry<E>[] entries = byPartCount.get(nameParts.length);
+            if (entries != null) {
+                for (Entry<E> entry : entries) {
+                    if (best != null && BY_LENGTH.compare(entry, best) >= 0) {
+                        break;
+                    }
+                    if (entry.matchesParts(nameParts)) {
+                        best = entry;
+                        break;
+                    }
+                }
+            }
+        }
+
+        return best != null ? best.constant : null;
+    }
+
+    /**
+     * Split a name at underscores, like {@link String#split(String)} this drops trailing empty parts
+     */
+    private static String[] split(String name) {
+        return name.split("_");
+    }
+
+    private static class Entry<E extends Enum<E>> {
+        private final E constant;
+        private final String name;
+        private final String[] parts;
+
+        private Entry(E constant, String name, String[] parts) {
+            this.constant = constant;
+            this.name = name;
+            this.parts = parts;
+        }
+
+        private boolean matchesParts(String[] nameParts) {
+            for (int i = 0; i < parts.length; i++) {
+                if (!parts[i].startsWith(nameParts[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A node of the prefix tree. Every node knows the best entry of all names which start with its prefix.
+     */
+    private static class Node<E extends Enum<E>> {
+        private char[] keys = new char[0];
+        private Node<E>[] children = newArray(0);
+        private Entry<E> best = null;
+
+        private void insert(Entry<E> entry, int depth) {
+            if (best == null || BY_LENGTH.compare(entry, best) < 0) {
+                best = entry;
+            }
+            if (depth == entry.name.length()) {
+                return;
+            }
+
+            char c = entry.name.charAt(depth);
+            int index = indexOf(c);
+            if (index < 0) {
+                index = keys.length;
+                keys = Arrays.copyOf(keys, index + 1);
+                children = Arrays.copyOf(children, index + 1);
+                keys[index] = c;
+                children[index] = new Node<>();
+            }
+            children[index].insert(entry, depth + 1);
+        }
+
+        private Entry<E> find(String prefix) {
+            Node<E> node = this;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                int index = node.indexOf(prefix.charAt(i));
+                node = index > -1 ? node.children[index] : null;
+            }
+            return node != null ? node.best : null;
+        }
+
+        private int indexOf(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <E extends Enum<E>> Node<E>[] newArray(int size) {
+            return new Node[size];
+        }
+    }
+}
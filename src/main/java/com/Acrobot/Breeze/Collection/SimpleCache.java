@@ -44,4 +44,12 @@ public class SimpleCache<K, V> {
     public boolean contains(K key) {
         return map.containsKey(key);
     }
+
+    public V remove(K key) {
+        return map.remove(key);
+    }
+
+    public void clear() {
+        map.clear();
+    }
 }
@@ -0,0 +1,132 @@
+package com.Acrobot.Breeze.Collection;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A least recently used cache which is bounded by the amount of entries as well as by the
+ * summed up weight of the entries. It also counts its hits and misses.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class WeightedCache<K, V> {
+    private final Map<K, Entry<V>> map;
+    private final int maxSize;
+    private final long maxWeight;
+    private long weight = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Create a new cache
+     *
+     * @param maxSize   The maximum amount of entries
+     * @param maxWeight The maximum summed up weight of all entries
+     */
+    public WeightedCache(int maxSize, long maxWeight) {
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.map = new LinkedHashMap<>(Math.min(maxSize, 1024) * 4 / 3, 0.75f, true);
+    }
+
+    /**
+     * Get a value from the cache and count the hit or miss
+     *
+     * @param key The key
+     * @return The value or <tt>null</tt> if it isn't cached
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * Add a value to the cache, evicting the least recently used entries if the cache is full.
+     * Values which are heavier than the whole cache are not added.
+     *
+     * @param key    The key
+     * @param value  The value
+     * @param weight The weight of the value
+     */
+    public synchronized void put(K key, V value, int weight) {
+        Entry<V> previous = map.remove(key);
+        if (previous != null) {
+            this.weight -= previous.weight;
+        }
+        if (maxSize <= 0 || weight > maxWeight) {
+            return;
+        }
+
+        map.put(key, new Entry<>(value, weight));
+        this.weight += weight;
+
+        Iterator<Entry<V>> it = map.values().iterator();
+        while ((map.size() > maxSize || this.weight > maxWeight) && it.hasNext()) {
+            this.weight -= it.next().weight;
+            it.remove();
+        }
+    }
+
+    /**
+     * Remove a value from the cache
+     *
+     * @param key The key
+     */
+    public synchronized void remove(K key) {
+        Entry<V> previous = map.remove(key);
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+    }
+
+    public synchronized void clear() {
+        map.clear();
+        weight = 0;
+    }
+
+    /**
+     * Get the keys of the cache
+     *
+     * @return The keys ordered from the least to the most recently used one
+     */
+    public synchronized List<K> getKeys() {
+        return new ArrayList<>(map.keySet());
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final int weight;
+
+        private Entry(V value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
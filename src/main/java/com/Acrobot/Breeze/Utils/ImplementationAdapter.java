@@ -1,12 +1,17 @@
 package com.Acrobot.Breeze.Utils;
 
+import org.bukkit.Chunk;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.DoubleChest;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 public class ImplementationAdapter {
 
@@ -14,6 +19,7 @@ public class ImplementationAdapter {
     private static BiFunction<DoubleChest, Boolean, InventoryHolder> LEFT_HOLDER_PROVIDER;
     private static BiFunction<DoubleChest, Boolean, InventoryHolder> RIGHT_HOLDER_PROVIDER;
     private static BiFunction<Block, Boolean, BlockState> STATE_PROVIDER;
+    private static BiFunction<Chunk, Predicate<Block>, Collection<BlockState>> TILE_ENTITIES_PROVIDER;
 
     static {
         try {
@@ -34,6 +40,15 @@ public class ImplementationAdapter {
         } catch (NoSuchMethodException | ClassNotFoundException | NoSuchFieldException | IllegalAccessException e) {
             STATE_PROVIDER = (block, useSnapshot) -> block.getState();
         }
+        try {
+            Chunk.class.getMethod("getTileEntities", Predicate.class, boolean.class);
+            Class c = Class.forName("com.Acrobot.Breeze.Utils.ImplementationFeatures.NonSnapshotTileEntities");
+            TILE_ENTITIES_PROVIDER = (BiFunction<Chunk, Predicate<Block>, Collection<BlockState>>) c.getDeclaredField("PROVIDER").get(null);
+        } catch (NoSuchMethodException | ClassNotFoundException | NoSuchFieldException | IllegalAccessException e) {
+            TILE_ENTITIES_PROVIDER = (chunk, predicate) -> Arrays.stream(chunk.getTileEntities())
+                    .filter(state -> predicate.test(state.getBlock()))
+                    .collect(Collectors.toList());
+        }
     }
 
     /**
@@ -75,4 +90,14 @@ public class ImplementationAdapter {
     public static BlockState getState(Block block, boolean useSnapshot) {
         return STATE_PROVIDER.apply(block, useSnapshot);
     }
+
+    /**
+     * Get the tile entities of a chunk whose blocks match a predicate
+     * @param chunk         The chunk
+     * @param predicate     The predicate the tile entity's block has to match
+     * @return The (non-snapshot if possible) states of the matching tile entities
+     */
+    public static Collection<BlockState> getTileEntities(Chunk chunk, Predicate<Block> predicate) {
+        return TILE_ENTITIES_PROVIDER.apply(chunk, predicate);
+    }
 }
@@ -0,0 +1,15 @@
+package com.Acrobot.Breeze.Utils.ImplementationFeatures;
+
+import org.bukkit.Chunk;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+
+import java.util.Collection;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+public class NonSnapshotTileEntities {
+
+    public static final BiFunction<Chunk, Predicate<Block>, Collection<BlockState>> PROVIDER = (chunk, predicate) -> chunk.getTileEntities(predicate, false);
+
+}
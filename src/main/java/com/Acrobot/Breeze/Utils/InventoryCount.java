@@ -0,0 +1,248 @@
+package com.Acrobot.Breeze.Utils;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Counts multiple items in an inventory with a single pass over its storage contents.
+ * <p>
+ * Equal items (see {@link MaterialUtil#equals(ItemStack, ItemStack)}) of the counted item array are merged into
+ * one target, just like {@link InventoryUtil#getItemCounts(ItemStack...)} does. For every target the amount in
+ * the inventory and the space left for it are counted.
+ */
+public class InventoryCount {
+    private final ItemStack[] targets;
+    private final int[] wanted;
+    private final int[] amounts;
+    private final int[] stackSpace;
+    private final int[] capacity;
+    private final int targetCount;
+    private final int emptySlots;
+    private final boolean unlimited;
+
+    private InventoryCount(Inventory inventory, ItemStack[] items) {
+        targets = new ItemStack[items.length];
+        wanted = new int[items.length];
+
+        int count = 0;
+        Iterating:
+        for (ItemStack item : items) {
+            for (int i = 0; i < count; i++) {
+                if (MaterialUtil.equals(item, targets[i])) {
+                    wanted[i] += item.getAmount();
+                    continue Iterating;
+                }
+            }
+
+            ItemStack itemClone = item.clone();
+            itemClone.setAmount(1);
+            targets[count] = itemClone;
+            wanted[count] = item.getAmount();
+            count++;
+        }
+        targetCount = count;
+
+        amounts = new int[count];
+        stackSpace = new int[count];
+        capacity = new int[count];
+        int[] space = new int[count];
+        int[] maxStackSizes = new int[count];
+        for (int i = 0; i < count; i++) {
+            maxStackSizes[i] = InventoryUtil.getMaxStackSize(targets[i]);
+        }
+
+        int empty = 0;
+        for (ItemStack stack : InventoryUtil.getStorageContents(inventory)) {
+            if (MaterialUtil.isEmpty(stack)) {
+                empty++;
+                for (int i = 0; i < count; i++) {
+                    space[i] += maxStackSizes[i];
+                    capacity[i] = Math.max(capacity[i], space[i]);
+                }
+                continue;
+            }
+
+            for (int i = 0; i < count; i++) {
+                if (stack.getType() != targets[i].getType() || !MaterialUtil.equals(stack, targets[i])) {
+                    continue;
+                }
+                int free = InventoryUtil.getMaxStackSize(stack) - stack.getAmount();
+                amounts[i] += stack.getAmount();
+                stackSpace[i] += free;
+                space[i] += free;
+                // Over-stacked items can reduce the space again, the items already fit before that slot
+                capacity[i] = Math.max(capacity[i], space[i]);
+            }
+        }
+        emptySlots = empty;
+
+        if (inventory.getType() == null) {
+            // Admin inventories contain an infinite amount of every item
+            for (int i = 0; i < count; i++) {
+                amounts[i] = inventory.contains(targets[i].getType()) ? Integer.MAX_VALUE : 0;
+            }
+        }
+        unlimited = inventory.getSize() == Integer.MAX_VALUE;
+    }
+
+    private InventoryCount(InventoryCount count, ItemStack[] targets, int[] wanted, int[] indices, int targetCount) {
+        this.targets = targets;
+        this.wanted = wanted;
+        this.targetCount = targetCount;
+        this.amounts = new int[targetCount];
+        this.stackSpace = new int[targetCount];
+        this.capacity = new int[targetCount];
+        for (int i = 0; i < targetCount; i++) {
+            amounts[i] = count.amounts[indices[i]];
+            stackSpace[i] = count.stackSpace[indices[i]];
+            capacity[i] = count.capacity[indices[i]];
+        }
+        this.emptySlots = count.emptySlots;
+        this.unlimited = count.unlimited;
+    }
+
+    /**
+     * Count items in an inventory
+     *
+     * @param inventory The inventory
+     * @param items     The items to count, equal items are merged
+     * @return The counted amounts
+     */
+    public static InventoryCount of(Inventory inventory, ItemStack... items) {
+        return new InventoryCount(inventory, items);
+    }
+
+    /**
+     * @return The amount of different items which were counted
+     */
+    public int getTargetCount() {
+        return targetCount;
+    }
+
+    /**
+     * Get a counted item. This must not be modified!
+     *
+     * @param target The index of the counted item
+     * @return The item with an amount of 1
+     */
+    public ItemStack getTarget(int target) {
+        return targets[target];
+    }
+
+    /**
+     * Get the merged amount of a counted item in the item array that was counted
+     *
+     * @param target The index of the counted item
+     * @return The wanted amount
+     */
+    public int getWanted(int target) {
+        return wanted[target];
+    }
+
+    /**
+     * Get the amount of an item in the inventory
+     *
+     * @param target The index of the counted item
+     * @return The amount, {@link Integer#MAX_VALUE} for admin inventories which contain the item
+     */
+    public int getAmount(int target) {
+        return amounts[target];
+    }
+
+    /**
+     * Get the space which is left in the stacks of an item in the inventory, this does not include empty slots
+     *
+     * @param target The index of the counted item
+     * @return The space left in the existing stacks
+     */
+    public int getStackSpace(int target) {
+        return stackSpace[target];
+    }
+
+    /**
+     * Check whether an amount of an item fits into the inventory.
+     * Every item can use all empty slots, they aren't shared between the counted items!
+     *
+     * @param target The index of the counted item
+     * @param amount The amount to check
+     * @return Whether or not the amount fits into the inventory
+     */
+    public boolean fits(int target, int amount) {
+        return unlimited || amount <= capacity[target];
+    }
+
+    /**
+     * @return The amount of empty storage slots in the inventory
+     */
+    public int getEmptySlots() {
+        return emptySlots;
+    }
+
+    /**
+     * @return Whether or not the inventory contains the wanted amount of all counted items
+     */
+    public boolean hasItems() {
+        for (int i = 0; i < targetCount; i++) {
+            if (amounts[i] < wanted[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Whether or not the wanted amounts of all counted items fit into the inventory, each on their own
+     */
+    public boolean fits() {
+        for (int i = 0; i < targetCount; i++) {
+            if (!fits(i, wanted[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reuse this count for different items without scanning the inventory again.
+     * This only works if the inventory wasn't modified since it was counted!
+     *
+     * @param items The items to count, equal items are merged
+     * @return The count for the items or <tt>null</tt> if not all of them were counted by this count
+     */
+    public InventoryCount withStock(ItemStack... items) {
+        ItemStack[] newTargets = new ItemStack[items.length];
+        int[] newWanted = new int[items.length];
+        int[] indices = new int[items.length];
+
+        int count = 0;
+        Iterating:
+        for (ItemStack item : items) {
+            for (int i = 0; i < count; i++) {
+                if (MaterialUtil.equals(item, newTargets[i])) {
+                    newWanted[i] += item.getAmount();
+                    continue Iterating;
+                }
+            }
+
+            int index = indexOf(item);
+            if (index < 0) {
+                return null;
+            }
+            newTargets[count] = targets[index];
+            newWanted[count] = item.getAmount();
+            indices[count] = index;
+            count++;
+        }
+
+        return new InventoryCount(this, newTargets, newWanted, indices, count);
+    }
+
+    private int indexOf(ItemStack item) {
+        for (int i = 0; i < targetCount; i++) {
+            if (MaterialUtil.equals(item, targets[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -2,7 +2,6 @@ package com.Acrobot.Breeze.Utils;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -20,7 +19,7 @@ import org.bukkit.inventory.ItemStack;
 public class InventoryUtil {
     private static Boolean legacyContents = null;
 
-    private static ItemStack[] getStorageContents(Inventory inventory) {
+    static ItemStack[] getStorageContents(Inventory inventory) {
         if (legacyContents == null) {
             try {
                 inventory.getStorageContents();
@@ -45,22 +44,7 @@ public class InventoryUtil {
             return 0;
         }
 
-        if (inventory.getType() == null) {
-            return Integer.MAX_VALUE;
-        }
-
-        HashMap<Integer, ? extends ItemStack> items = inventory.all(item.getType());
-        int itemAmount = 0;
-
-        for (ItemStack iStack : items.values()) {
-            if (!MaterialUtil.equals(iStack, item)) {
-                continue;
-            }
-
-            itemAmount += iStack.getAmount();
-        }
-
-        return itemAmount;
+        return InventoryCount.of(inventory, item).getAmount(0);
     }
 
     /**
@@ -104,14 +88,7 @@ public class InventoryUtil {
      * @return Does the inventory contain stock of this type?
      */
     public static boolean hasItems(ItemStack[] items, Inventory inventory) {
-        Map<ItemStack, Integer> itemCounts = getItemCounts(items);
-        for (Map.Entry<ItemStack, Integer> entry : itemCounts.entrySet()) {
-            if (getAmount(entry.getKey(), inventory) < entry.getValue()) {
-                return false;
-            }
-        }
-
-        return true;
+        return InventoryCount.of(inventory, items).hasItems();
     }
 
     /**
@@ -122,14 +99,11 @@ public class InventoryUtil {
      * @return Do the items fit inside the inventory?
      */
     public static boolean fits(ItemStack[] items, Inventory inventory) {
-        Map<ItemStack, Integer> itemCounts = InventoryUtil.getItemCounts(items);
-        for (Map.Entry<ItemStack, Integer> entry : itemCounts.entrySet()) {
-            if (!InventoryUtil.fits(entry.getKey(), entry.getValue(), inventory)) {
-                return false;
-            }
+        if (inventory.getSize() == Integer.MAX_VALUE) {
+            return true;
         }
 
-        return true;
+        return InventoryCount.of(inventory, items).fits();
     }
 
     /**
@@ -0,0 +1,182 @@
+package com.Acrobot.Breeze.Utils;
+
+import com.Acrobot.Breeze.Collection.SimpleCache;
+import com.Acrobot.ChestShop.Configuration.Properties;
+import org.bukkit.Material;
+import org.bukkit.configuration.file.YamlConstructor;
+import org.bukkit.configuration.file.YamlRepresenter;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.nodes.Tag;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The normalised meta of an item, used by {@link MaterialUtil#equals(ItemStack, ItemStack)} to compare items
+ * which aren't {@link ItemStack#isSimilar(ItemStack) similar} but might still be the same after serialisation.
+ * <p>
+ * Fingerprints are cached by the item's type, durability and meta (using the meta's own equality, which doesn't
+ * need to serialise it) so that the meta only needs to be serialised, normalised and, as a last resort, run through
+ * the YAML dumper once for every distinct item.
+ */
+public class ItemFingerprint {
+    private static final ThreadLocal<Yaml> YAML = ThreadLocal.withInitial(
+            () -> new Yaml(new YamlBukkitConstructor(), new YamlRepresenter(), new DumperOptions())
+    );
+
+    private static final SimpleCache<Key, ItemFingerprint> CACHE = new SimpleCache<>(Properties.CACHE_SIZE);
+    private static Set<String> cachedExclusions = Properties.EXCLUDED_ITEM_ATTRIBUTES;
+
+    private final Map<String, Object> meta;
+    private final int hash;
+
+    private volatile boolean dumped = false;
+    private ItemStack dumpedItem;
+    private Map<String, Object> dumpedMeta;
+    private Map<String, Object> strippedDumpedMeta;
+
+    private ItemFingerprint(ItemMeta itemMeta) {
+        meta = stripExcludedKeys(itemMeta.serialize());
+        hash = meta.hashCode();
+    }
+
+    /**
+     * Get the fingerprint of an item
+     *
+     * @param item The item
+     * @param meta The meta of the item, it must not be changed afterwards as it is used as the cache key
+     * @return The fingerprint, either from the cache or newly created
+     */
+    public static ItemFingerprint of(ItemStack item, ItemMeta meta) {
+        synchronized (CACHE) {
+            if (cachedExclusions != Properties.EXCLUDED_ITEM_ATTRIBUTES) {
+                // The config was reloaded, the normalised metas might have changed
+                CACHE.clear();
+                cachedExclusions = Properties.EXCLUDED_ITEM_ATTRIBUTES;
+            }
+        }
+
+        Key key = new Key(item.getType(), item.getDurability(), meta);
+        ItemFingerprint fingerprint = CACHE.get(key);
+        if (fingerprint == null) {
+            fingerprint = new ItemFingerprint(meta);
+            CACHE.put(key, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Check whether the normalised metas of two fingerprints are equal
+     *
+     * @param other The other fingerprint
+     * @return Whether or not the metas are equal when ignoring the excluded attributes
+     */
+    public boolean matches(ItemFingerprint other) {
+        return this == other || (hash == other.hash && meta.equals(other.meta));
+    }
+
+    /**
+     * Compare the items after running them through the same YAML dumper that the item database used
+     * when generating item codes. (Serialising might lead to different item meta)
+     *
+     * @param item      The item this fingerprint belongs to
+     * @param other     The other fingerprint
+     * @param otherItem The item the other fingerprint belongs to
+     * @return Whether or not the items are the same after serialisation
+     */
+    public boolean matchesDumped(ItemStack item, ItemFingerprint other, ItemStack otherItem) {
+        dump(item);
+        if (dumpedItem.isSimilar(otherItem)) {
+            return true;
+        }
+
+        if (dumpedMeta != null && dumpedMeta.equals(other.meta)) {
+            return true;
+        }
+
+        other.dump(otherItem);
+        if (dumpedItem.isSimilar(other.dumpedItem)) {
+            return true;
+        }
+
+        if (strippedDumpedMeta != null && other.strippedDumpedMeta != null) {
+            return strippedDumpedMeta.equals(other.strippedDumpedMeta);
+        }
+
+        // return true if both are null, false otherwise
+        return dumpedMeta == other.dumpedMeta;
+    }
+
+    private void dump(ItemStack item) {
+        if (dumped) {
+            return;
+        }
+        synchronized (this) {
+            if (dumped) {
+                return;
+            }
+
+            ItemStack cloned = item.clone();
+            cloned.setAmount(1);
+
+            Yaml yaml = YAML.get();
+            dumpedItem = yaml.loadAs(yaml.dump(cloned), ItemStack.class);
+            ItemMeta meta = dumpedItem.getItemMeta();
+            if (meta != null) {
+                dumpedMeta = meta.serialize();
+                strippedDumpedMeta = stripExcludedKeys(dumpedMeta);
+            }
+            dumped = true;
+        }
+    }
+
+    /**
+     * Copy a serialized meta map without the keys included in the {@link Properties#EXCLUDED_ITEM_ATTRIBUTES} config option
+     */
+    private static Map<String, Object> stripExcludedKeys(Map<String, Object> map) {
+        Map<String, Object> stripped = new HashMap<>(map);
+        stripped.keySet().removeAll(Properties.EXCLUDED_ITEM_ATTRIBUTES);
+        return stripped;
+    }
+
+    private static class Key {
+        private final Material type;
+        private final short durability;
+        private final ItemMeta meta;
+        private final int hash;
+
+        private Key(Material type, short durability, ItemMeta meta) {
+            this.type = type;
+            this.durability = durability;
+            this.meta = meta;
+            this.hash = 31 * (31 * type.hashCode() + durability) + meta.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash && type == key.type && durability == key.durability && meta.equals(key.meta);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static class YamlBukkitConstructor extends YamlConstructor {
+        public YamlBukkitConstructor() {
+            this.yamlConstructors.put(new Tag(Tag.PREFIX + "org.bukkit.inventory.ItemStack"), yamlConstructors.get(Tag.MAP));
+        }
+    }
+}
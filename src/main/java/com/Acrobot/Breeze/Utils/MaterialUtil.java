@@ -1,5 +1,6 @@
 package com.Acrobot.Breeze.Utils;
 
+import com.Acrobot.Breeze.Collection.EnumNameIndex;
 import com.Acrobot.Breeze.Collection.SimpleCache;
 import com.Acrobot.ChestShop.ChestShop;
 import com.Acrobot.ChestShop.Configuration.Messages;
@@ -13,24 +14,22 @@ import net.kyori.adventure.text.TextComponent;
 import net.kyori.adventure.text.serializer.gson.GsonComponentSerializer;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
-import org.bukkit.configuration.file.YamlConstructor;
-import org.bukkit.configuration.file.YamlRepresenter;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.Damageable;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.VisibleForTesting;
-import org.yaml.snakeyaml.DumperOptions;
-import org.yaml.snakeyaml.Yaml;
-import org.yaml.snakeyaml.nodes.Tag;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -79,11 +78,36 @@ public class MaterialUtil {
 
     private static final SimpleCache<String, Material> MATERIAL_CACHE = new SimpleCache<>(Properties.CACHE_SIZE);
 
-    private static final Yaml YAML = new Yaml(new YamlBukkitConstructor(), new YamlRepresenter(), new DumperOptions());
+    /**
+     * The unidirectional abbreviations in the order in which they have to be reverted
+     */
+    private static final String[][] REVERSED_ABBREVIATIONS;
+
+    private static final EnumNameIndex<Material> MATERIAL_INDEX = new EnumNameIndex<>(Material.values());
+
+    /**
+     * Material -> capitalized name which is used as the base of the item names
+     */
+    private static final Map<Material, String> MATERIAL_NAMES = new EnumMap<>(Material.class);
+    private static final Set<String> MATERIAL_NAME_VALUES = new HashSet<>();
 
-    private static class YamlBukkitConstructor extends YamlConstructor {
-        public YamlBukkitConstructor() {
-            this.yamlConstructors.put(new Tag(Tag.PREFIX + "org.bukkit.inventory.ItemStack"), yamlConstructors.get(Tag.MAP));
+    /**
+     * Capitalized material name -> names shortened to a specific width (the array index), filled when they are needed
+     */
+    private static final Map<String, String[]> SHORTENED_NAMES = new ConcurrentHashMap<>();
+
+    static {
+        List<Map.Entry<String, String>> abbreviations = new ArrayList<>(UNIDIRECTIONAL_ABBREVIATIONS.entrySet());
+        REVERSED_ABBREVIATIONS = new String[abbreviations.size()][];
+        for (int i = 0; i < abbreviations.size(); i++) {
+            Map.Entry<String, String> entry = abbreviations.get(abbreviations.size() - 1 - i);
+            REVERSED_ABBREVIATIONS[i] = new String[] {entry.getValue(), entry.getKey()};
+        }
+
+        for (Material material : Material.values()) {
+            String name = StringUtil.capitalizeFirstLetter(material.toString(), '_');
+            MATERIAL_NAMES.put(material, name);
+            MATERIAL_NAME_VALUES.add(name);
         }
     }
 
@@ -117,77 +141,32 @@ public class MaterialUtil {
         // Special check for books as their pages might change when serialising (See SPIGOT-3206 and ChestShop#250)
         // Special check for explorer maps/every item with a localised name (See SPIGOT-4672)
         // Special check for legacy spawn eggs (See ChestShop#264)
-        if (one.getType() != two.getType()
-                || one.getDurability() != two.getDurability()
-                || (one.hasItemMeta() && two.hasItemMeta() && one.getItemMeta().getClass() != two.getItemMeta().getClass())) {
+        if (one.getType() != two.getType() || one.getDurability() != two.getDurability()) {
             return false;
         }
-        if (!one.hasItemMeta() && !two.hasItemMeta()) {
+        boolean oneHasMeta = one.hasItemMeta();
+        boolean twoHasMeta = two.hasItemMeta();
+        if (!oneHasMeta && !twoHasMeta) {
             return true;
         }
         ItemMeta oneMeta = one.getItemMeta();
         ItemMeta twoMeta = two.getItemMeta();
+        if (oneHasMeta && twoHasMeta && oneMeta != null && twoMeta != null && oneMeta.getClass() != twoMeta.getClass()) {
+            return false;
+        }
         // return true if both are null or same, false if only one is null
         if (oneMeta == twoMeta || oneMeta == null || twoMeta == null) {
             return oneMeta == twoMeta;
         }
 
-        Map<String, Object> oneSerMeta = new HashMap<>(oneMeta.serialize());
-        Map<String, Object> twoSerMeta = new HashMap<>(twoMeta.serialize());
-
-        removeExcludedKeys(oneSerMeta);
-        removeExcludedKeys(twoSerMeta);
-
-        if (oneSerMeta.equals(twoSerMeta)) {
+        ItemFingerprint oneFingerprint = ItemFingerprint.of(one, oneMeta);
+        ItemFingerprint twoFingerprint = ItemFingerprint.of(two, twoMeta);
+        if (oneFingerprint.matches(twoFingerprint)) {
             return true;
         }
 
         // Try to use same parsing as the YAML dumper in the ItemDatabase when generating the code as the last resort
-        ItemStack oneCloned = one.clone();
-        oneCloned.setAmount(1);
-
-        ItemStack twoCloned = two.clone();
-        twoCloned.setAmount(1);
-
-        ItemStack oneDumped = YAML.loadAs(YAML.dump(oneCloned), ItemStack.class);
-        if (oneDumped.isSimilar(twoCloned)) {
-            return true;
-        }
-
-        ItemMeta oneDumpedMeta = oneDumped.getItemMeta();
-        if (oneDumpedMeta != null && oneDumpedMeta.serialize().equals(twoSerMeta)) {
-            return true;
-        }
-
-        ItemStack twoDumped = YAML.loadAs(YAML.dump(twoCloned), ItemStack.class);
-        if (oneDumped.isSimilar(twoDumped)) {
-            return true;
-        }
-
-        ItemMeta twoDumpedMeta = twoDumped.getItemMeta();
-        if (oneDumpedMeta != null && twoDumpedMeta != null) {
-            Map<String, Object> oneSerDumpedMeta = new HashMap<>(oneDumpedMeta.serialize());
-            Map<String, Object> twoSerDumpedMeta = new HashMap<>(twoDumpedMeta.serialize());
-
-            removeExcludedKeys(oneSerDumpedMeta);
-            removeExcludedKeys(twoSerDumpedMeta);
-
-            if (oneSerDumpedMeta.equals(twoSerDumpedMeta)) {
-                return true;
-            }
-        }
-
-        // return true if both are null or same, false otherwise
-        return oneDumpedMeta == twoDumpedMeta;
-    }
-
-    /**
-     * Remove all keys included in the {@link Properties#EXCLUDED_ITEM_ATTRIBUTES} config option from a serialized
-     * meta map
-     * @param map The serialized item data to modify
-     */
-    private static void removeExcludedKeys(Map<String, Object> map) {
-        map.keySet().removeAll(Properties.EXCLUDED_ITEM_ATTRIBUTES);
+        return oneFingerprint.matchesDumped(one, twoFingerprint, two);
     }
 
     /**
@@ -197,15 +176,7 @@ public class MaterialUtil {
      * @return Material found
      */
     public static Material getMaterial(String name) {
-        String replacedName = name;
-        // revert unidirectional abbreviations
-        List<Map.Entry<String, String>> abbreviations = new ArrayList<>(UNIDIRECTIONAL_ABBREVIATIONS.entrySet());
-        for (int i = abbreviations.size() - 1; i >= 0; i--) {
-            Map.Entry<String, String> entry = abbreviations.get(i);
-            replacedName = replacedName.replaceAll(entry.getValue() + "(_|$|[A-Z\\d])", entry.getKey() + "$1");
-        }
-
-        String formatted = name.replaceAll("(?<!^)(?>\\s?)([A-Z1-9])", "_$1").replace(' ', '_').toUpperCase(Locale.ROOT);
+        String formatted = toEnumName(name);
 
         Material material = MATERIAL_CACHE.get(formatted);
         if (material != null) {
@@ -219,7 +190,7 @@ public class MaterialUtil {
             return material;
         }
 
-        material = new EnumParser<Material>().parse(replacedName, Material.values());
+        material = MATERIAL_INDEX.find(toEnumName(revertAbbreviations(name)));
         if (material != null) {
             MATERIAL_CACHE.put(formatted, material);
         }
@@ -227,6 +198,85 @@ public class MaterialUtil {
         return material;
     }
 
+    /**
+     * Convert a (partially typed) name to the format of enum names. Upper case letters and digits
+     * start a new word, e.g. <tt>DiamondPick</tt> and <tt>Diamond pick</tt> both become <tt>DIAMOND_PICK</tt>.
+     *
+     * @param name The name
+     * @return The uppercase and underscore separated name
+     */
+    private static String toEnumName(String name) {
+        StringBuilder formatted = new StringBuilder(name.length() + 8);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (i > 0) {
+                if (isWordStart(c)) {
+                    formatted.append('_');
+                } else if (isWhitespace(c) && i + 1 < name.length() && isWordStart(name.charAt(i + 1))) {
+                    // Whitespace in front of a word start is swallowed by the underscore
+                    c = name.charAt(++i);
+                    formatted.append('_');
+                }
+            }
+            formatted.append(c == ' ' ? '_' : c);
+        }
+        return formatted.toString().toUpperCase(Locale.ROOT);
+    }
+
+    private static boolean isWordStart(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= '1' && c <= '9');
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Revert the {@link #UNIDIRECTIONAL_ABBREVIATIONS} in a name. An abbreviation is only reverted
+     * if it is followed by the end of the name, an underscore, an upper case letter or a digit.
+     *
+     * @param name The name
+     * @return The name with the abbreviations replaced by their long form
+     */
+    private static String revertAbbreviations(String name) {
+        for (String[] abbreviation : REVERSED_ABBREVIATIONS) {
+            name = replaceWord(name, abbreviation[0], abbreviation[1]);
+        }
+        return name;
+    }
+
+    private static String replaceWord(String name, String abbreviation, String replacement) {
+        int index = name.indexOf(abbreviation);
+        if (index < 0) {
+            return name;
+        }
+
+        StringBuilder replaced = null;
+        int copied = 0;
+        while (index > -1) {
+            int end = index + abbreviation.length();
+            if (end == name.length() || isAbbreviationEnd(name.charAt(end))) {
+                if (replaced == null) {
+                    replaced = new StringBuilder(name.length() + 16);
+                }
+                replaced.append(name, copied, index).append(replacement);
+                // The character after the abbreviation belongs to the match and can't start the next one
+                copied = end;
+                index = name.indexOf(abbreviation, Math.min(end + 1, name.length()));
+            } else {
+                index = name.indexOf(abbreviation, index + 1);
+            }
+        }
+        if (replaced == null) {
+            return name;
+        }
+        return replaced.append(name, copied, name.length()).toString();
+    }
+
+    private static boolean isAbbreviationEnd(char c) {
+        return c == '_' || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
     /**
      * Get a list with item information
      *
@@ -291,7 +341,6 @@ public class MaterialUtil {
      * @return ItemStack's name
      */
     public static String getName(ItemStack itemStack, int maxWidth) {
-        String itemName = itemStack.getType().toString();
 
         String durability = "";
         ItemMeta meta = itemStack.getItemMeta();
@@ -307,12 +356,13 @@ public class MaterialUtil {
             metaData = "#" + Metadata.getItemCode(itemStack);
         }
 
-        String code = StringUtil.capitalizeFirstLetter(itemName, '_');
+        String code = MATERIAL_NAMES.get(itemStack.getType());
         if (maxWidth > 0) {
-            int codeWidth = getMinecraftStringWidth(code + durability + metaData);
+            int nameWidth = getMinecraftStringWidth(code);
+            int codeWidth = nameWidth + getMinecraftStringWidth(durability) + getMinecraftStringWidth(metaData);
             if (codeWidth > maxWidth) {
                 int exceeding = codeWidth - maxWidth;
-                code = getShortenedName(code, getMinecraftStringWidth(code) - exceeding);
+                code = getShortenedName(code, nameWidth - exceeding);
             }
         }
 
@@ -350,14 +400,29 @@ public class MaterialUtil {
      * @return The name shortened to the max length
      */
     public static String getShortenedName(String itemName, int maxWidth) {
+        if (maxWidth < 0 || maxWidth > MAXIMUM_SIGN_WIDTH || !MATERIAL_NAME_VALUES.contains(itemName)) {
+            return shortenName(itemName, maxWidth);
+        }
+
+        // Names of materials are shortened to the same few sign widths all the time
+        String[] shortenedNames = SHORTENED_NAMES.computeIfAbsent(itemName, name -> new String[MAXIMUM_SIGN_WIDTH + 1]);
+        String shortenedName = shortenedNames[maxWidth];
+        if (shortenedName == null) {
+            shortenedName = shortenName(itemName, maxWidth);
+            shortenedNames[maxWidth] = shortenedName;
+        }
+        return shortenedName;
+    }
+
+    private static String shortenName(String itemName, int maxWidth) {
         // Restore spaces in string that might be already be shortened
-        String name = itemName.replaceAll("([a-z])([A-Z1-9])", "$1 $2");
+        String name = separateWords(itemName);
         name = StringUtil.capitalizeFirstLetter(name.replace('_', ' '), ' ');
         int width = getMinecraftStringWidth(name);
         if (width <= maxWidth) {
             return name;
         }
-        String[] itemParts = name.split("[ \\-]");
+        String[] itemParts = splitWords(name);
         String noSpaceName = String.join("", itemParts);
         width = getMinecraftStringWidth(noSpaceName);
         if (width <= maxWidth) {
@@ -366,8 +431,8 @@ public class MaterialUtil {
 
         // Abbreviate some terms manually
         for (Map.Entry<String, String> entry : ABBREVIATIONS.entrySet()) {
-            name = name.replaceAll(entry.getKey() + "( |$)", entry.getValue() + "$1");
-            itemParts = name.split("[ \\-]");
+            name = abbreviateWord(name, entry.getKey(), entry.getValue());
+            itemParts = splitWords(name);
             noSpaceName = String.join("", itemParts);
             width = getMinecraftStringWidth(noSpaceName);
             if (width <= maxWidth) {
@@ -377,8 +442,8 @@ public class MaterialUtil {
 
         // Apply unidirectional abbreviations if it still doesn't work
         for (Map.Entry<String, String> entry : UNIDIRECTIONAL_ABBREVIATIONS.entrySet()) {
-            name = name.replaceAll(entry.getKey() + "( |$)", entry.getValue() + "$1");
-            itemParts = name.split("[ \\-]");
+            name = abbreviateWord(name, entry.getKey(), entry.getValue());
+            itemParts = splitWords(name);
             noSpaceName = String.join("", itemParts);
             width = getMinecraftStringWidth(noSpaceName);
             if (width <= maxWidth) {
@@ -436,6 +501,82 @@ public class MaterialUtil {
         return String.join("", itemParts);
     }
 
+    /**
+     * Insert a space between a lower case letter and a following upper case letter or digit
+     */
+    private static String separateWords(String name) {
+        StringBuilder separated = null;
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            char previous = name.charAt(i - 1);
+            if (previous >= 'a' && previous <= 'z' && isWordStart(c)) {
+                if (separated == null) {
+                    separated = new StringBuilder(name.length() + 8).append(name, 0, i);
+                }
+                separated.append(' ');
+            }
+            if (separated != null) {
+                separated.append(c);
+            }
+        }
+        return separated != null ? separated.toString() : name;
+    }
+
+    /**
+     * Split a name at spaces and dashes. Like {@link String#split(String)} this drops trailing empty parts.
+     */
+    private static String[] splitWords(String name) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == ' ' || c == '-') {
+                parts.add(name.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(name.substring(start));
+        int size = parts.size();
+        while (size > 1 && parts.get(size - 1).isEmpty()) {
+            size--;
+        }
+        if (size == 1 && parts.get(0).isEmpty() && !name.isEmpty()) {
+            // Only separators
+            return new String[0];
+        }
+        return parts.subList(0, size).toArray(new String[0]);
+    }
+
+    /**
+     * Replace a word which is followed by a space or the end of the name
+     */
+    private static String abbreviateWord(String name, String word, String abbreviation) {
+        int index = name.indexOf(word);
+        if (index < 0) {
+            return name;
+        }
+
+        StringBuilder replaced = null;
+        int copied = 0;
+        while (index > -1) {
+            int end = index + word.length();
+            if (end == name.length() || name.charAt(end) == ' ') {
+                if (replaced == null) {
+                    replaced = new StringBuilder(name.length());
+                }
+                replaced.append(name, copied, index).append(abbreviation);
+                copied = end;
+                index = name.indexOf(word, Math.min(end + 1, name.length()));
+            } else {
+                index = name.indexOf(word, index + 1);
+            }
+        }
+        if (replaced == null) {
+            return name;
+        }
+        return replaced.append(name, copied, name.length()).toString();
+    }
+
     /**
      * Gives you an ItemStack from a String
      *
@@ -532,57 +673,6 @@ public class MaterialUtil {
         return group != null ? Metadata.getFromCode(group) : null;
     }
 
-    private static class EnumParser<E extends Enum<E>> {
-        private E parse(String name, E[] values) {
-            String formatted = name.replaceAll("(?<!^)(?>\\s?)([A-Z1-9])", "_$1").toUpperCase(Locale.ROOT).replace(' ', '_');
-            try {
-                return E.valueOf(values[0].getDeclaringClass(), formatted);
-            } catch (IllegalArgumentException exception) {
-                List<E> possibleEnums = new ArrayList<>();
-                String[] typeParts = formatted.split("_");
-                int length = Short.MAX_VALUE;
-                for (E e : values) {
-                    String enumName = e.name();
-                    if (enumName.length() < length && enumName.startsWith(formatted)) {
-                        length = enumName.length();
-                        possibleEnums.add(e);
-                    } else if (typeParts.length > 1) {
-                        String[] nameParts = enumName.split("_");
-                        if (typeParts.length == nameParts.length) {
-                            boolean matched = true;
-                            for (int i = 0; i < nameParts.length; i++) {
-                                if (!nameParts[i].startsWith(typeParts[i])) {
-                                    matched = false;
-                                    break;
-                                }
-                            }
-                            if (matched) {
-                                possibleEnums.add(e);
-                            }
-                        }
-                    }
-                }
-
-                if (possibleEnums.size() == 1) {
-                    return possibleEnums.get(0);
-                } else if (possibleEnums.size() > 1) {
-                    int formattedLength = formatted.length();
-                    int closestDeviation = Short.MAX_VALUE;
-                    E closestEnum = null;
-                    for (E possibleEnum : possibleEnums) {
-                        int deviation = possibleEnum.name().length() - formattedLength;
-                        if (deviation < closestDeviation) {
-                            closestDeviation = deviation;
-                            closestEnum = possibleEnum;
-                        }
-                    }
-                    return closestEnum;
-                }
-                return null;
-            }
-        }
-    }
-
     public static class Metadata {
         /**
          * Returns the ItemMeta represented by this code
@@ -71,6 +71,9 @@ public class StringUtil {
      * @return Stripped string
      */
     public static String stripColourCodes(String string) {
+        if (string == null || string.indexOf(ChatColor.COLOR_CHAR) < 0) {
+            return string;
+        }
         return ChatColor.stripColor(string);
     }
 
@@ -132,29 +135,26 @@ public class StringUtil {
     public static String strip(String string) {
         if (string == null)
             return null;
-        // The result stripped string
-        StringBuilder stripped = new StringBuilder();
-        // The current white space which only gets added once we find a non-whitespace character
-        StringBuilder cachedWhitespace = new StringBuilder();
-        // Check each code point (not characters to support UTF16 properly)
-        for (int codePoint : string.codePoints().toArray()) {
-            // Check if it's a whitespace, so we know if we should add it
+        // Find the first non-whitespace code point (not characters to support UTF16 properly)
+        int start = 0;
+        while (start < string.length()) {
+            int codePoint = string.codePointAt(start);
+            if (!Character.isWhitespace(codePoint)) {
+                break;
+            }
+            start += Character.charCount(codePoint);
+        }
+        // Find the end of the last non-whitespace code point
+        int end = string.length();
+        while (end > start) {
+            int codePoint = string.codePointBefore(end);
             if (!Character.isWhitespace(codePoint)) {
-                // Check if we have cached whitespace, if so append it first and reset the cache
-                if (cachedWhitespace.length() > 0) {
-                    stripped.append(cachedWhitespace);
-                    cachedWhitespace = new StringBuilder();
-                }
-                // Append current code point
-                stripped.appendCodePoint(codePoint);
-            } else if (stripped.length() > 0) {
-                // If we already have some non-whitespace content in the final stripped
-                // then cache the current whitespace as it wasn't at the start
-                cachedWhitespace.appendCodePoint(codePoint);
-            } // Otherwise, this was the start, and we don't need the cached whitespace
+                break;
+            }
+            end -= Character.charCount(codePoint);
         }
-        // Return the stripped string, without any whitespace from the end left
-        return stripped.toString();
+        // Only create a new string if there actually was whitespace to strip
+        return start == 0 && end == string.length() ? string : string.substring(start, end);
     }
 
     /**
@@ -0,0 +1,49 @@
+package com.Acrobot.ChestShop.Adapter;
+
+import com.Acrobot.ChestShop.Metadata.ItemCodec;
+import com.Acrobot.ChestShop.Utils.VersionAdapter;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * Stores items in Paper's compressed NBT format. It includes the data version so the
+ * server upgrades old items by itself when they are read.
+ */
+public class Paper_1_16_5 implements ItemCodec, VersionAdapter {
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @Override
+    public String encode(ItemStack item) throws IOException {
+        try {
+            return Base64.getEncoder().encodeToString(item.serializeAsBytes());
+        } catch (RuntimeException e) {
+            throw new IOException("Unable to serialize " + item, e);
+        }
+    }
+
+    @Override
+    public ItemStack decode(String code) throws IOException {
+        try {
+            return ItemStack.deserializeBytes(Base64.getDecoder().decode(code));
+        } catch (RuntimeException e) {
+            throw new IOException("Unable to deserialize item", e);
+        }
+    }
+
+    @Override
+    public boolean isSupported() {
+        try {
+            ItemStack.class.getMethod("serializeAsBytes");
+            ItemStack.class.getMethod("deserializeBytes", byte[].class);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
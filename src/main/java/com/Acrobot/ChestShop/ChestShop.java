@@ -2,6 +2,7 @@ package com.Acrobot.ChestShop;
 
 import com.Acrobot.Breeze.Configuration.Configuration;
 import com.Acrobot.ChestShop.Commands.Give;
+import com.Acrobot.ChestShop.Commands.Import;
 import com.Acrobot.ChestShop.Commands.ItemInfo;
 import com.Acrobot.ChestShop.Commands.ShopInfo;
 import com.Acrobot.ChestShop.Commands.Toggle;
@@ -9,6 +10,8 @@ import com.Acrobot.ChestShop.Commands.Version;
 import com.Acrobot.ChestShop.Commands.AccessToggle;
 import com.Acrobot.ChestShop.Configuration.Messages;
 import com.Acrobot.ChestShop.Configuration.Properties;
+import com.Acrobot.ChestShop.Database.ConnectionManager;
+import com.Acrobot.ChestShop.Database.Invalidation.InvalidationBus;
 import com.Acrobot.ChestShop.Database.Migrations;
 import com.Acrobot.ChestShop.Listeners.Block.BlockPlace;
 import com.Acrobot.ChestShop.Listeners.Block.Break.ChestBreak;
@@ -42,12 +45,17 @@ import com.Acrobot.ChestShop.Listeners.PreTransaction.PermissionChecker;
 import com.Acrobot.ChestShop.Listeners.ShopRemoval.ShopRefundListener;
 import com.Acrobot.ChestShop.Listeners.ShopRemoval.ShopRemovalLogger;
 import com.Acrobot.ChestShop.Logging.FileFormatter;
+import com.Acrobot.ChestShop.Metadata.ItemCodec;
+import com.Acrobot.ChestShop.Metadata.ItemCodecs;
 import com.Acrobot.ChestShop.Metadata.ItemDatabase;
 import com.Acrobot.ChestShop.Signs.RestrictedSign;
+import com.Acrobot.ChestShop.Signs.ShopIndex;
+import com.Acrobot.ChestShop.Signs.ShopSignCache;
 import com.Acrobot.ChestShop.UUIDs.NameManager;
 import com.Acrobot.ChestShop.Updater.JenkinsBuildsNotifier;
 import com.Acrobot.ChestShop.Updater.Updater;
 
+import com.Acrobot.ChestShop.Utils.AsyncExecutor;
 import com.Acrobot.ChestShop.Utils.VersionAdapter;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.ByteArrayDataOutput;
@@ -94,8 +102,6 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.jar.JarFile;
 import java.util.logging.FileHandler;
@@ -111,7 +117,9 @@ public class ChestShop extends JavaPlugin {
     private static ChestShop plugin;
     private static Server server;
     private static PluginDescriptionFile description;
-    private static final ExecutorService executorService = Executors.newCachedThreadPool();
+    private static AsyncExecutor asyncExecutor;
+    private static boolean asyncExecutorStopped = false;
+    private static InvalidationBus invalidationBus;
 
     private static Metrics bStats;
 
@@ -155,13 +163,12 @@ public class ChestShop extends JavaPlugin {
         registerCommand("csVersion", new Version(), Permission.ADMIN);
         registerCommand("csMetrics", new com.Acrobot.ChestShop.Commands.Metrics(), Permission.ADMIN);
         registerCommand("csGive", new Give(), Permission.ADMIN);
+        registerCommand("csImport", new Import(), Permission.ADMIN);
         registerCommand("cstoggle", new Toggle(), Permission.NOTIFY_TOGGLE);
         registerCommand("csaccess", new AccessToggle(), Permission.ACCESS_TOGGLE);
 
         loadConfig();
 
-        itemDatabase = new ItemDatabase();
-
         if (!Dependencies.loadPlugins()) {
             getServer().getPluginManager().disablePlugin(this);
             return;
@@ -170,6 +177,9 @@ public class ChestShop extends JavaPlugin {
         registerEvents();
         registerVersionedAdapters();
 
+        // Needs to be created after the adapters as those might provide the item codecs
+        itemDatabase = new ItemDatabase();
+
         registerPluginMessagingChannels();
 
         startStatistics();
@@ -189,6 +199,9 @@ public class ChestShop extends JavaPlugin {
     public void loadConfig() {
         Configuration.pairFileAndClass(loadFile("config.yml"), Properties.class, getBukkitLogger());
 
+        getAsyncExecutor();
+        getInvalidationBus();
+
         Messages.load();
 
         NameManager.load();
@@ -253,6 +266,18 @@ public class ChestShop extends JavaPlugin {
     }
 
     private boolean handleMigrations() {
+        // The database settings are needed before the databases are opened
+        Configuration.pairFileAndClass(loadFile("config.yml"), Properties.class, getBukkitLogger());
+
+        if (Properties.DATABASE_BACKEND.isSharedStore()) {
+            if (!Migrations.migrateStore()) {
+                plugin.getLogger().log(java.util.logging.Level.SEVERE, "Error while preparing the database! ChestShop can not run without it...");
+                plugin.getServer().getPluginManager().disablePlugin(this);
+                return false;
+            }
+            return true;
+        }
+
         File versionFile = loadFile("version");
         YamlConfiguration previousVersion = YamlConfiguration.loadConfiguration(versionFile);
 
@@ -320,10 +345,28 @@ public class ChestShop extends JavaPlugin {
     }
 
     public void onDisable() {
-        executorService.shutdown();
-        try {
-            executorService.awaitTermination(15, TimeUnit.SECONDS);
-        } catch (InterruptedException ignored) {}
+        if (itemDatabase != null) {
+            itemDatabase.stopMetadataMigration();
+        }
+
+        NameManager.flushQueuedUsernames();
+
+        AsyncExecutor executor = stopAsyncExecutor();
+        if (executor != null) {
+            // Not shut down while holding the lock as the remaining tasks might still submit tasks, those run right away
+            executor.shutdown(Properties.ASYNC_SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+        }
+
+        if (itemDatabase != null) {
+            itemDatabase.saveRecentlyUsed();
+        }
+
+        // Stopped only after the async tasks which publish invalidations finished, and kept so that it isn't started again
+        if (invalidationBus != null) {
+            invalidationBus.stop();
+        }
+
+        ConnectionManager.closeAll();
 
         if (handler != null) {
             handler.close();
@@ -338,6 +381,8 @@ public class ChestShop extends JavaPlugin {
         registerEvent(new Dependencies());
 
         registerEvent(new NameManager());
+        registerEvent(new ShopIndex());
+        registerEvent(new ShopSignCache());
 
         registerPreShopCreationEvents();
         registerPreTransactionEvents();
@@ -451,6 +496,9 @@ public class ChestShop extends JavaPlugin {
                             if (VersionAdapter.class.isAssignableFrom(clazz)) {
                                 VersionAdapter adapterInstance = (VersionAdapter) clazz.getDeclaredConstructor().newInstance();
                                 if (adapterInstance.isSupported()) {
+                                    if (adapterInstance instanceof ItemCodec) {
+                                        ItemCodecs.register((ItemCodec) adapterInstance);
+                                    }
                                     if (adapterInstance instanceof Listener) {
                                         registerEvent((Listener) adapterInstance);
                                         logDebug("Registered listener for "
@@ -586,7 +634,7 @@ public class ChestShop extends JavaPlugin {
             getLogger().info("Auto-updater is disabled. If you want the plugin to automatically download new releases then set 'TURN_OFF_UPDATES' to 'false' in your config.yml!");
             if (!Properties.TURN_OFF_UPDATE_NOTIFIER) {
                 final Updater updater = new Updater(this, getPluginName().toLowerCase(Locale.ROOT), this.getFile(), Updater.UpdateType.NO_DOWNLOAD, true);
-                runInAsyncThread(() -> {
+                runInAsyncThread("updates", () -> {
                     if (updater.getResult() == Updater.UpdateResult.UPDATE_AVAILABLE) {
                         getLogger().info("There is a new version available: " + updater.getLatestName() + ". You can download it from https://modrinth.com/plugin/" + getPluginName().toLowerCase(Locale.ROOT));
                     }
@@ -696,7 +744,74 @@ public class ChestShop extends JavaPlugin {
         }
     }
 
+    /**
+     * Get the executor which runs the asynchronous tasks. Its settings are read from the config when it's
+     * first used, changing them requires a restart.
+     *
+     * @return The executor
+     * @throws IllegalStateException if the plugin is disabled and the executor was shut down
+     */
+    public static synchronized AsyncExecutor getAsyncExecutor() {
+        if (asyncExecutorStopped) {
+            throw new IllegalStateException("The async executor was shut down as ChestShop is disabled");
+        }
+        if (asyncExecutor == null) {
+            asyncExecutor = new AsyncExecutor(Properties.ASYNC_EXECUTOR_MODE, Properties.ASYNC_THREADS,
+                    Properties.ASYNC_QUEUE_SIZE, Properties.ASYNC_REJECTION_POLICY);
+        }
+        return asyncExecutor;
+    }
+
+    /**
+     * Get the bus which keeps the caches of servers sharing a database up to date. It's started with the
+     * transport from the config when it's first used, changing it requires a restart.
+     * While the plugin is disabled a bus which doesn't exchange anything is returned.
+     *
+     * @return The bus
+     */
+    public static synchronized InvalidationBus getInvalidationBus() {
+        if (invalidationBus == null) {
+            if (plugin == null || !plugin.isEnabled()) {
+                return new InvalidationBus(null);
+            }
+            invalidationBus = InvalidationBus.create();
+            invalidationBus.start();
+        }
+        return invalidationBus;
+    }
+
     public static void runInAsyncThread(Runnable runnable) {
-        executorService.submit(runnable);
+        runInAsyncThread("other", runnable);
+    }
+
+    /**
+     * Run a task asynchronously
+     *
+     * @param type     The type of the task, used to group the task metrics
+     * @param runnable The task
+     */
+    public static void runInAsyncThread(String type, Runnable runnable) {
+        AsyncExecutor executor;
+        synchronized (ChestShop.class) {
+            executor = asyncExecutorStopped ? null : getAsyncExecutor();
+        }
+        if (executor == null) {
+            // The plugin is being disabled, don't start a new executor which would never be shut down
+            runnable.run();
+            return;
+        }
+        executor.execute(type, runnable);
+    }
+
+    /**
+     * Make sure that no new executor is created anymore and forget the current one
+     *
+     * @return The executor which needs to be shut down or <tt>null</tt> if none was created
+     */
+    private static synchronized AsyncExecutor stopAsyncExecutor() {
+        asyncExecutorStopped = true;
+        AsyncExecutor executor = asyncExecutor;
+        asyncExecutor = null;
+        return executor;
     }
 }
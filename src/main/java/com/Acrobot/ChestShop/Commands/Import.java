@@ -0,0 +1,65 @@
+package com.Acrobot.ChestShop.Commands;
+
+import com.Acrobot.ChestShop.ChestShop;
+import com.Acrobot.ChestShop.Configuration.Properties;
+import com.Acrobot.ChestShop.Database.SqliteImporter;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+
+import java.sql.SQLException;
+import java.util.logging.Level;
+
+/**
+ * Copies the local SQLite databases into the configured shared database
+ */
+public class Import implements CommandExecutor {
+    private static boolean running = false;
+
+    public boolean onCommand(CommandSender sender, Command cmd, String label, String[] args) {
+        if (!Properties.DATABASE_BACKEND.isSharedStore()) {
+            sender.sendMessage(ChatColor.RED + "Set DATABASE_BACKEND to a shared database (e.g. MYSQL) and restart the server before importing.");
+            return true;
+        }
+        synchronized (Import.class) {
+            if (running) {
+                sender.sendMessage(ChatColor.RED + "An import is already running.");
+                return true;
+            }
+            running = true;
+        }
+
+        sender.sendMessage(ChatColor.GRAY + "Importing the SQLite databases into the " + Properties.DATABASE_BACKEND + " database, see the console for the progress...");
+        ChestShop.runInAsyncThread("import", () -> {
+            try {
+                SqliteImporter.Result[] results = SqliteImporter.importAll(ChestShop.getPlugin().getDataFolder(),
+                        message -> ChestShop.getBukkitLogger().info("Import: " + message));
+                sendResult(sender, "Accounts", results[0]);
+                sendResult(sender, "Items", results[1]);
+                if (!results[0].getConflicts().isEmpty()) {
+                    ChestShop.getBukkitLogger().log(Level.WARNING, "Accounts with these short names already exist for other players in the database and weren't imported: "
+                            + String.join(", ", results[0].getConflicts()) + ". Signs with these names will belong to the other players!");
+                }
+                if (!results[1].getConflicts().isEmpty()) {
+                    ChestShop.getBukkitLogger().log(Level.WARNING, "Items with these IDs already exist with a different item in the database and weren't imported: "
+                            + String.join(", ", results[1].getConflicts()) + ". Signs with their item codes will show the other item!");
+                }
+            } catch (SQLException e) {
+                ChestShop.getBukkitLogger().log(Level.SEVERE, "Error while importing the SQLite databases", e);
+                sender.sendMessage(ChatColor.RED + "The import failed, see the console for details. Already imported rows are kept, the import can be run again.");
+            } finally {
+                synchronized (Import.class) {
+                    running = false;
+                }
+            }
+        });
+        return true;
+    }
+
+    private static void sendResult(CommandSender sender, String table, SqliteImporter.Result result) {
+        sender.sendMessage(ChatColor.DARK_GREEN + table + ": " + ChatColor.GREEN + result.getImported() + ChatColor.DARK_GREEN + " imported, "
+                + ChatColor.GREEN + result.getSkipped() + ChatColor.DARK_GREEN + " already existed, "
+                + (result.getConflicts().isEmpty() ? ChatColor.GREEN : ChatColor.RED) + result.getConflicts().size() + ChatColor.DARK_GREEN + " conflicts");
+    }
+}
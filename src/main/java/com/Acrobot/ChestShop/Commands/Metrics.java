@@ -1,17 +1,25 @@
 package com.Acrobot.ChestShop.Commands;
 
+import com.Acrobot.ChestShop.ChestShop;
 import com.Acrobot.ChestShop.Configuration.Messages;
+import com.Acrobot.ChestShop.Events.Economy.EconomyContext;
 import com.Acrobot.ChestShop.Listeners.Modules.MetricsModule;
 import com.Acrobot.ChestShop.UUIDs.NameManager;
+import com.Acrobot.ChestShop.Utils.AsyncExecutor;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
 /**
  * @author Acrobot
  */
 public class Metrics implements CommandExecutor {
     public boolean onCommand(CommandSender sender, Command cmd, String label, String[] args) {
+        AsyncExecutor asyncExecutor = ChestShop.getAsyncExecutor();
         Messages.METRICS.send(sender,
                 "accounts", String.valueOf(NameManager.getAccountCount()),
                 "totalTransactions", String.valueOf(MetricsModule.getTotalTransactions()),
@@ -19,8 +27,40 @@ public class Metrics implements CommandExecutor {
                 "sellTransactions", String.valueOf(MetricsModule.getSellTransactions()),
                 "totalItems", String.valueOf(MetricsModule.getTotalItemsCount()),
                 "boughtItems", String.valueOf(MetricsModule.getBoughtItemsCount()),
-                "soldItems", String.valueOf(MetricsModule.getSoldItemsCount())
+                "soldItems", String.valueOf(MetricsModule.getSoldItemsCount()),
+                "itemCacheSize", String.valueOf(ChestShop.getItemDatabase().getCacheSize()),
+                "itemCacheHits", String.valueOf(ChestShop.getItemDatabase().getCacheHits()),
+                "itemCacheMisses", String.valueOf(ChestShop.getItemDatabase().getCacheMisses()),
+                "accountCacheSize", String.valueOf(NameManager.getCacheSize()),
+                "accountCacheHits", String.valueOf(NameManager.getCacheHits()),
+                "accountCacheUnknownHits", String.valueOf(NameManager.getCacheNegativeHits()),
+                "accountCacheMisses", String.valueOf(NameManager.getCacheMisses()),
+                "preloadedAccounts", String.valueOf(NameManager.getPreloadedAccountCount()),
+                "preloadedAccountsMemory", String.valueOf(NameManager.getPreloadedAccountMemory() / 1024),
+                "invalidationsSent", String.valueOf(ChestShop.getInvalidationBus().getPublished()),
+                "invalidationsReceived", String.valueOf(ChestShop.getInvalidationBus().getReceived()),
+                "economyProviderCalls", String.valueOf(EconomyContext.getTotalProviderCalls()),
+                "economySavedCalls", String.valueOf(EconomyContext.getTotalSavedCalls()),
+                "asyncMode", asyncExecutor.getMode().name().toLowerCase(Locale.ROOT),
+                "asyncActive", String.valueOf(asyncExecutor.getActive()),
+                "asyncQueued", String.valueOf(asyncExecutor.getQueued()),
+                "asyncCompleted", String.valueOf(asyncExecutor.getCompleted()),
+                "asyncRejected", String.valueOf(asyncExecutor.getRejected()),
+                "asyncTasks", getTaskStats(asyncExecutor)
         );
         return true;
     }
+
+    private static String getTaskStats(AsyncExecutor asyncExecutor) {
+        StringJoiner joiner = new StringJoiner("\n");
+        for (Map.Entry<String, AsyncExecutor.TaskStats> entry : asyncExecutor.getStats().entrySet()) {
+            AsyncExecutor.TaskStats stats = entry.getValue();
+            joiner.add(String.format(Locale.ROOT, "  %s: %d (wait: %.1f/%.1f run: %.1f/%.1f rejected: %d)",
+                    entry.getKey(), stats.getCount(),
+                    stats.getAverageQueueMillis(), stats.getMaxQueueMillis(),
+                    stats.getAverageRunMillis(), stats.getMaxRunMillis(),
+                    stats.getRejected()));
+        }
+        return joiner.toString();
+    }
 }
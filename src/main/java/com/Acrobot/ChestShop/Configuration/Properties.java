@@ -6,7 +6,10 @@ import com.Acrobot.Breeze.Configuration.Annotations.PrecededBySpace;
 import com.Acrobot.Breeze.Configuration.Configuration;
 import com.Acrobot.Breeze.Configuration.ValueParser;
 import com.Acrobot.ChestShop.ChestShop;
+import com.Acrobot.ChestShop.Database.DatabaseBackend;
+import com.Acrobot.ChestShop.Database.Invalidation.InvalidationBus;
 import com.Acrobot.ChestShop.Security;
+import com.Acrobot.ChestShop.Utils.AsyncExecutor;
 import org.bukkit.Material;
 
 import java.math.BigDecimal;
@@ -116,6 +119,120 @@ public class Properties {
     @ConfigurationComment("How large should the internal caches be?")
     public static int CACHE_SIZE = 1000;
 
+    @ConfigurationComment("For how many seconds should it be remembered that a player name or UUID has no account?"
+            + "\nThis avoids querying the database again and again for names that don't exist.")
+    public static int UNKNOWN_ACCOUNT_CACHE_SECONDS = 60;
+
+    @ConfigurationComment("For how many seconds should the owners and authorizers of Treasury accounts be remembered?"
+            + "\nChanged authorizers only take effect after this time, failed transfers reload their accounts immediately.")
+    public static int TREASURY_CACHE_SECONDS = 30;
+
+    @ConfigurationComment("Should all accounts be loaded into memory on startup? Account lookups then never need to query the database."
+            + "\nThis uses roughly 200 bytes of memory per account. Use /csmetrics to see how much is actually used.")
+    public static boolean PRELOAD_ACCOUNTS = false;
+
+    @ConfigurationComment("How many seconds should name and last seen updates of joining players be collected before writing them to the database together?")
+    public static int ACCOUNT_UPDATE_INTERVAL = 2;
+
+    @ConfigurationComment("How many decoded items from the item database (items with a #code on the sign) should be kept in memory?")
+    public static int ITEM_CACHE_SIZE = 1000;
+
+    @ConfigurationComment("How large (in kilobytes of stored item data) can the decoded items in memory be at most?")
+    public static int ITEM_CACHE_MAX_KILOBYTES = 16384;
+
+    @ConfigurationComment("Should the most recently used items be saved on shutdown and loaded into the item cache on startup?")
+    public static boolean ITEM_CACHE_WARMUP = true;
+
+    @ConfigurationComment("Should items be stored in the compact binary format of the server if it supports one? (Paper)"
+            + "\nOld items are converted when they are used. Older versions of the plugin can't read the converted items!"
+            + "\nIf the database is shared then every server using it has to support the format before this is enabled.")
+    public static boolean USE_BINARY_ITEM_FORMAT = false;
+
+    @PrecededBySpace
+    @ConfigurationComment("Where should accounts and items be stored? SQLITE uses local files, MYSQL, MARIADB and POSTGRESQL use a database"
+            + "\nserver which can be shared by multiple servers so that item codes and accounts are the same on all of them."
+            + "\nH2 uses an embedded database file. The JDBC driver of the database has to be available on the server."
+            + "\nUse /csimport once to copy the local SQLite data into a new shared database. The database settings require a restart to change.")
+    public static DatabaseBackend DATABASE_BACKEND = DatabaseBackend.SQLITE;
+
+    @ConfigurationComment("The JDBC URL of the database, leave this empty to build it from the settings below.")
+    public static String DATABASE_URL = "";
+
+    @ConfigurationComment("The host of the database server.")
+    public static String DATABASE_HOST = "localhost";
+
+    @ConfigurationComment("The port of the database server, 0 uses the default port of the database.")
+    public static int DATABASE_PORT = 0;
+
+    @ConfigurationComment("The name of the database. (The file name for H2)")
+    public static String DATABASE_NAME = "chestshop";
+
+    @ConfigurationComment("Additional connection properties, e.g. useSSL=false&characterEncoding=utf8")
+    public static String DATABASE_PROPERTIES = "";
+
+    @ConfigurationComment("The user name to connect to the database with.")
+    public static String DATABASE_USERNAME = "";
+
+    @ConfigurationComment("The password to connect to the database with.")
+    public static String DATABASE_PASSWORD = "";
+
+    @ConfigurationComment("The prefix of the table names in the database. (Not used for SQLite)")
+    public static String DATABASE_TABLE_PREFIX = "chestshop_";
+
+    @ConfigurationComment("How many connections to the database server should be kept open?")
+    public static int DATABASE_POOL_SIZE = 8;
+
+    @ConfigurationComment("How should servers sharing the database tell each other about changed accounts and items, so that they don't use outdated cached ones? (Not used for SQLite)"
+            + "\nDATABASE: through a table in the database which each server checks regularly"
+            + "\nBUNGEECORD: through BungeeCord plugin messages, these can only be sent while players are online"
+            + "\nNONE: not at all, only use this if just one server uses the database")
+    public static InvalidationBus.TransportType CACHE_INVALIDATION = InvalidationBus.TransportType.DATABASE;
+
+    @ConfigurationComment("How many milliseconds should be waited between checking the database for changes of other servers? (Only used with the DATABASE cache invalidation)")
+    public static int CACHE_INVALIDATION_POLL_INTERVAL = 1000;
+
+    @ConfigurationComment("Which journal mode should the SQLite databases use? WAL allows reading while something is written.")
+    public static String DATABASE_JOURNAL_MODE = "WAL";
+
+    @ConfigurationComment("How strictly should SQLite wait for data to be written to the disk? NORMAL is safe with WAL and much faster than FULL.")
+    public static String DATABASE_SYNCHRONOUS = "NORMAL";
+
+    @ConfigurationComment("How many milliseconds should be waited for a locked database before failing?")
+    public static int DATABASE_BUSY_TIMEOUT = 5000;
+
+    @ConfigurationComment("How many kilobytes of database pages should each connection cache?")
+    public static int DATABASE_CACHE_SIZE = 8192;
+
+    @ConfigurationComment("How many megabytes of the database files should be memory-mapped? 0 disables memory-mapping.")
+    public static int DATABASE_MMAP_SIZE = 64;
+
+    @ConfigurationComment("How many connections per database should be kept open for reading?")
+    public static int DATABASE_READ_CONNECTIONS = 4;
+
+    @ConfigurationComment("How many prepared statements should each connection keep open for reuse? 0 disables the reuse.")
+    public static int DATABASE_STATEMENT_CACHE_SIZE = 32;
+
+    @ConfigurationComment("How many loaded database rows should be cached per table? 0 disables the cache.")
+    public static int DATABASE_OBJECT_CACHE_SIZE = 200;
+
+    @PrecededBySpace
+    @ConfigurationComment("How should asynchronous tasks (database access, logging, update checks) be run? Changes require a restart."
+            + "\nPLATFORM uses a fixed amount of threads, VIRTUAL runs every task on its own virtual thread.")
+    public static AsyncExecutor.Mode ASYNC_EXECUTOR_MODE = AsyncExecutor.Mode.PLATFORM;
+
+    @ConfigurationComment("How many threads should run asynchronous tasks in the PLATFORM mode?")
+    public static int ASYNC_THREADS = 4;
+
+    @ConfigurationComment("How many asynchronous tasks can wait to be run at most? (In the VIRTUAL mode: how many can be unfinished at most)")
+    public static int ASYNC_QUEUE_SIZE = 1000;
+
+    @ConfigurationComment("What should happen with tasks when too many are waiting?"
+            + "\nCALLER_RUNS runs them on the thread that created them (e.g. the main thread), DISCARD drops them.")
+    public static AsyncExecutor.RejectionPolicy ASYNC_REJECTION_POLICY = AsyncExecutor.RejectionPolicy.CALLER_RUNS;
+
+    @ConfigurationComment("How many seconds should be waited on shutdown for the next asynchronous task to finish before the remaining ones are cancelled?")
+    public static int ASYNC_SHUTDOWN_TIMEOUT = 15;
+
     @PrecededBySpace
     @ConfigurationComment("The default language when the client's language can't be found.")
     public static String DEFAULT_LANGUAGE = "en";
@@ -280,6 +397,11 @@ public class Properties {
     @ConfigurationComment("Do you want to turn off the default sign protection? Warning! Other players will be able to destroy other people's shops!")
     public static boolean TURN_OFF_SIGN_PROTECTION = false;
 
+    @ConfigurationComment("Do you want to skip the protection checks around blocks which have no shop signs in the shop index?"
+            + "\nOnly enable this if shop signs are created by players or WorldEdit. Signs which other plugins, commands or structure blocks"
+            + "\nwrite without any events can't be seen by the index and would not be protected until their chunk is loaded again!")
+    public static boolean TRUST_SHOP_INDEX = false;
+
     @ConfigurationComment("Do you want to disable the hopper protection, which prevents Hopper-Minecarts from taking items out of shops?")
     public static boolean TURN_OFF_HOPPER_PROTECTION = false;
 
@@ -0,0 +1,61 @@
+package com.Acrobot.ChestShop.Database;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+/**
+ * Mapping for an invalidation which servers sharing a database exchange through it
+ */
+@DatabaseTable(tableName = "cache_invalidations")
+@DatabaseFileName("users.db")
+public class CacheInvalidation {
+
+    @DatabaseField(generatedId = true)
+    private long id;
+
+    @DatabaseField(canBeNull = false)
+    private String origin;
+
+    @DatabaseField(canBeNull = false)
+    private String topic;
+
+    /**
+     * The invalidated keys, separated by line breaks
+     */
+    @DatabaseField(columnName = "invalidatedKeys", canBeNull = false)
+    private String keys;
+
+    @DatabaseField(index = true, canBeNull = false)
+    private long created;
+
+    public CacheInvalidation() {
+        //empty constructor, needed for ORMLite
+    }
+
+    public CacheInvalidation(String origin, String topic, String[] keys, long created) {
+        this.origin = origin;
+        this.topic = topic;
+        this.keys = String.join("\n", keys);
+        this.created = created;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public String[] getKeys() {
+        return keys.isEmpty() ? new String[0] : keys.split("\n");
+    }
+
+    public long getCreated() {
+        return created;
+    }
+}
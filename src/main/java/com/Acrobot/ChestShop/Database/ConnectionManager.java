@@ -1,6 +1,18 @@
 package com.Acrobot.ChestShop.Database;
 
+import com.Acrobot.ChestShop.Configuration.Properties;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcPooledConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+
 import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Andrzej Pomirski (Acrobot)
@@ -8,7 +20,98 @@ import java.io.File;
 public class ConnectionManager {
     private static final String URI_STRING = "jdbc:sqlite:%s";
 
+    private static final Map<String, ConnectionSource> connectionSources = new HashMap<>();
+
     public static String getURI(File databaseFile) {
         return String.format(URI_STRING, databaseFile.getAbsolutePath());
     }
+
+    /**
+     * Get the connection source of a database file, all DAOs of the same file share one connection source.
+     * If a shared store is configured all database files use the connection source of that store instead.
+     * The database settings from the config are applied when the connection source is first created.
+     *
+     * @param databaseFile The database file
+     * @return The connection source
+     * @throws SQLException if the shared store can't be connected to
+     */
+    public static synchronized ConnectionSource getConnectionSource(File databaseFile) throws SQLException {
+        DatabaseBackend backend = Properties.DATABASE_BACKEND;
+        if (!backend.isSharedStore()) {
+            return connectionSources.computeIfAbsent(getURI(databaseFile), ConnectionManager::openSqlite);
+        }
+
+        String url = !Properties.DATABASE_URL.isEmpty() ? Properties.DATABASE_URL : backend.getUrl(databaseFile.getParentFile(),
+                Properties.DATABASE_HOST, Properties.DATABASE_PORT, Properties.DATABASE_NAME, Properties.DATABASE_PROPERTIES);
+        ConnectionSource connectionSource = connectionSources.get(url);
+        if (connectionSource == null) {
+            connectionSource = openPooled(backend, url, Properties.DATABASE_USERNAME, Properties.DATABASE_PASSWORD, Properties.DATABASE_POOL_SIZE);
+            connectionSources.put(url, connectionSource);
+        }
+        return connectionSource;
+    }
+
+    /**
+     * Open a new connection source for a SQLite database which isn't shared with the DAOs of the plugin
+     *
+     * @param uri The JDBC URI of the database
+     * @return The connection source
+     */
+    public static ConnectionSource openSqlite(String uri) {
+        return new SqliteConnectionSource(uri, getPragmas(),
+                Math.max(1, Properties.DATABASE_READ_CONNECTIONS), Properties.DATABASE_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Open a new pooled connection source for a shared store
+     *
+     * @param backend  The type of the database
+     * @param url      The JDBC URL of the database
+     * @param username The user name or an empty string if none is needed
+     * @param password The password or an empty string if none is needed
+     * @param poolSize How many connections should be kept open
+     * @return The connection source
+     * @throws SQLException if the database or its driver isn't available
+     */
+    public static ConnectionSource openPooled(DatabaseBackend backend, String url, String username, String password, int poolSize) throws SQLException {
+        JdbcPooledConnectionSource connectionSource = new JdbcPooledConnectionSource(url,
+                username.isEmpty() ? null : username, password.isEmpty() ? null : password, backend.createDatabaseType());
+        connectionSource.setMaxConnectionsFree(Math.max(1, poolSize));
+        // Connections to database servers can time out while they are unused
+        connectionSource.setTestBeforeGet(true);
+        connectionSource.setMaxConnectionAgeMillis(TimeUnit.MINUTES.toMillis(30));
+        return connectionSource;
+    }
+
+    /**
+     * @return The prefix of the table names in a shared store, SQLite tables have no prefix
+     */
+    public static String getTablePrefix() {
+        return Properties.DATABASE_BACKEND.isSharedStore() ? Properties.DATABASE_TABLE_PREFIX : "";
+    }
+
+    /**
+     * Close all connection sources, the next DAOs will use new ones
+     */
+    public static synchronized void closeAll() {
+        for (ConnectionSource connectionSource : connectionSources.values()) {
+            connectionSource.closeQuietly();
+        }
+        connectionSources.clear();
+        DaoManager.clearCache();
+    }
+
+    private static List<String> getPragmas() {
+        List<String> pragmas = new ArrayList<>();
+        pragmas.add("busy_timeout=" + Math.max(0, Properties.DATABASE_BUSY_TIMEOUT));
+        pragmas.add("journal_mode=" + toKeyword(Properties.DATABASE_JOURNAL_MODE));
+        pragmas.add("synchronous=" + toKeyword(Properties.DATABASE_SYNCHRONOUS));
+        pragmas.add("cache_size=-" + Math.max(0, Properties.DATABASE_CACHE_SIZE));
+        pragmas.add("mmap_size=" + Math.max(0, Properties.DATABASE_MMAP_SIZE) * 1024L * 1024L);
+        return pragmas;
+    }
+
+    private static String toKeyword(String value) {
+        return value.toUpperCase(Locale.ROOT).replaceAll("[^A-Z]", "");
+    }
 }
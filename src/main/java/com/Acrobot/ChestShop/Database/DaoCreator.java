@@ -1,12 +1,12 @@
 package com.Acrobot.ChestShop.Database;
 
 import com.Acrobot.ChestShop.ChestShop;
+import com.Acrobot.ChestShop.Configuration.Properties;
 import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.dao.LruObjectCache;
-import com.j256.ormlite.jdbc.JdbcConnectionSource;
-import com.j256.ormlite.jdbc.db.SqliteDatabaseType;
 import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.DatabaseTableConfig;
 import com.j256.ormlite.table.TableUtils;
 
 import java.security.InvalidParameterException;
@@ -33,12 +33,15 @@ public class DaoCreator {
         }
 
         String fileName = entity.getAnnotation(DatabaseFileName.class).value();
-        String uri = ConnectionManager.getURI(ChestShop.loadFile(fileName));
+        ConnectionSource connectionSource = ConnectionManager.getConnectionSource(ChestShop.loadFile(fileName));
 
-        ConnectionSource connectionSource = new JdbcConnectionSource(uri, new SqliteDatabaseType());
-
-        Dao<ENTITY, ID> dao = DaoManager.createDao(connectionSource, entity);
-        dao.setObjectCache(new LruObjectCache(200));
+        Dao<ENTITY, ID> dao = getDao(connectionSource, entity, ConnectionManager.getTablePrefix());
+        // Rows in a shared store can be changed by other servers, caching them would return outdated rows
+        if (Properties.DATABASE_OBJECT_CACHE_SIZE > 0 && !Properties.DATABASE_BACKEND.isSharedStore()) {
+            dao.setObjectCache(new LruObjectCache(Properties.DATABASE_OBJECT_CACHE_SIZE));
+        } else {
+            dao.setObjectCache(false);
+        }
 
         return dao;
     }
@@ -52,8 +55,42 @@ public class DaoCreator {
     public static <ENTITY, ID> Dao<ENTITY, ID> getDaoAndCreateTable(Class<ENTITY> entity) throws SQLException, InvalidParameterException {
         Dao<ENTITY, ID> dao = getDao(entity);
 
-        TableUtils.createTableIfNotExists(dao.getConnectionSource(), entity);
+        createTableIfNotExists(dao.getConnectionSource(), entity, ConnectionManager.getTablePrefix());
 
         return dao;
     }
+
+    /**
+     * Returns a DAO for the given entity in the given connection source
+     * @param connectionSource The connection source
+     * @param entity Entity's class
+     * @param tablePrefix The prefix of the table name
+     * @return Dao
+     * @throws SQLException
+     */
+    public static <ENTITY, ID> Dao<ENTITY, ID> getDao(ConnectionSource connectionSource, Class<ENTITY> entity, String tablePrefix) throws SQLException {
+        if (tablePrefix.isEmpty()) {
+            return DaoManager.createDao(connectionSource, entity);
+        }
+        return DaoManager.createDao(connectionSource, getTableConfig(connectionSource, entity, tablePrefix));
+    }
+
+    /**
+     * Creates the table of an entity in the given connection source, if it doesn't exist
+     * @see #getDao(ConnectionSource, Class, String)
+     * @throws SQLException
+     */
+    public static <ENTITY> void createTableIfNotExists(ConnectionSource connectionSource, Class<ENTITY> entity, String tablePrefix) throws SQLException {
+        if (tablePrefix.isEmpty()) {
+            TableUtils.createTableIfNotExists(connectionSource, entity);
+        } else {
+            TableUtils.createTableIfNotExists(connectionSource, getTableConfig(connectionSource, entity, tablePrefix));
+        }
+    }
+
+    private static <ENTITY> DatabaseTableConfig<ENTITY> getTableConfig(ConnectionSource connectionSource, Class<ENTITY> entity, String tablePrefix) throws SQLException {
+        DatabaseTableConfig<ENTITY> tableConfig = DatabaseTableConfig.fromClass(connectionSource.getDatabaseType(), entity);
+        tableConfig.setTableName(tablePrefix + tableConfig.getTableName());
+        return tableConfig;
+    }
 }
@@ -0,0 +1,107 @@
+package com.Acrobot.ChestShop.Database;
+
+import com.j256.ormlite.db.DatabaseType;
+import com.j256.ormlite.jdbc.db.H2DatabaseType;
+import com.j256.ormlite.jdbc.db.MariaDbDatabaseType;
+import com.j256.ormlite.jdbc.db.MysqlDatabaseType;
+import com.j256.ormlite.jdbc.db.PostgresDatabaseType;
+import com.j256.ormlite.jdbc.db.SqliteDatabaseType;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * The databases the accounts and items can be stored in
+ */
+public enum DatabaseBackend {
+    /**
+     * One local database file per table, the default
+     */
+    SQLITE(0),
+    MYSQL(3306),
+    MARIADB(3306),
+    POSTGRESQL(5432),
+    /**
+     * An embedded database file in the plugin folder, mainly meant for testing
+     */
+    H2(0);
+
+    private final int defaultPort;
+
+    DatabaseBackend(int defaultPort) {
+        this.defaultPort = defaultPort;
+    }
+
+    /**
+     * @return Whether or not all tables are stored in one shared store instead of local SQLite files
+     */
+    public boolean isSharedStore() {
+        return this != SQLITE;
+    }
+
+    /**
+     * Get the JDBC URL of a shared store
+     *
+     * @param dataFolder The plugin's data folder, used for embedded databases
+     * @param host       The host of the database server
+     * @param port       The port of the database server, 0 for the default port
+     * @param database   The name of the database
+     * @param properties Additional connection properties, e.g. <tt>useSSL=false</tt>
+     * @return The JDBC URL
+     */
+    public String getUrl(File dataFolder, String host, int port, String database, String properties) {
+        switch (this) {
+            case SQLITE:
+                throw new UnsupportedOperationException("SQLite uses one database file per table");
+            case H2:
+                return "jdbc:h2:" + new File(dataFolder, database).getAbsolutePath() + (properties.isEmpty() ? "" : ";" + properties);
+            default:
+                return "jdbc:" + name().toLowerCase(Locale.ROOT) + "://" + host + ":" + (port > 0 ? port : defaultPort) + "/" + database
+                        + (properties.isEmpty() ? "" : "?" + properties);
+        }
+    }
+
+    /**
+     * @return A new ORMLite database type for this backend
+     */
+    public DatabaseType createDatabaseType() {
+        switch (this) {
+            case MYSQL:
+                return new MysqlDatabaseType();
+            case MARIADB:
+                return new MariaDbDatabaseType();
+            case POSTGRESQL:
+                return new PostgresDatabaseType();
+            case H2:
+                return new H2DatabaseType();
+            default:
+                return new SqliteDatabaseType();
+        }
+    }
+
+    /**
+     * Get the statement which makes the generated IDs of a table continue after the given ID.
+     * This is necessary after rows were inserted with explicit IDs on databases which don't adjust it themselves.
+     *
+     * @param databaseType The ORMLite database type of the store
+     * @param tableName    The name of the table
+     * @param maxId        The highest ID in the table
+     * @return The statement or <tt>null</tt> if the database adjusts the generated IDs itself
+     */
+    public String getRestartIdStatement(DatabaseType databaseType, String tableName, long maxId) {
+        StringBuilder statement = new StringBuilder();
+        switch (this) {
+            case POSTGRESQL:
+                // The sequence ORMLite creates for generated IDs
+                return statement.append("SELECT setval('").append(tableName).append("_id_seq', ").append(Math.max(1, maxId)).append(")").toString();
+            case H2:
+                statement.append("ALTER TABLE ");
+                databaseType.appendEscapedEntityName(statement, tableName);
+                statement.append(" ALTER COLUMN ");
+                databaseType.appendEscapedEntityName(statement, "id");
+                return statement.append(" RESTART WITH ").append(maxId + 1).toString();
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.Acrobot.ChestShop.Database.Invalidation;
+
+import com.Acrobot.ChestShop.ChestShop;
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.messaging.PluginMessageListener;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.logging.Level;
+
+/**
+ * Exchanges invalidations through BungeeCord plugin messages which are forwarded to all other servers.
+ * <p>
+ * Plugin messages can only be sent and received through a player that is online on the server. Servers without
+ * players miss the invalidations, so they drop all of their cached entries when the first player joins again.
+ */
+public class BungeeTransport implements InvalidationTransport, PluginMessageListener, Listener {
+    private static final String CHANNEL = "BungeeCord";
+    private static final String SUBCHANNEL = "ChestShopInvalidation";
+
+    private final Plugin plugin;
+    private Receiver receiver;
+
+    public BungeeTransport(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void start(Receiver receiver) {
+        this.receiver = receiver;
+        plugin.getServer().getMessenger().registerOutgoingPluginChannel(plugin, CHANNEL);
+        plugin.getServer().getMessenger().registerIncomingPluginChannel(plugin, CHANNEL, this);
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        // Invalidations are published from async threads but players and plugin messages need the server's thread
+        if (!plugin.isEnabled()) {
+            return;
+        }
+        Bukkit.getGlobalRegionScheduler().run(plugin, task -> send(invalidation));
+    }
+
+    private void send(Invalidation invalidation) {
+        Iterator<? extends Player> players = Bukkit.getOnlinePlayers().iterator();
+        if (!players.hasNext()) {
+            return; // all other servers drop their caches when the first player joins them
+        }
+
+        byte[] data = invalidation.encode();
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeUTF("Forward");
+        out.writeUTF("ALL");
+        out.writeUTF(SUBCHANNEL);
+        out.writeShort(data.length);
+        out.write(data);
+
+        players.next().sendPluginMessage(plugin, CHANNEL, out.toByteArray());
+    }
+
+    @Override
+    public void onPluginMessageReceived(String channel, Player player, byte[] message) {
+        if (!CHANNEL.equals(channel)) {
+            return;
+        }
+
+        try {
+            ByteArrayDataInput in = ByteStreams.newDataInput(message);
+            if (!SUBCHANNEL.equals(in.readUTF())) {
+                return;
+            }
+            byte[] data = new byte[in.readUnsignedShort()];
+            in.readFully(data);
+            receiver.receive(Invalidation.decode(data));
+        } catch (IOException | IllegalStateException e) {
+            ChestShop.getBukkitLogger().log(Level.WARNING, "Received an invalid cache invalidation from " + player.getName() + "'s connection", e);
+        }
+    }
+
+    @EventHandler
+    public void onJoin(PlayerJoinEvent event) {
+        if (Bukkit.getOnlinePlayers().size() == 1) {
+            // No messages could be received while the server was empty
+            for (Invalidation.Topic topic : Invalidation.Topic.values()) {
+                receiver.receive(new Invalidation("", topic));
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        plugin.getServer().getMessenger().unregisterIncomingPluginChannel(plugin, CHANNEL, this);
+        HandlerList.unregisterAll(this);
+    }
+}
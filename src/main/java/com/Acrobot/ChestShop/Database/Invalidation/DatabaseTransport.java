@@ -0,0 +1,187 @@
+package com.Acrobot.ChestShop.Database.Invalidation;
+
+import com.Acrobot.ChestShop.ChestShop;
+import com.Acrobot.ChestShop.Database.CacheInvalidation;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.DeleteBuilder;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Exchanges invalidations through a table in the shared database.
+ * <p>
+ * Published invalidations are collected and written together, then the rows which other servers added since the
+ * last check are read. This happens every few milliseconds on a single thread. Rows are deleted after
+ * a few minutes, a server which couldn't read them for longer than that drops all of its cached entries.
+ * <p>
+ * IDs are assigned when a row is inserted but other servers only see it once its transaction commits, so a
+ * lower ID can become visible after a higher one was already read. The IDs skipped over are therefore
+ * checked again for a few seconds before they are given up on.
+ */
+public class DatabaseTransport implements InvalidationTransport {
+    private static final int BATCH_SIZE = 500;
+    private static final long RETENTION = TimeUnit.MINUTES.toMillis(5);
+    private static final long CLEANUP_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    private static final long GAP_LOOKBACK = TimeUnit.SECONDS.toMillis(10);
+    private static final int MAX_GAPS = BATCH_SIZE;
+
+    private final Dao<CacheInvalidation, Long> dao;
+    private final long pollInterval;
+    private final Queue<Invalidation> outgoing = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ChestShop cache invalidation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Receiver receiver;
+    private long lastId;
+    /**
+     * The skipped IDs which might still be committed, mapped to when they were skipped
+     */
+    private final NavigableMap<Long, Long> gaps = new TreeMap<>();
+    private long lastRead;
+    private long lastCleanup;
+    private boolean failing = false;
+
+    /**
+     * @param dao          The DAO of the invalidations table, the table needs to exist
+     * @param pollInterval How many milliseconds to wait between checking for new invalidations
+     */
+    public DatabaseTransport(Dao<CacheInvalidation, Long> dao, long pollInterval) {
+        this.dao = dao;
+        this.pollInterval = Math.max(10, pollInterval);
+    }
+
+    @Override
+    public void start(Receiver receiver) throws SQLException {
+        this.receiver = receiver;
+        StringBuilder query = new StringBuilder("SELECT MAX(");
+        dao.getConnectionSource().getDatabaseType().appendEscapedEntityName(query, "id");
+        query.append(") FROM ");
+        dao.getConnectionSource().getDatabaseType().appendEscapedEntityName(query, dao.getTableName());
+        // Older invalidations are about entries which this server didn't cache yet
+        lastId = dao.queryRawValue(query.toString());
+        lastRead = System.currentTimeMillis();
+        poller.scheduleWithFixedDelay(this::poll, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        outgoing.add(invalidation);
+    }
+
+    @Override
+    public void stop() {
+        poller.shutdown();
+        try {
+            poller.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            write();
+        } catch (SQLException e) {
+            ChestShop.getBukkitLogger().log(Level.WARNING, "Unable to write the last cache invalidations", e);
+        }
+    }
+
+    private void poll() {
+        try {
+            write();
+            read();
+            if (failing) {
+                failing = false;
+                ChestShop.getBukkitLogger().info("Cache invalidations can be exchanged through the database again");
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Don't log the same error on every check while the database is unavailable
+            if (!failing) {
+                failing = true;
+                ChestShop.getBukkitLogger().log(Level.WARNING, "Unable to exchange cache invalidations through the database", e);
+            }
+        }
+    }
+
+    private void write() throws SQLException {
+        List<CacheInvalidation> rows = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Invalidation invalidation = outgoing.poll(); invalidation != null; invalidation = outgoing.poll()) {
+            rows.add(new CacheInvalidation(invalidation.getOrigin(), invalidation.getTopic().name(), invalidation.getKeys(), now));
+        }
+        if (!rows.isEmpty()) {
+            dao.create(rows);
+        }
+    }
+
+    private void read() throws SQLException {
+        long now = System.currentTimeMillis();
+        if (now - lastRead > RETENTION) {
+            // The rows which weren't read might have been deleted already
+            for (Invalidation.Topic topic : Invalidation.Topic.values()) {
+                receiver.receive(new Invalidation("", topic));
+            }
+        }
+
+        gaps.values().removeIf(skipped -> now - skipped > GAP_LOOKBACK);
+        if (!gaps.isEmpty()) {
+            for (CacheInvalidation row : dao.queryBuilder().where().in("id", new ArrayList<>(gaps.keySet())).query()) {
+                gaps.remove(row.getId());
+                receive(row);
+            }
+        }
+
+        List<CacheInvalidation> rows;
+        do {
+            rows = dao.queryBuilder().orderBy("id", true).limit((long) BATCH_SIZE).where().gt("id", lastId).query();
+            for (CacheInvalidation row : rows) {
+                // Larger jumps are not from concurrent inserts but from the database skipping IDs
+                if (row.getId() - lastId - 1 <= MAX_GAPS) {
+                    for (long skipped = lastId + 1; skipped < row.getId(); skipped++) {
+                        gaps.put(skipped, now);
+                    }
+                }
+                lastId = row.getId();
+                receive(row);
+            }
+        } while (rows.size() == BATCH_SIZE);
+        while (gaps.size() > MAX_GAPS) {
+            gaps.pollFirstEntry();
+        }
+        lastRead = now;
+
+        if (now - lastCleanup > CLEANUP_INTERVAL) {
+            lastCleanup = now;
+            DeleteBuilder<CacheInvalidation, Long> delete = dao.deleteBuilder();
+            delete.where().lt("created", now - RETENTION);
+            delete.delete();
+        }
+    }
+
+    private void receive(CacheInvalidation row) {
+        Invalidation.Topic topic;
+        try {
+            topic = Invalidation.Topic.valueOf(row.getTopic());
+        } catch (IllegalArgumentException e) {
+            return; // sent by a newer version
+        }
+        receiver.receive(new Invalidation(row.getOrigin(), topic, row.getKeys()));
+    }
+
+    /**
+     * @return The amount of invalidations waiting to be written
+     */
+    public int getQueued() {
+        return outgoing.size();
+    }
+}
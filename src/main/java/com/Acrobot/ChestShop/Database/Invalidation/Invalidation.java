@@ -0,0 +1,105 @@
+package com.Acrobot.ChestShop.Database.Invalidation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A message telling other servers that cached entries of a topic are outdated
+ */
+public class Invalidation {
+    private final String origin;
+    private final Topic topic;
+    private final String[] keys;
+
+    /**
+     * @param origin The ID of the server which sent the invalidation
+     * @param topic  The cache the keys belong to
+     * @param keys   The changed keys, none if the whole cache is outdated
+     */
+    public Invalidation(String origin, Topic topic, String... keys) {
+        this.origin = origin;
+        this.topic = topic;
+        this.keys = keys;
+    }
+
+    /**
+     * @return The ID of the server which sent the invalidation
+     */
+    public String getOrigin() {
+        return origin;
+    }
+
+    public Topic getTopic() {
+        return topic;
+    }
+
+    /**
+     * @return The changed keys, their meaning depends on the {@link Topic}
+     */
+    public String[] getKeys() {
+        return keys;
+    }
+
+    /**
+     * @return Whether or not all entries of the topic are outdated, e.g. because some invalidations might have been missed
+     */
+    public boolean isAll() {
+        return keys.length == 0;
+    }
+
+    /**
+     * @return The invalidation in the format used by the transports
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(origin);
+            out.writeUTF(topic.name());
+            out.writeShort(keys.length);
+            for (String key : keys) {
+                out.writeUTF(key);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // not thrown when writing to memory
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Read an invalidation which was written with {@link #encode()}
+     *
+     * @param data The encoded invalidation
+     * @return The invalidation
+     * @throws IOException if the data isn't a valid invalidation
+     */
+    public static Invalidation decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            String origin = in.readUTF();
+            Topic topic;
+            try {
+                topic = Topic.valueOf(in.readUTF());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown topic", e);
+            }
+            String[] keys = new String[in.readUnsignedShort()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = in.readUTF();
+            }
+            return new Invalidation(origin, topic, keys);
+        }
+    }
+
+    public enum Topic {
+        /**
+         * An account was written, the keys are its short name, name and UUID
+         */
+        ACCOUNT,
+        /**
+         * The code of an item was changed, the key is its numeric ID
+         */
+        ITEM
+    }
+}
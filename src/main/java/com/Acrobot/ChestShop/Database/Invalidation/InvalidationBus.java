@@ -0,0 +1,159 @@
+package com.Acrobot.ChestShop.Database.Invalidation;
+
+import com.Acrobot.ChestShop.ChestShop;
+import com.Acrobot.ChestShop.Configuration.Properties;
+import com.Acrobot.ChestShop.Database.CacheInvalidation;
+import com.Acrobot.ChestShop.Database.DaoCreator;
+import com.j256.ormlite.dao.Dao;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Keeps the caches of servers which share a database up to date.
+ * <p>
+ * When a server writes an account or an item it publishes the changed keys, the other servers remove these keys
+ * from their caches so that they load the new rows from the database on the next lookup.
+ */
+public class InvalidationBus {
+    private final String nodeId = UUID.randomUUID().toString();
+    private final InvalidationTransport transport;
+    private final Map<Invalidation.Topic, Consumer<Invalidation>> subscribers = new ConcurrentHashMap<>();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private volatile boolean running = false;
+
+    /**
+     * @param transport The transport to exchange invalidations with, <tt>null</tt> if the caches aren't shared
+     */
+    public InvalidationBus(InvalidationTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * Create the bus with the transport configured in {@link Properties#CACHE_INVALIDATION}.
+     * Invalidations are only exchanged if a shared database is used.
+     *
+     * @return The bus, it still needs to be started
+     */
+    public static InvalidationBus create() {
+        if (!Properties.DATABASE_BACKEND.isSharedStore()) {
+            return new InvalidationBus(null);
+        }
+
+        switch (Properties.CACHE_INVALIDATION) {
+            case BUNGEECORD:
+                return new InvalidationBus(new BungeeTransport(ChestShop.getPlugin()));
+            case DATABASE:
+                try {
+                    Dao<CacheInvalidation, Long> dao = DaoCreator.getDaoAndCreateTable(CacheInvalidation.class);
+                    return new InvalidationBus(new DatabaseTransport(dao, Properties.CACHE_INVALIDATION_POLL_INTERVAL));
+                } catch (Exception e) {
+                    ChestShop.getBukkitLogger().log(Level.SEVERE, "Unable to create the cache invalidations table, other servers' changes might not be seen until the cached entries expire", e);
+                    return new InvalidationBus(null);
+                }
+            default:
+                return new InvalidationBus(null);
+        }
+    }
+
+    /**
+     * Start exchanging invalidations
+     */
+    public void start() {
+        if (transport == null || running) {
+            return;
+        }
+        try {
+            transport.start(this::receive);
+            running = true;
+        } catch (Exception e) {
+            ChestShop.getBukkitLogger().log(Level.SEVERE, "Unable to start the cache invalidation through " + transport.getClass().getSimpleName()
+                    + ", other servers' changes might not be seen until the cached entries expire", e);
+        }
+    }
+
+    /**
+     * Stop exchanging invalidations, the ones which are still queued get sent
+     */
+    public void stop() {
+        if (running) {
+            running = false;
+            transport.stop();
+        }
+    }
+
+    /**
+     * Set the handler of the invalidations of a topic which other servers sent. Replaces the previous handler of the topic.
+     * Handlers can be called from any thread.
+     *
+     * @param topic   The topic
+     * @param handler The handler
+     */
+    public void subscribe(Invalidation.Topic topic, Consumer<Invalidation> handler) {
+        subscribers.put(topic, handler);
+    }
+
+    /**
+     * Tell the other servers that entries were changed
+     *
+     * @param topic The cache of the entries
+     * @param keys  The keys of the changed entries
+     */
+    public void publish(Invalidation.Topic topic, String... keys) {
+        if (running) {
+            transport.publish(new Invalidation(nodeId, topic, keys));
+            published.increment();
+        }
+    }
+
+    private void receive(Invalidation invalidation) {
+        if (nodeId.equals(invalidation.getOrigin())) {
+            return;
+        }
+        received.increment();
+        Consumer<Invalidation> handler = subscribers.get(invalidation.getTopic());
+        if (handler != null) {
+            try {
+                handler.accept(invalidation);
+            } catch (RuntimeException e) {
+                ChestShop.getBukkitLogger().log(Level.WARNING, "Error while invalidating " + invalidation.getTopic() + " cache entries", e);
+            }
+        }
+    }
+
+    /**
+     * @return Whether or not invalidations are exchanged with other servers
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return The amount of invalidations this server sent
+     */
+    public long getPublished() {
+        return published.sum();
+    }
+
+    /**
+     * @return The amount of invalidations this server received from other servers
+     */
+    public long getReceived() {
+        return received.sum();
+    }
+
+    /**
+     * The ways of exchanging invalidations which can be configured
+     */
+    public enum TransportType {
+        NONE,
+        BUNGEECORD,
+        DATABASE
+    }
+}
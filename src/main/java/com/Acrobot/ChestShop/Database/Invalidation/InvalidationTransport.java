@@ -0,0 +1,31 @@
+package com.Acrobot.ChestShop.Database.Invalidation;
+
+/**
+ * Delivers invalidations between the servers which share a database
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Start delivering the invalidations of other servers. Transports might also deliver the own invalidations back.
+     *
+     * @param receiver Receives the invalidations
+     * @throws Exception if the transport can't be used
+     */
+    void start(Receiver receiver) throws Exception;
+
+    /**
+     * Send an invalidation to the other servers. This must not block for long as it's called when writing to the database.
+     *
+     * @param invalidation The invalidation
+     */
+    void publish(Invalidation invalidation);
+
+    /**
+     * Send the invalidations which are still queued and stop receiving new ones
+     */
+    void stop();
+
+    interface Receiver {
+        void receive(Invalidation invalidation);
+    }
+}
@@ -0,0 +1,56 @@
+package com.Acrobot.ChestShop.Database.Invalidation;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Delivers invalidations to the transports of the same group inside this process, including the sender itself.
+ * Mainly meant for testing the invalidation of several servers' caches without a network.
+ */
+public class LoopbackTransport implements InvalidationTransport {
+    private final Set<LoopbackTransport> group;
+    private volatile Receiver receiver;
+
+    /**
+     * Create a transport in a new group
+     */
+    public LoopbackTransport() {
+        this(new CopyOnWriteArraySet<>());
+    }
+
+    private LoopbackTransport(Set<LoopbackTransport> group) {
+        this.group = group;
+    }
+
+    /**
+     * @return A new transport in the same group as this one, as if it was used by another server
+     */
+    public LoopbackTransport join() {
+        return new LoopbackTransport(group);
+    }
+
+    @Override
+    public void start(Receiver receiver) {
+        this.receiver = receiver;
+        group.add(this);
+    }
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        byte[] data = invalidation.encode();
+        for (LoopbackTransport transport : group) {
+            try {
+                // Decode a copy for every receiver, like a real transport would
+                transport.receiver.receive(Invalidation.decode(data));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        group.remove(this);
+    }
+}
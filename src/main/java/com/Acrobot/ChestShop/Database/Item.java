@@ -1,8 +1,13 @@
 package com.Acrobot.ChestShop.Database;
 
+import com.j256.ormlite.field.DataType;
 import com.j256.ormlite.field.DatabaseField;
 import com.j256.ormlite.table.DatabaseTable;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
 /**
  * Mapping for enchanted items
  * @author Andrzej Pomirski
@@ -11,18 +16,31 @@ import com.j256.ormlite.table.DatabaseTable;
 @DatabaseFileName("items.db")
 public class Item {
 
-    @DatabaseField(canBeNull = false, generatedId = true)
+    /**
+     * Explicit IDs are only inserted when importing items, the item codes on signs depend on them
+     */
+    @DatabaseField(canBeNull = false, generatedId = true, allowGeneratedIdInsert = true)
     private int id;
 
-    @DatabaseField(columnName = "code", canBeNull = false, index = true)
+    /**
+     * Stored as a long string as networked databases limit normal strings to 255 characters
+     */
+    @DatabaseField(columnName = "code", canBeNull = false, dataType = DataType.LONG_STRING)
     private String base64ItemCode;
 
+    /**
+     * Hash of the code to quickly look up items. Can be null if another item already has the same hash.
+     */
+    @DatabaseField(columnName = "hash", uniqueIndex = true)
+    private String hash;
+
     public Item() {
         //empty constructor
     }
 
     public Item(String base64ItemCode) {
         this.base64ItemCode = base64ItemCode;
+        this.hash = getHash(base64ItemCode);
     }
 
     public int getId() {
@@ -33,7 +51,38 @@ public class Item {
         return base64ItemCode;
     }
 
+    /**
+     * Set the code of this item. This also updates the hash.
+     * @param base64ItemCode The new code
+     */
     public void setBase64ItemCode(String base64ItemCode) {
         this.base64ItemCode = base64ItemCode;
+        this.hash = getHash(base64ItemCode);
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * Get the hash of an item code which is stored in the hash column
+     * @param base64ItemCode The code
+     * @return The first 128 bits of the SHA-256 hash of the code as a hex string
+     */
+    public static String getHash(String base64ItemCode) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(base64ItemCode.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hash = new StringBuilder(32);
+            for (int i = 0; i < 16; i++) {
+                hash.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
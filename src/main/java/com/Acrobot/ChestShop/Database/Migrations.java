@@ -1,12 +1,23 @@
 package com.Acrobot.ChestShop.Database;
 
 import com.Acrobot.ChestShop.ChestShop;
+import com.Acrobot.ChestShop.Configuration.Properties;
 import com.j256.ormlite.dao.CloseableIterator;
 import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.GenericRawResults;
+import com.j256.ormlite.db.DatabaseType;
+import com.j256.ormlite.jdbc.db.SqliteDatabaseType;
+import com.j256.ormlite.stmt.SelectArg;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
 
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Date;
+import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 import java.util.logging.Level;
 
@@ -16,7 +27,9 @@ import java.util.logging.Level;
  * @author Andrzej Pomirski
  */
 public class Migrations {
-    public static final int CURRENT_DATABASE_VERSION = 5;
+    public static final int CURRENT_DATABASE_VERSION = 6;
+
+    private static final int HASH_BATCH_SIZE = 1000;
 
     /**
      * Migrates a database from the given version
@@ -55,6 +68,12 @@ public class Migrations {
                     return -1;
                 }
             case 5:
+                if (migrateTo6()) {
+                    currentVersion++;
+                } else {
+                    return -1;
+                }
+            case 6:
             default:
                 break;
                 //do nothing
@@ -63,6 +82,43 @@ public class Migrations {
         return currentVersion;
     }
 
+    /**
+     * Prepares a shared store (e.g. MySQL or PostgreSQL). Its tables are always created in the current format,
+     * the version of the format is stored in the store itself as it is shared by all servers using it.
+     *
+     * @return Whether or not the store can be used
+     */
+    public static boolean migrateStore() {
+        try {
+            Dao<Account, String> accounts = DaoCreator.getDaoAndCreateTable(Account.class);
+            DaoCreator.getDaoAndCreateTable(Item.class);
+
+            DatabaseType databaseType = accounts.getConnectionSource().getDatabaseType();
+            String versionTable = escape(databaseType, ConnectionManager.getTablePrefix() + "schema_version");
+            String versionColumn = escape(databaseType, "version");
+            accounts.executeRawNoArgs("CREATE TABLE IF NOT EXISTS " + versionTable + " (" + versionColumn + " INTEGER NOT NULL)");
+
+            long version = accounts.queryRawValue("SELECT MAX(" + versionColumn + ") FROM " + versionTable);
+            if (version == 0) {
+                accounts.executeRawNoArgs("INSERT INTO " + versionTable + " VALUES (" + CURRENT_DATABASE_VERSION + ")");
+            } else if (version > CURRENT_DATABASE_VERSION) {
+                ChestShop.getBukkitLogger().log(Level.SEVERE, "The database was updated by a newer version of ChestShop (database version " + version + ")!");
+                return false;
+            }
+            // Future format changes need to be applied here in a way that works on every backend
+            return true;
+        } catch (SQLException e) {
+            ChestShop.getBukkitLogger().log(Level.SEVERE, "Error while preparing the " + Properties.DATABASE_BACKEND + " database", e);
+            return false;
+        }
+    }
+
+    private static String escape(DatabaseType databaseType, String name) {
+        StringBuilder builder = new StringBuilder();
+        databaseType.appendEscapedEntityName(builder, name);
+        return builder.toString();
+    }
+
     private static boolean migrateTo2() {
         try {
             Dao<Account, String> accounts = DaoCreator.getDao(Account.class);
@@ -163,4 +219,119 @@ public class Migrations {
             return false;
         }
     }
+
+    private static boolean migrateTo6() {
+        try {
+            Dao<Item, Integer> items = DaoCreator.getDao(Item.class);
+            DatabaseType databaseType = items.getConnectionSource().getDatabaseType();
+            String tableName = items.getTableInfo().getTableName();
+            String table = escape(databaseType, tableName);
+            String idColumn = escape(databaseType, "id");
+            String hashColumn = escape(databaseType, "hash");
+
+            // Tables which were recreated by the v4 migration already have the column
+            if (!hasColumn(items, table, hashColumn)) {
+                items.executeRawNoArgs("ALTER TABLE " + table + " ADD COLUMN " + hashColumn + " VARCHAR(255)");
+            }
+            if (!hasIndex(items, tableName, tableName + "_hash_idx")) {
+                items.executeRawNoArgs("CREATE UNIQUE INDEX " + escape(databaseType, tableName + "_hash_idx") + " ON " + table + " (" + hashColumn + ")");
+            }
+
+            long start = System.currentTimeMillis();
+            long lastInfo = start;
+            int lastId = -1;
+            int hashed = 0;
+            while (true) {
+                List<Item> batch = items.queryBuilder().orderBy("id", true).limit((long) HASH_BATCH_SIZE).where().gt("id", lastId).query();
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                items.callBatchTasks(() -> {
+                    for (Item item : batch) {
+                        if (item.getHash() != null) {
+                            continue;
+                        }
+                        String hash = Item.getHash(item.getBase64ItemCode());
+                        // Items with the same code as an already hashed item (e.g. after metadata updates) keep no hash
+                        if (items.queryBuilder().where().eq("hash", new SelectArg(hash)).countOf() == 0) {
+                            items.updateRaw("UPDATE " + table + " SET " + hashColumn + " = ? WHERE " + idColumn + " = ?", hash, String.valueOf(item.getId()));
+                        }
+                    }
+                    return null;
+                });
+
+                lastId = batch.get(batch.size() - 1).getId();
+                hashed += batch.size();
+                if (lastInfo + 10 * 1000 < System.currentTimeMillis()) {
+                    ChestShop.getBukkitLogger().log(Level.INFO, "Hashing items... " + hashed + " items done");
+                    lastInfo = System.currentTimeMillis();
+                }
+            }
+
+            // The hash is used for lookups now (items without a hash are found through the NULL entries of its index),
+            // the large index on the code isn't needed anymore
+            String codeIndex = tableName + "_code_idx";
+            if (hasIndex(items, tableName, codeIndex)) {
+                if (isMysql(databaseType)) {
+                    items.executeRawNoArgs("DROP INDEX " + escape(databaseType, codeIndex) + " ON " + table);
+                } else {
+                    items.executeRawNoArgs("DROP INDEX " + escape(databaseType, codeIndex));
+                }
+                if (databaseType instanceof SqliteDatabaseType) {
+                    try {
+                        items.executeRawNoArgs("VACUUM");
+                    } catch (SQLException e) {
+                        ChestShop.getBukkitLogger().log(Level.WARNING, "Unable to shrink items database after removing the code index", e);
+                    }
+                }
+            }
+
+            ChestShop.getBukkitLogger().log(Level.INFO, "Hashed " + hashed + " items in " + (System.currentTimeMillis() - start) / 1000.0 + "s!");
+            return true;
+        } catch (Exception e) {
+            ChestShop.getBukkitLogger().log(Level.SEVERE, "Error while migrating database to v6", e);
+            return false;
+        }
+    }
+
+    private static boolean isMysql(DatabaseType databaseType) {
+        return databaseType.getDatabaseName().equalsIgnoreCase("MySQL") || databaseType.getDatabaseName().equalsIgnoreCase("MariaDB");
+    }
+
+    /**
+     * Check whether a table has a column by selecting it, this works the same on every backend
+     */
+    private static boolean hasColumn(Dao<?, ?> dao, String table, String column) {
+        try {
+            dao.queryRaw("SELECT " + column + " FROM " + table + " WHERE 1 = 0").close();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check whether a table has an index using the JDBC metadata as the backends don't share a syntax for it
+     */
+    private static boolean hasIndex(Dao<?, ?> dao, String tableName, String indexName) throws SQLException {
+        ConnectionSource connectionSource = dao.getConnectionSource();
+        DatabaseConnection connection = connectionSource.getReadOnlyConnection(tableName);
+        try {
+            DatabaseMetaData metaData = ((Connection) connection.getUnderlyingConnection()).getMetaData();
+            // Some backends store unquoted names in upper case
+            for (String table : new String[]{tableName, tableName.toUpperCase(Locale.ROOT)}) {
+                try (ResultSet indexes = metaData.getIndexInfo(null, null, table, false, true)) {
+                    while (indexes.next()) {
+                        if (indexName.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        } finally {
+            connectionSource.releaseConnection(connection);
+        }
+    }
 }
@@ -0,0 +1,213 @@
+package com.Acrobot.ChestShop.Database;
+
+import com.j256.ormlite.db.DatabaseType;
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.jdbc.db.SqliteDatabaseType;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A connection source for one SQLite database file which is shared by all DAOs of that file.
+ * <p>
+ * All writes go through a single connection which is only used by one thread at a time, reads use a pool of
+ * separate connections. With a WAL journal reads are therefore never blocked by a write that is in progress.
+ * The given pragmas are applied to every connection when it gets opened.
+ */
+class SqliteConnectionSource implements ConnectionSource {
+    private final String uri;
+    private final List<String> pragmas;
+    private final int maxIdleReaders;
+    private final int statementCacheSize;
+    private final DatabaseType databaseType = new SqliteDatabaseType();
+
+    private final ReentrantLock writerLock = new ReentrantLock();
+    private DatabaseConnection writer;
+    private final Deque<DatabaseConnection> idleReaders = new ArrayDeque<>();
+    private final ThreadLocal<SpecialConnection> specialConnection = new ThreadLocal<>();
+    private volatile boolean open = true;
+
+    /**
+     * Create a new connection source
+     *
+     * @param uri                The JDBC URI of the database
+     * @param pragmas            The pragma statements to run on every new connection, e.g. <tt>synchronous=NORMAL</tt>
+     * @param maxIdleReaders     How many read connections should be kept open when they aren't used
+     * @param statementCacheSize How many prepared statements should be kept open per connection
+     */
+    SqliteConnectionSource(String uri, List<String> pragmas, int maxIdleReaders, int statementCacheSize) {
+        this.uri = uri;
+        this.pragmas = pragmas;
+        this.maxIdleReaders = maxIdleReaders;
+        this.statementCacheSize = statementCacheSize;
+        databaseType.loadDriver();
+    }
+
+    @Override
+    public DatabaseConnection getReadOnlyConnection(String tableName) throws SQLException {
+        DatabaseConnection special = getSpecialConnection(tableName);
+        if (special != null) {
+            return special;
+        }
+        checkOpen();
+
+        synchronized (idleReaders) {
+            DatabaseConnection reader = idleReaders.pollFirst();
+            if (reader != null) {
+                return reader;
+            }
+        }
+        return openConnection();
+    }
+
+    @Override
+    public DatabaseConnection getReadWriteConnection(String tableName) throws SQLException {
+        DatabaseConnection special = getSpecialConnection(tableName);
+        if (special != null) {
+            return special;
+        }
+        checkOpen();
+
+        writerLock.lock();
+        try {
+            if (writer == null || writer.isClosed()) {
+                writer = openConnection();
+            }
+            return writer;
+        } catch (SQLException | RuntimeException e) {
+            writerLock.unlock();
+            throw e;
+        }
+    }
+
+    @Override
+    public void releaseConnection(DatabaseConnection connection) throws SQLException {
+        SpecialConnection special = specialConnection.get();
+        if (special != null && special.connection == connection) {
+            // Released when the special connection gets cleared
+            return;
+        }
+
+        if (connection == writer) {
+            writerLock.unlock();
+            return;
+        }
+
+        if (open && !connection.isClosed()) {
+            synchronized (idleReaders) {
+                if (idleReaders.size() < maxIdleReaders) {
+                    idleReaders.addFirst(connection);
+                    return;
+                }
+            }
+        }
+        connection.closeQuietly();
+    }
+
+    @Override
+    public boolean saveSpecialConnection(DatabaseConnection connection) throws SQLException {
+        SpecialConnection special = specialConnection.get();
+        if (special == null) {
+            specialConnection.set(new SpecialConnection(connection));
+            return true;
+        }
+        if (special.connection != connection) {
+            throw new SQLException("A different connection is already saved for this thread");
+        }
+        special.nesting++;
+        return false;
+    }
+
+    @Override
+    public void clearSpecialConnection(DatabaseConnection connection) {
+        SpecialConnection special = specialConnection.get();
+        if (special != null && special.connection == connection && --special.nesting < 0) {
+            specialConnection.remove();
+        }
+    }
+
+    @Override
+    public DatabaseConnection getSpecialConnection(String tableName) {
+        SpecialConnection special = specialConnection.get();
+        return special != null ? special.connection : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        open = false;
+        synchronized (idleReaders) {
+            for (DatabaseConnection reader : idleReaders) {
+                reader.closeQuietly();
+            }
+            idleReaders.clear();
+        }
+        writerLock.lock();
+        try {
+            if (writer != null) {
+                writer.closeQuietly();
+                writer = null;
+            }
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    @Override
+    public void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ignored) {}
+    }
+
+    @Override
+    public DatabaseType getDatabaseType() {
+        return databaseType;
+    }
+
+    @Override
+    public boolean isOpen(String tableName) {
+        return open;
+    }
+
+    @Override
+    public boolean isSingleConnection(String tableName) {
+        return false;
+    }
+
+    private void checkOpen() throws SQLException {
+        if (!open) {
+            throw new SQLException("Connection source for " + uri + " is closed");
+        }
+    }
+
+    private DatabaseConnection openConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(uri);
+        try (Statement statement = connection.createStatement()) {
+            for (String pragma : pragmas) {
+                statement.execute("PRAGMA " + pragma);
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return new JdbcDatabaseConnection(StatementCachingConnection.wrap(connection, statementCacheSize));
+    }
+
+    private static class SpecialConnection {
+        private final DatabaseConnection connection;
+        private int nesting = 0;
+
+        private SpecialConnection(DatabaseConnection connection) {
+            this.connection = connection;
+        }
+    }
+}
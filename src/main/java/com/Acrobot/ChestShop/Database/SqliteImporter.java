@@ -0,0 +1,215 @@
+package com.Acrobot.ChestShop.Database;
+
+import com.Acrobot.ChestShop.Configuration.Properties;
+import com.j256.ormlite.dao.CloseableIterator;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.SelectArg;
+import com.j256.ormlite.support.ConnectionSource;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Copies the accounts and items of the local SQLite databases into a shared store.
+ * <p>
+ * Items keep their IDs as the item codes on existing signs depend on them, so they are only imported into an
+ * items table which is empty or only contains items of an earlier import from the same database. Rows which
+ * already exist in the store are skipped, items whose ID is used by a different item in the store are
+ * reported as conflicts.
+ */
+public class SqliteImporter {
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Import the local SQLite databases into the configured shared store
+     *
+     * @param dataFolder The folder with the database files
+     * @param progress   Receives progress messages
+     * @return The results of the accounts and the items import
+     * @throws SQLException if the import failed, the already imported batches stay in the store
+     */
+    public static Result[] importAll(File dataFolder, Consumer<String> progress) throws SQLException {
+        Result accounts = importTable(Account.class, dataFolder, progress, SqliteImporter::importAccounts);
+        Result items = importTable(Item.class, dataFolder, progress, SqliteImporter::importItems);
+        return new Result[]{accounts, items};
+    }
+
+    private static <ENTITY, ID> Result importTable(Class<ENTITY> entity, File dataFolder, Consumer<String> progress, Importer<ENTITY, ID> importer) throws SQLException {
+        File file = new File(dataFolder, entity.getAnnotation(DatabaseFileName.class).value());
+        if (!file.isFile()) {
+            progress.accept("Skipping " + file.getName() + " as it doesn't exist");
+            return new Result();
+        }
+
+        ConnectionSource source = ConnectionManager.openSqlite(ConnectionManager.getURI(file));
+        try {
+            Dao<ENTITY, ID> from = DaoCreator.getDao(source, entity, "");
+            Dao<ENTITY, ID> to = DaoCreator.getDaoAndCreateTable(entity);
+            progress.accept("Importing " + from.countOf() + " rows from " + file.getName() + "...");
+            return importer.importRows(from, to, Properties.DATABASE_BACKEND, progress);
+        } finally {
+            source.closeQuietly();
+        }
+    }
+
+    /**
+     * Copy accounts which don't exist in the target yet. Accounts whose short name is already used by the
+     * account of a different player in the target can't be imported and are counted as conflicts.
+     *
+     * @param from     The DAO to copy from
+     * @param to       The DAO to copy to
+     * @param backend  The backend of the target
+     * @param progress Receives progress messages
+     * @return The result
+     * @throws SQLException if reading or writing failed
+     */
+    public static Result importAccounts(Dao<Account, String> from, Dao<Account, String> to, DatabaseBackend backend, Consumer<String> progress) throws SQLException {
+        Result result = new Result();
+        importBatches(from, to, progress, result, account -> {
+            Account existing = to.queryForId(account.getShortName());
+            if (existing != null) {
+                if (existing.getUuid().equals(account.getUuid()) && existing.getName().equals(account.getName())) {
+                    result.skipped++;
+                } else {
+                    result.conflicts.add(account.getShortName());
+                }
+            } else {
+                to.create(account);
+                result.imported++;
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Copy items with their IDs. Items whose ID already exists with the same code are skipped, if the code is
+     * different the item can't be imported and is counted as a conflict.
+     *
+     * @param from     The DAO to copy from
+     * @param to       The DAO to copy to
+     * @param backend  The backend of the target
+     * @param progress Receives progress messages
+     * @return The result
+     * @throws SQLException if reading or writing failed or the target contains items which aren't in the source
+     */
+    public static Result importItems(Dao<Item, Integer> from, Dao<Item, Integer> to, DatabaseBackend backend, Consumer<String> progress) throws SQLException {
+        checkOnlyImportedItems(from, to);
+
+        Result result = new Result();
+        importBatches(from, to, progress, result, item -> {
+            Item existing = to.queryForId(item.getId());
+            if (existing != null) {
+                if (existing.getBase64ItemCode().equals(item.getBase64ItemCode())) {
+                    result.skipped++;
+                } else {
+                    result.conflicts.add(String.valueOf(item.getId()));
+                }
+                return;
+            }
+
+            // Like in the local database only the first item with a code keeps the hash
+            if (item.getHash() != null && to.queryBuilder().where().eq("hash", new SelectArg(item.getHash())).countOf() > 0) {
+                item.setHash(null);
+            }
+            to.create(item);
+            result.imported++;
+        });
+
+        if (result.imported > 0) {
+            long maxId = to.queryRawValue("SELECT MAX(" + escape(to, "id") + ") FROM " + escape(to, to.getTableName()));
+            String restartStatement = backend.getRestartIdStatement(to.getConnectionSource().getDatabaseType(), to.getTableName(), maxId);
+            if (restartStatement != null) {
+                to.executeRawNoArgs(restartStatement);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Make sure that the target doesn't contain items which were created on another server, as these use
+     * the IDs that the imported items need to keep
+     */
+    private static void checkOnlyImportedItems(Dao<Item, Integer> from, Dao<Item, Integer> to) throws SQLException {
+        try (CloseableIterator<Item> iterator = to.iterator()) {
+            while (iterator.hasNext()) {
+                Item existing = iterator.next();
+                Item local = from.queryForId(existing.getId());
+                if (local == null || !local.getBase64ItemCode().equals(existing.getBase64ItemCode())) {
+                    throw new SQLException("The items table " + to.getTableName() + " already contains item " + existing.getId()
+                            + " which isn't in the local database. Items can only be imported into an empty table,"
+                            + " import them before other servers create items in the shared database");
+                }
+            }
+        } catch (Exception e) {
+            throw e instanceof SQLException ? (SQLException) e : new SQLException(e);
+        }
+    }
+
+    private static <ENTITY, ID> void importBatches(Dao<ENTITY, ID> from, Dao<ENTITY, ID> to, Consumer<String> progress, Result result, RowImporter<ENTITY> rowImporter) throws SQLException {
+        List<ENTITY> batch = new ArrayList<>(BATCH_SIZE);
+        try (CloseableIterator<ENTITY> iterator = from.iterator()) {
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == BATCH_SIZE || !iterator.hasNext()) {
+                    to.callBatchTasks(() -> {
+                        for (ENTITY row : batch) {
+                            rowImporter.importRow(row);
+                        }
+                        return null;
+                    });
+                    batch.clear();
+                    progress.accept(result.imported + " imported, " + result.skipped + " already existed, " + result.conflicts.size() + " conflicts");
+                }
+            }
+        } catch (Exception e) {
+            throw e instanceof SQLException ? (SQLException) e : new SQLException(e);
+        }
+    }
+
+    private static String escape(Dao<?, ?> dao, String name) {
+        StringBuilder builder = new StringBuilder();
+        dao.getConnectionSource().getDatabaseType().appendEscapedEntityName(builder, name);
+        return builder.toString();
+    }
+
+    private interface Importer<ENTITY, ID> {
+        Result importRows(Dao<ENTITY, ID> from, Dao<ENTITY, ID> to, DatabaseBackend backend, Consumer<String> progress) throws SQLException;
+    }
+
+    private interface RowImporter<ENTITY> {
+        void importRow(ENTITY row) throws SQLException;
+    }
+
+    /**
+     * The result of importing a table
+     */
+    public static class Result {
+        private int imported = 0;
+        private int skipped = 0;
+        private final List<String> conflicts = new ArrayList<>();
+
+        /**
+         * @return The amount of rows which were copied
+         */
+        public int getImported() {
+            return imported;
+        }
+
+        /**
+         * @return The amount of rows which already existed in the target
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * @return The IDs of the rows which couldn't be copied as a different row with the same ID exists
+         */
+        public List<String> getConflicts() {
+            return conflicts;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.Acrobot.ChestShop.Database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wraps a JDBC connection so that prepared statements are kept open and reused when the same SQL is prepared again.
+ * <p>
+ * Closing a statement which was handed out by this connection only resets it and puts it back into the cache.
+ * If the same SQL is prepared while its cached statement is still in use (e.g. by an open iterator) a new,
+ * uncached statement is prepared instead.
+ */
+class StatementCachingConnection implements InvocationHandler {
+    private final Connection connection;
+    private final int maxSize;
+    private final Map<List<Object>, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    private StatementCachingConnection(Connection connection, int maxSize) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Wrap a connection
+     *
+     * @param connection The connection to wrap
+     * @param maxSize    How many prepared statements should be kept open at most, if this is 0 the connection is returned
+     * @return The wrapped connection
+     */
+    static Connection wrap(Connection connection, int maxSize) {
+        if (maxSize <= 0) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(
+                StatementCachingConnection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new StatementCachingConnection(connection, maxSize)
+        );
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "prepareStatement":
+                return prepareStatement(method, args);
+            case "close":
+                closeStatements();
+                break;
+            case "unwrap":
+                if (((Class<?>) args[0]).isInstance(proxy)) {
+                    return proxy;
+                }
+                break;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+        }
+        return invokeOn(connection, method, args);
+    }
+
+    private synchronized Object prepareStatement(Method method, Object[] args) throws Throwable {
+        List<Object> key = Arrays.asList(args);
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse && cached.statement.isClosed()) {
+            statements.remove(key);
+            cached = null;
+        }
+        if (cached == null) {
+            cached = new CachedStatement((PreparedStatement) invokeOn(connection, method, args));
+            statements.put(key, cached);
+            evict();
+        } else if (cached.inUse) {
+            // The cached statement can't be shared, hand out a normal one
+            return invokeOn(connection, method, args);
+        }
+        cached.inUse = true;
+        return Proxy.newProxyInstance(
+                StatementCachingConnection.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new Lease(cached)
+        );
+    }
+
+    private void evict() {
+        Iterator<CachedStatement> it = statements.values().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            CachedStatement cached = it.next();
+            if (!cached.inUse) {
+                it.remove();
+                closeQuietly(cached.statement);
+            }
+        }
+    }
+
+    private synchronized void release(CachedStatement cached) {
+        cached.inUse = false;
+        try {
+            cached.statement.clearParameters();
+            cached.statement.setMaxRows(0);
+            cached.statement.setQueryTimeout(0);
+        } catch (SQLException e) {
+            // Broken statements are simply prepared again next time
+            statements.values().remove(cached);
+            closeQuietly(cached.statement);
+        }
+        evict();
+    }
+
+    private synchronized void closeStatements() {
+        for (CachedStatement cached : statements.values()) {
+            closeQuietly(cached.statement);
+        }
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {}
+    }
+
+    private static Object invokeOn(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class CachedStatement {
+        private final PreparedStatement statement;
+        private boolean inUse = false;
+
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    /**
+     * A cached statement handed out until it gets closed, closing it again doesn't affect later users
+     */
+    private class Lease implements InvocationHandler {
+        private final CachedStatement cached;
+        private boolean closed = false;
+
+        private Lease(CachedStatement cached) {
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(cached);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || cached.statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            return invokeOn(cached.statement, method, args);
+        }
+    }
+}
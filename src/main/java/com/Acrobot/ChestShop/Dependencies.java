@@ -214,6 +214,9 @@ public class Dependencies implements Listener {
                 }
                 listener = new RedProtectBuilding(plugin);
                 break;
+            case WorldEdit:
+                WorldEdit.register();
+                break;
 
             //Other plugins
             case AuthMe:
@@ -260,6 +263,8 @@ public class Dependencies implements Listener {
         GriefPrevention,
         RedProtect,
 
+        WorldEdit,
+
         AuthMe,
 
         Heroes,
@@ -2,9 +2,12 @@ package com.Acrobot.ChestShop.Events.Economy;
 
 import org.bukkit.event.Event;
 
+import javax.annotation.Nullable;
+
 public abstract class EconomicEvent extends Event {
 
     private boolean handled = false;
+    private EconomyContext economyContext = null;
 
     /**
      * Get whether or not this event was successfully handled by a listener
@@ -23,4 +26,24 @@ public abstract class EconomicEvent extends Event {
     public void setHandled(boolean handled) {
         this.handled = handled;
     }
+
+    /**
+     * Get the context of the transaction this event is part of. Economy adapters can use it to
+     * answer the event with data they already fetched for the same transaction.
+     *
+     * @return The context or <tt>null</tt> if the event isn't part of a transaction
+     */
+    @Nullable
+    public EconomyContext getEconomyContext() {
+        return economyContext;
+    }
+
+    /**
+     * Set the context of the transaction this event is part of
+     *
+     * @param economyContext The context
+     */
+    public void setEconomyContext(EconomyContext economyContext) {
+        this.economyContext = economyContext;
+    }
 }
@@ -0,0 +1,142 @@
+package com.Acrobot.ChestShop.Events.Economy;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the economy data which was fetched during one transaction, so that the economy adapters can answer
+ * the amount, check and account events of the same transaction without asking the economy provider again.
+ * <p>
+ * A context belongs to a single transaction and is only used by the thread handling it. Adapters which don't
+ * support it simply ignore it, they get the same events as before.
+ */
+public class EconomyContext {
+    private static final LongAdder totalProviderCalls = new LongAdder();
+    private static final LongAdder totalSavedCalls = new LongAdder();
+
+    private final Map<UUID, BigDecimal> balances = new HashMap<>();
+    private final Map<UUID, Boolean> accounts = new HashMap<>();
+    private final Map<UUID, Map<BigDecimal, Boolean>> funds = new HashMap<>();
+
+    private int providerCalls = 0;
+    private int savedCalls = 0;
+
+    /**
+     * Get the balance of an account, it's only fetched from the provider the first time
+     *
+     * @param account The UUID of the account
+     * @param call    Fetches the balance from the provider
+     * @return The balance
+     * @throws Exception if the provider couldn't be asked, nothing is remembered in that case
+     */
+    public BigDecimal getBalance(UUID account, ProviderCall<BigDecimal> call) throws Exception {
+        BigDecimal balance = balances.get(account);
+        if (balance != null) {
+            saved();
+            return balance;
+        }
+        balance = fetch(call);
+        if (balance != null) {
+            balances.put(account, balance);
+        }
+        return balance;
+    }
+
+    /**
+     * Get whether or not an account has at least an amount of money, it's only checked with the provider
+     * the first time for each amount
+     *
+     * @param account The UUID of the account
+     * @param amount  The amount to check
+     * @param call    Checks the funds with the provider
+     * @return Whether or not the account has enough money
+     * @throws Exception if the provider couldn't be asked, nothing is remembered in that case
+     */
+    public boolean hasFunds(UUID account, BigDecimal amount, ProviderCall<Boolean> call) throws Exception {
+        BigDecimal key = amount.stripTrailingZeros();
+        Boolean enough = funds.getOrDefault(account, Collections.emptyMap()).get(key);
+        if (enough != null) {
+            saved();
+            return enough;
+        }
+        boolean hasEnough = Boolean.TRUE.equals(fetch(call));
+        funds.computeIfAbsent(account, k -> new HashMap<>()).put(key, hasEnough);
+        return hasEnough;
+    }
+
+    /**
+     * Get whether or not an account exists, it's only checked with the provider the first time
+     *
+     * @param account The UUID of the account
+     * @param call    Checks the account with the provider
+     * @return Whether or not the account exists
+     * @throws Exception if the provider couldn't be asked, nothing is remembered in that case
+     */
+    public boolean hasAccount(UUID account, ProviderCall<Boolean> call) throws Exception {
+        Boolean exists = accounts.get(account);
+        if (exists != null) {
+            saved();
+            return exists;
+        }
+        boolean existing = Boolean.TRUE.equals(fetch(call));
+        accounts.put(account, existing);
+        return existing;
+    }
+
+    /**
+     * Forget the balance and funds checks of an account, e.g. because money was transferred from or to it
+     *
+     * @param account The UUID of the account
+     */
+    public void forgetBalance(UUID account) {
+        balances.remove(account);
+        funds.remove(account);
+    }
+
+    private <T> T fetch(ProviderCall<T> call) throws Exception {
+        providerCalls++;
+        totalProviderCalls.increment();
+        return call.call();
+    }
+
+    private void saved() {
+        savedCalls++;
+        totalSavedCalls.increment();
+    }
+
+    /**
+     * @return How often the provider was asked through this context
+     */
+    public int getProviderCalls() {
+        return providerCalls;
+    }
+
+    /**
+     * @return How many provider calls this context answered from the data it already had
+     */
+    public int getSavedCalls() {
+        return savedCalls;
+    }
+
+    /**
+     * @return How often the provider was asked through all contexts since the start
+     */
+    public static long getTotalProviderCalls() {
+        return totalProviderCalls.sum();
+    }
+
+    /**
+     * @return How many provider calls all contexts answered from the data they already had since the start
+     */
+    public static long getTotalSavedCalls() {
+        return totalSavedCalls.sum();
+    }
+
+    public interface ProviderCall<T> {
+        T call() throws Exception;
+    }
+}
@@ -1,6 +1,8 @@
 package com.Acrobot.ChestShop.Events;
 
+import com.Acrobot.Breeze.Utils.InventoryCount;
 import com.Acrobot.ChestShop.Database.Account;
+import com.Acrobot.ChestShop.Events.Economy.EconomyContext;
 import com.Acrobot.ChestShop.UUIDs.NameManager;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
@@ -37,12 +39,17 @@ public class PreTransactionEvent extends Event implements Cancellable {
 
     private ItemStack[] items;
 
+    private InventoryCount ownerCount;
+    private InventoryCount clientCount;
+
     private BigDecimal exactPrice;
 
     private TransactionOutcome transactionOutcome = TRANSACTION_SUCCESFUL;
 
     private int treasuryAccountId = -1;
 
+    private EconomyContext economyContext = new EconomyContext();
+
     public PreTransactionEvent(Inventory ownerInventory, Inventory clientInventory, ItemStack[] items, BigDecimal exactPrice, Player client, Account ownerAccount, Sign sign, TransactionType type) {
         this.ownerInventory = ownerInventory;
         this.clientInventory = (clientInventory == null ? client.getInventory() : clientInventory);
@@ -119,6 +126,12 @@ public class PreTransactionEvent extends Event implements Cancellable {
      */
     public void setStock(ItemStack... stock) {
         items = stock;
+        if (ownerCount != null) {
+            ownerCount = ownerCount.withStock(stock);
+        }
+        if (clientCount != null) {
+            clientCount = clientCount.withStock(stock);
+        }
     }
 
     /**
@@ -128,6 +141,34 @@ public class PreTransactionEvent extends Event implements Cancellable {
         return items;
     }
 
+    /**
+     * Get the counts of the stock in the owner's inventory. The inventory is only counted once
+     * per transaction, shrinking the stock via {@link #setStock(ItemStack...)} reuses the count.
+     * This must not be used after the inventory was modified!
+     *
+     * @return The counts of the stock in the owner's inventory
+     */
+    public InventoryCount getOwnerCount() {
+        if (ownerCount == null) {
+            ownerCount = InventoryCount.of(ownerInventory, items);
+        }
+        return ownerCount;
+    }
+
+    /**
+     * Get the counts of the stock in the client's inventory. The inventory is only counted once
+     * per transaction, shrinking the stock via {@link #setStock(ItemStack...)} reuses the count.
+     * This must not be used after the inventory was modified!
+     *
+     * @return The counts of the stock in the client's inventory
+     */
+    public InventoryCount getClientCount() {
+        if (clientCount == null) {
+            clientCount = InventoryCount.of(clientInventory, items);
+        }
+        return clientCount;
+    }
+
     /**
      * @return Shop's client
      */
@@ -165,6 +206,7 @@ public class PreTransactionEvent extends Event implements Cancellable {
      */
     public void setOwnerInventory(Inventory ownerInventory) {
         this.ownerInventory = ownerInventory;
+        this.ownerCount = null;
     }
 
     /**
@@ -174,6 +216,7 @@ public class PreTransactionEvent extends Event implements Cancellable {
      */
     public void setClientInventory(Inventory clientInventory) {
         this.clientInventory = clientInventory;
+        this.clientCount = null;
     }
 
     /**
@@ -241,6 +284,25 @@ public class PreTransactionEvent extends Event implements Cancellable {
         this.treasuryAccountId = treasuryAccountId;
     }
 
+    /**
+     * Get the context which remembers the economy data fetched during this transaction.
+     * Set it on the economy events which are called for this transaction.
+     *
+     * @return The economy context
+     */
+    public EconomyContext getEconomyContext() {
+        return economyContext;
+    }
+
+    /**
+     * Set the economy context, e.g. to continue one that was used before the event was created
+     *
+     * @param economyContext The economy context
+     */
+    public void setEconomyContext(EconomyContext economyContext) {
+        this.economyContext = economyContext;
+    }
+
     public HandlerList getHandlers() {
         return handlers;
     }
@@ -1,6 +1,7 @@
 package com.Acrobot.ChestShop.Events;
 
 import com.Acrobot.ChestShop.Database.Account;
+import com.Acrobot.ChestShop.Events.Economy.EconomyContext;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.block.Sign;
@@ -37,6 +38,8 @@ public class TransactionEvent extends Event implements Cancellable {
 
     private int treasuryAccountId = -1;
 
+    private final EconomyContext economyContext;
+
     public TransactionEvent(PreTransactionEvent event, Sign sign) {
         this.type = event.getTransactionType();
 
@@ -51,6 +54,7 @@ public class TransactionEvent extends Event implements Cancellable {
 
         this.sign = sign;
         this.treasuryAccountId = event.getTreasuryAccountId();
+        this.economyContext = event.getEconomyContext();
     }
 
     public TransactionEvent(TransactionType type, Inventory ownerInventory, Inventory clientInventory, Player client, Account ownerAccount, ItemStack[] stock, BigDecimal exactPrice, Sign sign) {
@@ -66,6 +70,7 @@ public class TransactionEvent extends Event implements Cancellable {
         this.exactPrice = exactPrice;
 
         this.sign = sign;
+        this.economyContext = new EconomyContext();
     }
 
     /**
@@ -173,6 +178,16 @@ public class TransactionEvent extends Event implements Cancellable {
         this.treasuryAccountId = treasuryAccountId;
     }
 
+    /**
+     * Get the context which remembers the economy data fetched during this transaction.
+     * Set it on the economy events which are called for this transaction.
+     *
+     * @return The economy context
+     */
+    public EconomyContext getEconomyContext() {
+        return economyContext;
+    }
+
     public HandlerList getHandlers() {
         return handlers;
     }
@@ -1,11 +1,14 @@
 package com.Acrobot.ChestShop.Listeners.Block.Break;
 
+import com.Acrobot.Breeze.Utils.BlockUtil;
 import com.Acrobot.ChestShop.Configuration.Messages;
 import com.Acrobot.ChestShop.Configuration.Properties;
 import com.Acrobot.ChestShop.Permission;
 import com.Acrobot.ChestShop.Signs.ChestShopSign;
+import com.Acrobot.ChestShop.Signs.ShopIndex;
 import com.Acrobot.ChestShop.Utils.uBlock;
 import org.bukkit.block.Block;
+import org.bukkit.block.Container;
 import org.bukkit.block.Sign;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -14,6 +17,11 @@ import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.entity.EntityChangeBlockEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
 
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.Acrobot.Breeze.Utils.ImplementationAdapter.getState;
+
 /**
  * @author Acrobot
  */
@@ -32,17 +40,36 @@ public class ChestBreak implements Listener {
             return;
         }
 
-        for (Block block : event.blockList()) {
-            if (!canBeBroken(block, null)) {
-                event.setCancelled(true);
-                return;
+        // Signs of double chest shops can be attached to the other half, so look two blocks further
+        Set<Block> protectedBlocks = new HashSet<>();
+        for (Block signBlock : ShopIndex.getSigns(event.blockList(), 2)) {
+            if (!BlockUtil.isSign(signBlock)) {
+                continue;
+            }
+
+            Sign sign = (Sign) getState(signBlock, false);
+            if (!ChestShopSign.isValid(sign)) {
+                continue;
             }
+
+            Container container = uBlock.findConnectedContainer(sign);
+            if (container != null) {
+                protectedBlocks.add(container.getBlock());
+                Block neighbor = uBlock.findNeighbor(container.getBlock());
+                if (neighbor != null) {
+                    protectedBlocks.add(neighbor);
+                }
+            }
+        }
+
+        if (!protectedBlocks.isEmpty()) {
+            event.blockList().removeIf(protectedBlocks::contains);
         }
     }
 
     @EventHandler(ignoreCancelled = true)
     public static void onEntityChangeBlock(EntityChangeBlockEvent event) {
-        if (!canBeBroken(event.getBlock(), null)) {
+        if (ShopIndex.isShopChunk(event.getBlock()) && !canBeBroken(event.getBlock(), null)) {
             event.setCancelled(true);
         }
     }
@@ -7,6 +7,7 @@ import com.Acrobot.ChestShop.Configuration.Properties;
 import com.Acrobot.ChestShop.Events.ShopDestroyedEvent;
 import com.Acrobot.ChestShop.Listeners.Block.Break.Attached.PhysicsBreak;
 import com.Acrobot.ChestShop.Signs.ChestShopSign;
+import com.Acrobot.ChestShop.Signs.ShopIndex;
 import com.Acrobot.ChestShop.UUIDs.NameManager;
 import com.Acrobot.ChestShop.Utils.uBlock;
 import org.bukkit.Material;
@@ -27,8 +28,10 @@ import org.bukkit.metadata.FixedMetadataValue;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import static com.Acrobot.Breeze.Utils.ImplementationAdapter.getState;
 import static com.Acrobot.Breeze.Utils.BlockUtil.getAttachedBlock;
@@ -53,7 +56,7 @@ public class SignBreak implements Listener {
     }
 
     public static void handlePhysicsBreak(Block block) {
-        if (!BlockUtil.isSign(block)) {
+        if (!ShopIndex.isShopChunk(block) || !BlockUtil.isSign(block)) {
             return;
         }
 
@@ -88,7 +91,7 @@ public class SignBreak implements Listener {
     @EventHandler(ignoreCancelled = true)
     public static void onBlockPistonExtend(BlockPistonExtendEvent event) {
         for (Block block : event.getBlocks()) {
-            if (!canBlockBeBroken(block, null)) {
+            if (ShopIndex.isShopChunk(block) && !canBlockBeBroken(block, null)) {
                 event.setCancelled(true);
                 return;
             }
@@ -98,7 +101,7 @@ public class SignBreak implements Listener {
     @EventHandler(ignoreCancelled = true)
     public static void onBlockPistonRetract(BlockPistonRetractEvent event) {
         for (Block block : event.getBlocks()) {
-            if (!canBlockBeBroken(block, null)) {
+            if (ShopIndex.isShopChunk(block) && !canBlockBeBroken(block, null)) {
                 event.setCancelled(true);
                 return;
             }
@@ -107,28 +110,39 @@ public class SignBreak implements Listener {
 
     @EventHandler(ignoreCancelled = true)
     public static void onExplosion(EntityExplodeEvent event) {
-        if (event.blockList() == null || !Properties.USE_BUILT_IN_PROTECTION) {
+        if (event.blockList() == null || !Properties.USE_BUILT_IN_PROTECTION || Properties.TURN_OFF_SIGN_PROTECTION) {
             return;
         }
 
-        for (Block block : event.blockList()) {
-            if (!canBlockBeBroken(block, null)) {
-                event.setCancelled(true);
-                return;
+        // Only keep the shop signs and the blocks they are attached to, the rest of the explosion can happen
+        Set<Block> protectedBlocks = new HashSet<>();
+        for (Block signBlock : ShopIndex.getSigns(event.blockList(), 1)) {
+            if (!isSign(signBlock)) {
+                continue;
             }
+
+            Sign sign = (Sign) getState(signBlock, false);
+            if (ChestShopSign.isValid(sign)) {
+                protectedBlocks.add(signBlock);
+                protectedBlocks.add(getAttachedBlock(sign));
+            }
+        }
+
+        if (!protectedBlocks.isEmpty()) {
+            event.blockList().removeIf(protectedBlocks::contains);
         }
     }
 
     @EventHandler(ignoreCancelled = true)
     public static void onIgnite(BlockBurnEvent event) {
-        if (!canBlockBeBroken(event.getBlock(), null)) {
+        if (ShopIndex.isShopChunk(event.getBlock()) && !canBlockBeBroken(event.getBlock(), null)) {
             event.setCancelled(true);
         }
     }
 
     @EventHandler(ignoreCancelled = true)
     public static void onEntityChangeBlock(EntityChangeBlockEvent event) {
-        if (!canBlockBeBroken(event.getBlock(), null)) {
+        if (ShopIndex.isShopChunk(event.getBlock()) && !canBlockBeBroken(event.getBlock(), null)) {
             event.setCancelled(true);
         }
     }
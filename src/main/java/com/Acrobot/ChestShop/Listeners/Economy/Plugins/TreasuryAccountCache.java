@@ -0,0 +1,215 @@
+package com.Acrobot.ChestShop.Listeners.Economy.Plugins;
+
+import com.Acrobot.Breeze.Collection.ConcurrentCache;
+
+import net.democracycraft.treasury.api.TreasuryApi;
+import net.democracycraft.treasury.model.economy.Account;
+import net.democracycraft.treasury.model.economy.AccountMember;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+/**
+ * Caches the Treasury account data which rarely changes so that transactions don't need a Treasury
+ * (and therefore database) round trip for each of their accounts.
+ * <p>
+ * Only IDs, owners, authorization settings and authorizers are cached, never balances. All entries expire after
+ * a while and are dropped when a transfer with them failed, as that might have been caused by outdated data.
+ */
+public class TreasuryAccountCache {
+    private final ConcurrentCache<UUID, Integer> personalAccounts;
+    private final ConcurrentCache<Integer, AccountInfo> accounts;
+    private final ConcurrentCache<Integer, Set<UUID>> authorizers;
+
+    /**
+     * @param maximumSize The maximum amount of entries per cache
+     * @param ttl         How long entries are kept
+     * @param unit        The unit of the TTL
+     */
+    public TreasuryAccountCache(int maximumSize, long ttl, TimeUnit unit) {
+        personalAccounts = new ConcurrentCache<>(maximumSize, ttl, ttl, unit);
+        accounts = new ConcurrentCache<>(maximumSize, ttl, ttl, unit);
+        authorizers = new ConcurrentCache<>(maximumSize, ttl, ttl, unit);
+    }
+
+    /**
+     * Get the ID of the personal account of a player, the account is created if it doesn't exist yet
+     *
+     * @param treasury The API to resolve the account with if it isn't cached
+     * @param owner    The UUID of the player
+     * @return The account ID or <tt>null</tt> if Treasury didn't return an account
+     * @throws Exception if Treasury couldn't resolve the account
+     */
+    @Nullable
+    public Integer getPersonalAccountId(TreasuryApi treasury, UUID owner) throws Exception {
+        Integer accountId = load(personalAccounts, owner, () -> {
+            Account account = treasury.resolveOrCreatePersonal(owner);
+            if (account == null) {
+                return null;
+            }
+            accounts.put(account.getAccountId(), new AccountInfo(account));
+            return account.getAccountId();
+        });
+        if (accountId == null) {
+            // The account should have been created, don't remember that it doesn't exist
+            personalAccounts.remove(owner);
+        }
+        return accountId;
+    }
+
+    /**
+     * Get the data of an account
+     *
+     * @param treasury  The API to get the account with if it isn't cached
+     * @param accountId The ID of the account
+     * @return The account data or <tt>null</tt> if there is no account with that ID
+     * @throws Exception if Treasury couldn't get the account
+     */
+    @Nullable
+    public AccountInfo getAccount(TreasuryApi treasury, int accountId) throws Exception {
+        return load(accounts, accountId, () -> {
+            Account account = treasury.getAccountById(accountId);
+            return account != null ? new AccountInfo(account) : null;
+        });
+    }
+
+    /**
+     * Check whether the data of an account (or the lack of one) is cached
+     *
+     * @param accountId The ID of the account
+     * @return Whether or not {@link #getAccount(TreasuryApi, int)} would be answered without asking Treasury
+     */
+    public boolean isAccountCached(int accountId) {
+        return accounts.contains(accountId);
+    }
+
+    /**
+     * Get the cached data of an account without asking Treasury
+     *
+     * @param accountId The ID of the account
+     * @return The account data or <tt>null</tt> if it isn't cached or there is no account with that ID
+     */
+    @Nullable
+    public AccountInfo peekAccount(int accountId) {
+        return accounts.peek(accountId);
+    }
+
+    /**
+     * Get the players which can authorize transfers from an account
+     *
+     * @param treasury  The API to get the authorizers with if they aren't cached
+     * @param accountId The ID of the account
+     * @return The UUIDs of the authorizers
+     * @throws Exception if Treasury couldn't get the authorizers
+     */
+    public Set<UUID> getAuthorizers(TreasuryApi treasury, int accountId) throws Exception {
+        Set<UUID> members = load(authorizers, accountId, () -> {
+            Set<UUID> uuids = new HashSet<>();
+            for (AccountMember member : treasury.getAuthorizers(accountId)) {
+                uuids.add(member.getMemberUuid());
+            }
+            return Collections.unmodifiableSet(uuids);
+        });
+        return members != null ? members : Collections.emptySet();
+    }
+
+    /**
+     * Forget the personal account of a player
+     *
+     * @param owner The UUID of the player
+     */
+    public void invalidateOwner(UUID owner) {
+        if (owner != null) {
+            personalAccounts.remove(owner);
+        }
+    }
+
+    /**
+     * Forget the data and the authorizers of an account
+     *
+     * @param accountId The ID of the account
+     */
+    public void invalidateAccount(int accountId) {
+        if (accountId >= 0) {
+            accounts.remove(accountId);
+            authorizers.remove(accountId);
+        }
+    }
+
+    /**
+     * Forget everything, e.g. because the Treasury provider changed
+     */
+    public void clear() {
+        personalAccounts.clear();
+        accounts.clear();
+        authorizers.clear();
+    }
+
+    /**
+     * @return The amount of cached entries
+     */
+    public int size() {
+        return personalAccounts.size() + accounts.size() + authorizers.size();
+    }
+
+    /**
+     * @return The amount of lookups which were answered from the cache
+     */
+    public long getHits() {
+        return personalAccounts.getHits() + accounts.getHits() + authorizers.getHits();
+    }
+
+    /**
+     * @return The amount of lookups which needed to ask Treasury
+     */
+    public long getMisses() {
+        return personalAccounts.getMisses() + accounts.getMisses() + authorizers.getMisses();
+    }
+
+    private static <K, V> V load(ConcurrentCache<K, V> cache, K key, Callable<V> loader) throws Exception {
+        try {
+            return cache.get(key, loader);
+        } catch (ExecutionException e) {
+            // Rethrow what Treasury threw so that the callers can tell the failures apart
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The cached data of a Treasury account
+     */
+    public static class AccountInfo {
+        private final int accountId;
+        private final UUID ownerUuid;
+        private final boolean requiresAuthorization;
+
+        private AccountInfo(Account account) {
+            this.accountId = account.getAccountId();
+            this.ownerUuid = account.getOwnerUuid();
+            this.requiresAuthorization = account.isRequiresAuthorization();
+        }
+
+        public int getAccountId() {
+            return accountId;
+        }
+
+        @Nullable
+        public UUID getOwnerUuid() {
+            return ownerUuid;
+        }
+
+        public boolean isRequiresAuthorization() {
+            return requiresAuthorization;
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package com.Acrobot.ChestShop.Listeners.Economy.Plugins;
 
 import java.math.BigDecimal;
-import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import javax.annotation.Nullable;
@@ -12,7 +13,6 @@ import com.Acrobot.ChestShop.Listeners.Economy.EconomyAdapter;
 
 import net.democracycraft.treasury.api.TreasuryApi;
 import net.democracycraft.treasury.model.economy.Account;
-import net.democracycraft.treasury.model.economy.AccountMember;
 import net.democracycraft.treasury.model.economy.TransferRequest;
 import net.democracycraft.treasury.utils.Idempotency;
 
@@ -33,6 +33,7 @@ import com.Acrobot.ChestShop.Events.Economy.CurrencyFormatEvent;
 import com.Acrobot.ChestShop.Events.Economy.CurrencyHoldEvent;
 import com.Acrobot.ChestShop.Events.Economy.CurrencySubtractEvent;
 import com.Acrobot.ChestShop.Events.Economy.CurrencyTransferEvent;
+import com.Acrobot.ChestShop.Events.Economy.EconomyContext;
 import com.Acrobot.ChestShop.UUIDs.NameManager;
 
 /**
@@ -41,12 +42,16 @@ import com.Acrobot.ChestShop.UUIDs.NameManager;
  */
 public class TreasuryListener extends EconomyAdapter {
     private static TreasuryApi treasury;
+    private static TreasuryAccountCache accountCache;
 
     private TreasuryListener() {
+        accountCache = new TreasuryAccountCache(Properties.CACHE_SIZE, Math.max(1, Properties.TREASURY_CACHE_SECONDS), TimeUnit.SECONDS);
         updateProvider();
     }
 
     private void updateProvider() {
+        // The accounts of another provider might be different
+        accountCache.clear();
         RegisteredServiceProvider<TreasuryApi> rsp =
                 Bukkit.getServicesManager().getRegistration(TreasuryApi.class);
         if (rsp != null) {
@@ -63,6 +68,42 @@ public class TreasuryListener extends EconomyAdapter {
         return treasury;
     }
 
+    /**
+     * Get the cached owner and authorization setting of a Treasury account
+     *
+     * @param accountId The ID of the account
+     * @return The account data or <tt>null</tt> if Treasury isn't loaded or there is no account with that ID
+     * @throws Exception if Treasury couldn't get the account
+     */
+    @Nullable
+    public static TreasuryAccountCache.AccountInfo getAccountInfo(int accountId) throws Exception {
+        if (treasury == null || accountCache == null) {
+            return null;
+        }
+        return accountCache.getAccount(treasury, accountId);
+    }
+
+    /**
+     * Check whether the data of a Treasury account (or the lack of one) is cached
+     *
+     * @param accountId The ID of the account
+     * @return Whether or not {@link #getAccountInfo(int)} would be answered without asking Treasury
+     */
+    public static boolean isAccountInfoCached(int accountId) {
+        return accountCache != null && accountCache.isAccountCached(accountId);
+    }
+
+    /**
+     * Get the cached data of a Treasury account without asking Treasury
+     *
+     * @param accountId The ID of the account
+     * @return The account data or <tt>null</tt> if it isn't cached or there is no account with that ID
+     */
+    @Nullable
+    public static TreasuryAccountCache.AccountInfo peekAccountInfo(int accountId) {
+        return accountCache != null ? accountCache.peekAccount(accountId) : null;
+    }
+
     /**
      * Creates a new TreasuryListener if the Treasury plugin is available.
      */
@@ -126,7 +167,7 @@ public class TreasuryListener extends EconomyAdapter {
         }
 
         try {
-            BigDecimal balance = treasury.getBalanceByOwnerUuid(event.getAccount());
+            BigDecimal balance = getBalance(event.getEconomyContext(), event.getAccount());
             event.setAmount(balance);
             event.setHandled(true);
         } catch (Exception e) {
@@ -142,12 +183,12 @@ public class TreasuryListener extends EconomyAdapter {
         }
 
         try {
-            Account account = treasury.getAccountByUUID(event.getAccount());
-            if (account != null) {
-                event.hasEnough(treasury.hasFunds(account.getAccountId(), event.getAmount()));
-            } else {
-                event.hasEnough(false);
-            }
+            UUID owner = event.getAccount();
+            BigDecimal amount = event.getAmount();
+            EconomyContext context = event.getEconomyContext();
+            event.hasEnough(context != null
+                    ? context.hasFunds(owner, amount, () -> hasFunds(owner, amount))
+                    : hasFunds(owner, amount));
             event.setHandled(true);
         } catch (Exception e) {
             ChestShop.getBukkitLogger().log(Level.WARNING,
@@ -162,7 +203,11 @@ public class TreasuryListener extends EconomyAdapter {
         }
 
         try {
-            event.hasAccount(treasury.hasAccountByOwnerUuid(event.getAccount()));
+            UUID owner = event.getAccount();
+            EconomyContext context = event.getEconomyContext();
+            event.hasAccount(context != null
+                    ? context.hasAccount(owner, () -> treasury.hasAccountByOwnerUuid(owner))
+                    : treasury.hasAccountByOwnerUuid(owner));
             event.setHandled(true);
         } catch (Exception e) {
             ChestShop.getBukkitLogger().log(Level.WARNING,
@@ -193,8 +238,8 @@ public class TreasuryListener extends EconomyAdapter {
         }
 
         try {
-            Account targetAccount = treasury.resolveOrCreatePersonal(event.getTarget());
-            if (targetAccount == null) {
+            Integer targetAccountId = accountCache.getPersonalAccountId(treasury, event.getTarget());
+            if (targetAccountId == null) {
                 ChestShop.getBukkitLogger().log(Level.WARNING,
                         "Could not resolve Treasury account for " + event.getTarget());
                 return;
@@ -204,13 +249,13 @@ public class TreasuryListener extends EconomyAdapter {
             // Treasury uses direct transfers, so we use a system-level deposit.
             // We'll transfer from the server economy account if configured, otherwise
             // this is typically used for tax deposits and refunds.
-            Account serverAccount = getServerTreasuryAccount();
-            if (serverAccount != null) {
+            Integer serverAccountId = getServerTreasuryAccountId();
+            if (serverAccountId != null) {
                 byte[] dedup = Idempotency.sha256(
                         "chestshop:add:" + event.getTarget() + ":" + System.nanoTime());
                 TransferRequest req = new TransferRequest(
-                        serverAccount.getAccountId(),
-                        targetAccount.getAccountId(),
+                        serverAccountId,
+                        targetAccountId,
                         event.getAmount(),
                         "ChestShop currency add",
                         event.getTarget(),
@@ -223,6 +268,7 @@ public class TreasuryListener extends EconomyAdapter {
             // Even without a server account, mark as handled since Treasury manages balances
             event.setHandled(true);
         } catch (Exception e) {
+            forgetServerAndOwner(event.getTarget());
             ChestShop.getBukkitLogger().log(Level.WARNING,
                     "Could not add Treasury currency for " + event.getTarget(), e);
         }
@@ -235,20 +281,20 @@ public class TreasuryListener extends EconomyAdapter {
         }
 
         try {
-            Account targetAccount = treasury.resolveOrCreatePersonal(event.getTarget());
-            if (targetAccount == null) {
+            Integer targetAccountId = accountCache.getPersonalAccountId(treasury, event.getTarget());
+            if (targetAccountId == null) {
                 ChestShop.getBukkitLogger().log(Level.WARNING,
                         "Could not resolve Treasury account for " + event.getTarget());
                 return;
             }
 
-            Account serverAccount = getServerTreasuryAccount();
-            if (serverAccount != null) {
+            Integer serverAccountId = getServerTreasuryAccountId();
+            if (serverAccountId != null) {
                 byte[] dedup = Idempotency.sha256(
                         "chestshop:sub:" + event.getTarget() + ":" + System.nanoTime());
                 TransferRequest req = new TransferRequest(
-                        targetAccount.getAccountId(),
-                        serverAccount.getAccountId(),
+                        targetAccountId,
+                        serverAccountId,
                         event.getAmount(),
                         "ChestShop currency subtract",
                         event.getTarget(),
@@ -260,6 +306,7 @@ public class TreasuryListener extends EconomyAdapter {
             }
             event.setHandled(true);
         } catch (Exception e) {
+            forgetServerAndOwner(event.getTarget());
             ChestShop.getBukkitLogger().log(Level.WARNING,
                     "Could not subtract Treasury currency for " + event.getTarget(), e);
         }
@@ -295,13 +342,13 @@ public class TreasuryListener extends EconomyAdapter {
                 senderAccountId = -1;
                 ChestShop.logDebug("Treasury: sender is admin shop, skipping");
             } else {
-                Account senderAccount = treasury.resolveOrCreatePersonal(senderUuid);
+                Integer senderAccount = accountCache.getPersonalAccountId(treasury, senderUuid);
                 if (senderAccount == null) {
                     ChestShop.getBukkitLogger().log(Level.WARNING,
                             "Treasury: Could not resolve personal account for sender " + senderUuid);
                     return;
                 }
-                senderAccountId = senderAccount.getAccountId();
+                senderAccountId = senderAccount;
                 ChestShop.logDebug("Treasury: sender resolved to personal account #" + senderAccountId);
             }
 
@@ -317,13 +364,13 @@ public class TreasuryListener extends EconomyAdapter {
                 receiverAccountId = -1;
                 ChestShop.logDebug("Treasury: receiver is admin shop, skipping");
             } else {
-                Account receiverAccount = treasury.resolveOrCreatePersonal(receiverUuid);
+                Integer receiverAccount = accountCache.getPersonalAccountId(treasury, receiverUuid);
                 if (receiverAccount == null) {
                     ChestShop.getBukkitLogger().log(Level.WARNING,
                             "Treasury: Could not resolve personal account for receiver " + receiverUuid);
                     return;
                 }
-                receiverAccountId = receiverAccount.getAccountId();
+                receiverAccountId = receiverAccount;
                 ChestShop.logDebug("Treasury: receiver resolved to personal account #" + receiverAccountId);
             }
 
@@ -380,17 +427,28 @@ public class TreasuryListener extends EconomyAdapter {
             ChestShop.logDebug("Treasury: transfer completed successfully");
 
         } catch (SecurityException e) {
+            forgetTransferAccounts(event);
             ChestShop.getBukkitLogger().log(Level.WARNING,
                     "Treasury authorization required for transfer", e);
         } catch (IllegalStateException e) {
+            forgetTransferAccounts(event);
             ChestShop.getBukkitLogger().log(Level.WARNING,
                     "Treasury insufficient funds for transfer", e);
         } catch (IllegalArgumentException e) {
+            forgetTransferAccounts(event);
             ChestShop.getBukkitLogger().log(Level.WARNING,
                     "Treasury account not found for transfer", e);
         } catch (Exception e) {
+            forgetTransferAccounts(event);
             ChestShop.getBukkitLogger().log(Level.WARNING,
                     "Could not complete Treasury transfer", e);
+        } finally {
+            // Whether the transfer went through or not, the known balances can't be trusted anymore
+            EconomyContext context = event.getEconomyContext();
+            if (context != null) {
+                context.forgetBalance(event.getSender());
+                context.forgetBalance(event.getReceiver());
+            }
         }
     }
 
@@ -405,6 +463,24 @@ public class TreasuryListener extends EconomyAdapter {
         event.setHandled(true);
     }
 
+    /**
+     * Ask Treasury whether a player's account has enough money, it might not simply compare the balance
+     */
+    private static boolean hasFunds(UUID owner, BigDecimal amount) throws Exception {
+        Account account = treasury.getAccountByUUID(owner);
+        return account != null && treasury.hasFunds(account.getAccountId(), amount);
+    }
+
+    /**
+     * Get the balance of a player's account, through the transaction's context if there is one
+     */
+    private static BigDecimal getBalance(@Nullable EconomyContext context, UUID owner) throws Exception {
+        if (context == null) {
+            return treasury.getBalanceByOwnerUuid(owner);
+        }
+        return context.getBalance(owner, () -> treasury.getBalanceByOwnerUuid(owner));
+    }
+
     /**
      * Resolve the authorizer UUID if either account requires authorization.
      */
@@ -419,36 +495,25 @@ public class TreasuryListener extends EconomyAdapter {
                 return null;
             }
 
-            Account businessAccount = treasury.getAccountById(businessAccountId);
+            TreasuryAccountCache.AccountInfo businessAccount = accountCache.getAccount(treasury, businessAccountId);
             if (businessAccount == null || !businessAccount.isRequiresAuthorization()) {
                 return null;
             }
 
             // Check if the interacting player is an authorizer
-            List<AccountMember> authorizers = treasury.getAuthorizers(businessAccountId);
-            boolean isAuthorized = false;
-            for (AccountMember auth : authorizers) {
-                if (auth.getMemberUuid().equals(playerUuid)) {
-                    isAuthorized = true;
-                    break;
-                }
-            }
-
-            if (isAuthorized) {
+            Set<UUID> authorizers = accountCache.getAuthorizers(treasury, businessAccountId);
+            if (authorizers.contains(playerUuid)) {
                 return playerUuid;
             }
 
             // If the shop owner is the authorizer (for personal interaction)
-            if (businessAccount.getOwnerUuid() != null) {
-                for (AccountMember auth : authorizers) {
-                    if (auth.getMemberUuid().equals(businessAccount.getOwnerUuid())) {
-                        return businessAccount.getOwnerUuid();
-                    }
-                }
+            if (businessAccount.getOwnerUuid() != null && authorizers.contains(businessAccount.getOwnerUuid())) {
+                return businessAccount.getOwnerUuid();
             }
 
             return null;
         } catch (Exception e) {
+            accountCache.invalidateAccount(event.getTreasuryAccountId());
             ChestShop.getBukkitLogger().log(Level.WARNING,
                     "Could not resolve Treasury authorizer", e);
             return null;
@@ -456,14 +521,34 @@ public class TreasuryListener extends EconomyAdapter {
     }
 
     /**
-     * Get the server economy Treasury account, if configured.
+     * Forget the cached accounts of a failed transfer, it might have failed because they changed
+     */
+    private void forgetTransferAccounts(CurrencyTransferEvent event) {
+        accountCache.invalidateOwner(event.getSender());
+        accountCache.invalidateOwner(event.getReceiver());
+        accountCache.invalidateAccount(event.getTreasuryAccountId());
+    }
+
+    /**
+     * Forget the cached personal accounts of a failed transfer from or to the server economy account
+     */
+    private void forgetServerAndOwner(UUID owner) {
+        accountCache.invalidateOwner(owner);
+        com.Acrobot.ChestShop.Database.Account serverAccount = NameManager.getServerEconomyAccount();
+        if (serverAccount != null) {
+            accountCache.invalidateOwner(serverAccount.getUuid());
+        }
+    }
+
+    /**
+     * Get the ID of the server economy Treasury account, if configured.
      */
     @Nullable
-    private Account getServerTreasuryAccount() {
+    private Integer getServerTreasuryAccountId() {
         com.Acrobot.ChestShop.Database.Account serverAccount = NameManager.getServerEconomyAccount();
         if (serverAccount != null) {
             try {
-                return treasury.resolveOrCreatePersonal(serverAccount.getUuid());
+                return accountCache.getPersonalAccountId(treasury, serverAccount.getUuid());
             } catch (Exception e) {
                 ChestShop.getBukkitLogger().log(Level.WARNING,
                         "Could not resolve server Treasury account", e);
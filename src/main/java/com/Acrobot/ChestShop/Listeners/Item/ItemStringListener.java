@@ -1,7 +1,9 @@
 package com.Acrobot.ChestShop.Listeners.Item;
 
 import com.Acrobot.Breeze.Utils.MaterialUtil;
+import com.Acrobot.ChestShop.Events.ChestShopReloadEvent;
 import com.Acrobot.ChestShop.Events.ItemStringQueryEvent;
+import com.Acrobot.ChestShop.Utils.ItemUtil;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
@@ -15,4 +17,9 @@ public class ItemStringListener implements Listener {
         }
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public static void onReload(ChestShopReloadEvent event) {
+        // The config and aliases might have changed, cached names might not be valid anymore
+        ItemUtil.clearNameCache();
+    }
 }
@@ -5,6 +5,8 @@ import com.Acrobot.ChestShop.ChestShop;
 import com.Acrobot.ChestShop.Events.ChestShopReloadEvent;
 import com.Acrobot.ChestShop.Events.ItemParseEvent;
 import com.Acrobot.ChestShop.Events.ItemStringQueryEvent;
+import com.Acrobot.ChestShop.Utils.ItemAliasIndex;
+import com.Acrobot.ChestShop.Utils.ItemUtil;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -15,7 +17,6 @@ import org.bukkit.event.Listener;
 import java.io.File;
 import java.io.IOException;
 import java.util.Locale;
-import java.util.Map;
 import java.util.logging.Level;
 
 import static com.Acrobot.Breeze.Utils.StringUtil.getMinecraftStringWidth;
@@ -29,6 +30,7 @@ public class ItemAliasModule implements Listener {
      * Map ChestShop item code -> alias
      */
     private BiMap<String, String> aliases;
+    private ItemAliasIndex aliasIndex;
 
     public ItemAliasModule() {
         load();
@@ -63,6 +65,9 @@ public class ItemAliasModule implements Listener {
                 aliases.put(key, configuration.getString(key));
             }
         }
+
+        aliasIndex = new ItemAliasIndex(aliases);
+        ItemUtil.clearNameCache();
     }
 
     @EventHandler
@@ -72,32 +77,7 @@ public class ItemAliasModule implements Listener {
 
     @EventHandler(priority = EventPriority.LOW)
     public void onItemParse(ItemParseEvent event) {
-        String code = aliases.inverse().get(event.getItemString());
-        if (code == null) {
-            String[] typeParts = event.getItemString().replaceAll("(?<!^)([A-Z1-9])", "_$1").toUpperCase(Locale.ROOT).split("[ _\\-]");
-            int length = Short.MAX_VALUE;
-            for (Map.Entry<String, String> entry : aliases.entrySet()) {
-                if (entry.getValue().length() < length && entry.getValue().toUpperCase(Locale.ROOT).startsWith(event.getItemString().toUpperCase(Locale.ROOT))) {
-                    length = (short) entry.getValue().length();
-                    code = entry.getKey();
-                } else if (typeParts.length > 1) {
-                    String[] nameParts = entry.getValue().toUpperCase(Locale.ROOT).split("[ _\\-]");
-                    if (typeParts.length == nameParts.length) {
-                        boolean matched = true;
-                        for (int i = 0; i < nameParts.length; i++) {
-                            if (!nameParts[i].startsWith(typeParts[i])) {
-                                matched = false;
-                                break;
-                            }
-                        }
-                        if (matched) {
-                            code = entry.getKey();
-                            break;
-                        }
-                    }
-                }
-            }
-        }
+        String code = aliasIndex.resolve(event.getItemString());
         if (code != null) {
             event.setItem(MaterialUtil.getItem(code));
         }
@@ -5,7 +5,6 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 
-import com.Acrobot.ChestShop.ChestShop;
 import com.Acrobot.ChestShop.UUIDs.NameManager;
 import com.Acrobot.ChestShop.UUIDs.PlayerDTO;
 
@@ -20,12 +19,6 @@ public class PlayerConnect implements Listener {
             NameManager.setUuidVersion(event.getPlayer().getUniqueId().version());
         }
 
-        final PlayerDTO playerDTO = new PlayerDTO(event.getPlayer());
-
-        ChestShop.runInAsyncThread(() -> {
-            if (NameManager.getAccount(playerDTO.getUniqueId()) != null) {
-                NameManager.storeUsername(playerDTO);
-            }
-        });
+        NameManager.queueUsername(new PlayerDTO(event.getPlayer()));
     }
 }
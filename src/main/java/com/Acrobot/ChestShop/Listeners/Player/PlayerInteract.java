@@ -9,14 +9,19 @@ import com.Acrobot.ChestShop.Containers.AdminInventory;
 import com.Acrobot.ChestShop.Database.Account;
 import com.Acrobot.ChestShop.Events.AccountQueryEvent;
 import com.Acrobot.ChestShop.Events.Economy.AccountCheckEvent;
-import com.Acrobot.ChestShop.Events.ItemParseEvent;
+import com.Acrobot.ChestShop.Events.Economy.EconomyContext;
 import com.Acrobot.ChestShop.Events.PreTransactionEvent;
 import com.Acrobot.ChestShop.Events.ShopInfoEvent;
 import com.Acrobot.ChestShop.Events.TransactionEvent;
+import com.Acrobot.ChestShop.Listeners.Economy.Plugins.TreasuryAccountCache;
 import com.Acrobot.ChestShop.Listeners.Economy.Plugins.TreasuryListener;
 import com.Acrobot.ChestShop.Permission;
 import com.Acrobot.ChestShop.Security;
 import com.Acrobot.ChestShop.Signs.ChestShopSign;
+import com.Acrobot.ChestShop.Signs.ShopIndex;
+import com.Acrobot.ChestShop.Signs.ShopSign;
+import com.Acrobot.ChestShop.Signs.ShopSignCache;
+import com.Acrobot.ChestShop.UUIDs.NameManager;
 import com.Acrobot.ChestShop.Utils.ItemUtil;
 import com.Acrobot.ChestShop.Utils.uBlock;
 import java.util.UUID;
@@ -36,10 +41,14 @@ import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
+import javax.annotation.Nullable;
+
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Level;
 
 import static com.Acrobot.Breeze.Utils.ImplementationAdapter.getState;
@@ -59,6 +68,18 @@ public class PlayerInteract implements Listener {
 
     @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
     public static void onInteract(PlayerInteractEvent event) {
+        handleInteract(event, true, null);
+    }
+
+    /**
+     * Handle an interaction with a shop
+     *
+     * @param event        The interaction
+     * @param deferLookups   Whether or not the interaction should be handled later if the owner's account
+     *                       isn't cached yet, instead of loading it while blocking the thread
+     * @param resolvedOwner  The account of the shop owner if it was already resolved for a deferred interaction
+     */
+    private static void handleInteract(PlayerInteractEvent event, boolean deferLookups, @Nullable Account resolvedOwner) {
         Block block = event.getClickedBlock();
         if (block == null)
             return;
@@ -92,6 +113,9 @@ public class PlayerInteract implements Listener {
             return;
         }
 
+        // Make sure shops which were created without a ShopCreatedEvent (e.g. pasted in) are known
+        ShopIndex.register(block);
+
         if (Properties.ALLOW_AUTO_ITEM_FILL && ChatColor.stripColor(ChestShopSign.getItem(sign)).equals(AUTOFILL_CODE)) {
             if (ChestShopSign.hasPermission(player, OTHER_NAME_CREATE, sign)) {
                 ItemStack item = player.getInventory().getItemInMainHand();
@@ -126,6 +150,15 @@ public class PlayerInteract implements Listener {
             return;
         }
 
+        String owner = ChestShopSign.getOwner(sign);
+        // Don't block the server while the owner's account is loaded, the click is handled again once it is.
+        // Clicks which might be vanilla actions can't be replayed, so they are handled right away.
+        if (deferLookups && !owner.isEmpty() && !isOwnerCached(owner) && !mightKeepVanillaAction(player, owner, action)) {
+            event.setCancelled(true);
+            deferInteraction(event, owner);
+            return;
+        }
+
         boolean notAllowedToTrade = ChestShopSign.isOwner(player, sign)
                 || (Properties.IGNORE_ACCESS_PERMS && ChestShopSign.canAccess(player, sign) && !AccessToggle.isIgnoring(player));
         if (notAllowedToTrade && player.getInventory().getItemInMainHand().getType().name().contains("SIGN") && action == RIGHT_CLICK_BLOCK) {
@@ -172,7 +205,7 @@ public class PlayerInteract implements Listener {
         }
 
         //Bukkit.getLogger().info("ChestShop - DEBUG - "+block.getWorld().getName()+": "+block.getLocation().getBlockX()+", "+block.getLocation().getBlockY()+", "+block.getLocation().getBlockZ());
-        PreTransactionEvent pEvent = preparePreTransactionEvent(sign, player, action);
+        PreTransactionEvent pEvent = preparePreTransactionEvent(sign, player, action, resolvedOwner);
         if (pEvent == null)
             return;
 
@@ -184,25 +217,159 @@ public class PlayerInteract implements Listener {
         Bukkit.getPluginManager().callEvent(tEvent);
     }
 
-    private static PreTransactionEvent preparePreTransactionEvent(Sign sign, Player player, Action action) {
-        String name = ChestShopSign.getOwner(sign);
-        String prices = ChestShopSign.getPrice(sign);
-        String material = ChestShopSign.getItem(sign);
+    /**
+     * Check whether the account of a shop owner can be resolved without querying the database or Treasury
+     *
+     * @param owner The owner line of the sign
+     * @return Whether or not everything needed to resolve the account is cached
+     */
+    private static boolean isOwnerCached(String owner) {
+        if (!ChestShopSign.isBusinessAccount(owner)) {
+            return NameManager.isAccountCached(owner, false);
+        }
+
+        int accountId;
+        try {
+            accountId = ChestShopSign.getBusinessAccountId(owner);
+        } catch (NumberFormatException e) {
+            return true;
+        }
+        if (accountId < 0 || TreasuryListener.getTreasuryApi() == null) {
+            return true;
+        }
+        if (!TreasuryListener.isAccountInfoCached(accountId)) {
+            return false;
+        }
+        TreasuryAccountCache.AccountInfo treasuryAccount = TreasuryListener.peekAccountInfo(accountId);
+        return treasuryAccount == null || treasuryAccount.getOwnerUuid() == null || NameManager.isAccountCached(treasuryAccount.getOwnerUuid());
+    }
+
+    /**
+     * Check whether a click on a shop sign might not get cancelled, e.g. because an owner edits, dyes or
+     * breaks the sign. Whether the player is the owner or has access is only guessed from the data that
+     * is available without loading the owner's account.
+     *
+     * @param player The player who clicked
+     * @param owner  The owner line of the sign
+     * @param action The action of the click
+     * @return Whether or not the click might be a vanilla action
+     */
+    private static boolean mightKeepVanillaAction(Player player, String owner, Action action) {
+        if (action == LEFT_CLICK_BLOCK && Properties.TURN_OFF_SIGN_PROTECTION) {
+            return true;
+        }
+        if (!mightBeOwnerOrAccessor(player, owner)) {
+            return false;
+        }
+        if (action == LEFT_CLICK_BLOCK || player.isSneaking() || player.isInsideVehicle()) {
+            return true;
+        }
+        String itemType = player.getInventory().getItemInMainHand().getType().name();
+        return itemType.contains("SIGN") || itemType.endsWith("DYE") || itemType.endsWith("INK_SAC");
+    }
+
+    private static boolean mightBeOwnerOrAccessor(Player player, String owner) {
+        if (ChestShopSign.isBusinessAccount(owner)
+                || player.getName().equalsIgnoreCase(owner)
+                || Permission.otherName(player, Permission.OTHER_NAME_ACCESS, owner)) {
+            return true;
+        }
+        if (!NameManager.isAccountCached(player.getUniqueId())) {
+            return true;
+        }
+        Account account = NameManager.getAccount(player.getUniqueId());
+        return account != null && account.getShortName().equalsIgnoreCase(owner);
+    }
+
+    /**
+     * Load the owner's account asynchronously and then handle the interaction again on the player's thread
+     *
+     * @param event The interaction
+     * @param owner The owner line of the sign
+     */
+    private static void deferInteraction(PlayerInteractEvent event, String owner) {
+        Player player = event.getPlayer();
+        PlayerInteractEvent replay = new PlayerInteractEvent(player, event.getAction(), event.getItem(),
+                event.getClickedBlock(), event.getBlockFace(), event.getHand());
+
+        boolean businessAccount = ChestShopSign.isBusinessAccount(owner);
+        CompletableFuture<Account> lookup;
+        if (businessAccount) {
+            lookup = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return getBusinessOwner(ChestShopSign.getBusinessAccountId(owner));
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, task -> ChestShop.runInAsyncThread("accounts", task));
+        } else {
+            lookup = NameManager.resolveAccount(owner, false);
+        }
+
+        lookup.whenComplete((account, error) -> {
+            if (error != null) {
+                ChestShop.getBukkitLogger().log(Level.WARNING, "Error while loading the account of shop owner " + owner, error);
+            }
+            if (!ChestShop.getPlugin().isEnabled()) {
+                return; // nothing can be scheduled anymore
+            }
+            player.getScheduler().run(ChestShop.getPlugin(), task -> {
+                Account resolvedOwner = account;
+                if (!businessAccount) {
+                    // The lookup only loaded the account, the query's listeners decide which one is used
+                    AccountQueryEvent accountQueryEvent = new AccountQueryEvent(owner);
+                    ChestShop.callEvent(accountQueryEvent);
+                    resolvedOwner = accountQueryEvent.getAccount();
+                }
+                handleInteract(replay, false, resolvedOwner);
+            }, null);
+        });
+    }
+
+    /**
+     * Get the ChestShop account of the owner of a Treasury business account, it is created if it doesn't exist yet.
+     * This queries Treasury and the database if the accounts aren't cached!
+     *
+     * @param accountId The ID of the Treasury account
+     * @return The account of the owner or <tt>null</tt> if the Treasury account or its owner doesn't exist
+     * @throws Exception if Treasury couldn't get the account
+     */
+    @Nullable
+    private static Account getBusinessOwner(int accountId) throws Exception {
+        TreasuryAccountCache.AccountInfo treasuryAccount = accountId >= 0 ? TreasuryListener.getAccountInfo(accountId) : null;
+        if (treasuryAccount == null || treasuryAccount.getOwnerUuid() == null) {
+            return null;
+        }
+        UUID ownerUuid = treasuryAccount.getOwnerUuid();
+        Account account = NameManager.getAccount(ownerUuid);
+        if (account == null) {
+            account = NameManager.getOrCreateAccount(Bukkit.getOfflinePlayer(ownerUuid));
+        }
+        return account;
+    }
+
+    private static PreTransactionEvent preparePreTransactionEvent(Sign sign, Player player, Action action, @Nullable Account resolvedOwner) {
+        ShopSign shopSign = ShopSignCache.get(sign);
+        String name = shopSign.getOwner();
 
         int treasuryAccountId = -1;
         Account account = null;
+        EconomyContext economyContext = new EconomyContext();
 
         // Handle business account format (B:<accountId>)
-        if (ChestShopSign.isBusinessAccount(name)) {
-            net.democracycraft.treasury.api.TreasuryApi treasury = TreasuryListener.getTreasuryApi();
-            if (treasury == null) {
+        if (shopSign.isBusinessAccount()) {
+            if (TreasuryListener.getTreasuryApi() == null) {
                 Messages.INVALID_SHOP_DETECTED.sendWithPrefix(player);
                 return null;
             }
 
             try {
-                int bizAccountId = ChestShopSign.getBusinessAccountId(name);
-                net.democracycraft.treasury.model.economy.Account treasuryAccount = treasury.getAccountById(bizAccountId);
+                int bizAccountId = shopSign.getBusinessAccountId();
+                if (bizAccountId < 0) {
+                    Messages.INVALID_SHOP_DETECTED.sendWithPrefix(player);
+                    return null;
+                }
+                TreasuryAccountCache.AccountInfo treasuryAccount = TreasuryListener.getAccountInfo(bizAccountId);
                 if (treasuryAccount == null || treasuryAccount.getOwnerUuid() == null) {
                     Messages.INVALID_SHOP_DETECTED.sendWithPrefix(player);
                     return null;
@@ -210,16 +377,16 @@ public class PlayerInteract implements Listener {
 
                 // Resolve ChestShop Account from the Treasury account's owner UUID
                 UUID ownerUuid = treasuryAccount.getOwnerUuid();
-                account = com.Acrobot.ChestShop.UUIDs.NameManager.getAccount(ownerUuid);
-                if (account == null) {
-                    account = com.Acrobot.ChestShop.UUIDs.NameManager.getOrCreateAccount(
-                            Bukkit.getOfflinePlayer(ownerUuid));
-                }
+                account = resolvedOwner != null && ownerUuid.equals(resolvedOwner.getUuid())
+                        ? resolvedOwner
+                        : getBusinessOwner(bizAccountId);
                 treasuryAccountId = bizAccountId;
             } catch (Exception e) {
                 Messages.INVALID_SHOP_DETECTED.sendWithPrefix(player);
                 return null;
             }
+        } else if (resolvedOwner != null) {
+            account = resolvedOwner;
         } else {
             AccountQueryEvent accountQueryEvent = new AccountQueryEvent(name);
             Bukkit.getPluginManager().callEvent(accountQueryEvent);
@@ -231,11 +398,12 @@ public class PlayerInteract implements Listener {
             return null;
         }
 
-        boolean adminShop = ChestShopSign.isAdminShop(sign);
+        boolean adminShop = shopSign.isAdminShop();
 
         // check if player exists in economy (skip for business accounts - Treasury manages them)
         if (!adminShop && treasuryAccountId < 0) {
             AccountCheckEvent event = new AccountCheckEvent(account.getUuid(), player.getWorld());
+            event.setEconomyContext(economyContext);
             Bukkit.getPluginManager().callEvent(event);
             if(!event.hasAccount()) {
                 Messages.NO_ECONOMY_ACCOUNT.sendWithPrefix(player);
@@ -244,24 +412,18 @@ public class PlayerInteract implements Listener {
         }
 
         Action buy = Properties.REVERSE_BUTTONS ? LEFT_CLICK_BLOCK : RIGHT_CLICK_BLOCK;
-        BigDecimal price = (action == buy ? PriceUtil.getExactBuyPrice(prices) : PriceUtil.getExactSellPrice(prices));
+        BigDecimal price = (action == buy ? shopSign.getBuyPrice() : shopSign.getSellPrice());
 
         Container shopBlock = uBlock.findConnectedContainer(sign);
         Inventory ownerInventory = shopBlock != null ? shopBlock.getInventory() : null;
 
-        ItemParseEvent parseEvent = new ItemParseEvent(material);
-        Bukkit.getPluginManager().callEvent(parseEvent);
-        ItemStack item = parseEvent.getItem();
+        ItemStack item = shopSign.getItem();
         if (item == null) {
             Messages.INVALID_SHOP_DETECTED.sendWithPrefix(player);
             return null;
         }
 
-        int amount = -1;
-        try {
-            amount = ChestShopSign.getQuantity(sign);
-        } catch (NumberFormatException ignored) {} // There is no quantity number on the sign
-
+        int amount = shopSign.getQuantity();
         if (amount < 1 || amount > Properties.MAX_SHOP_AMOUNT) {
             Messages.INVALID_SHOP_PRICE.sendWithPrefix(player);
             return null;
@@ -307,6 +469,7 @@ public class PlayerInteract implements Listener {
         if (treasuryAccountId >= 0) {
             pte.setTreasuryAccountId(treasuryAccountId);
         }
+        pte.setEconomyContext(economyContext);
         return pte;
     }
 
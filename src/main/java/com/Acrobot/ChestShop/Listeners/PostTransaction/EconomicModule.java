@@ -25,6 +25,7 @@ public class EconomicModule implements Listener {
         if (event.getTreasuryAccountId() >= 0) {
             currencyTransferEvent.setTreasuryAccountId(event.getTreasuryAccountId());
         }
+        currencyTransferEvent.setEconomyContext(event.getEconomyContext());
         ChestShop.callEvent(currencyTransferEvent);
         if (!currencyTransferEvent.wasHandled()) {
             event.setCancelled(true);
@@ -1,5 +1,6 @@
 package com.Acrobot.ChestShop.Listeners.PostTransaction;
 
+import com.Acrobot.Breeze.Utils.InventoryCount;
 import com.Acrobot.Breeze.Utils.InventoryUtil;
 import com.Acrobot.ChestShop.ChestShop;
 import com.Acrobot.ChestShop.Configuration.Properties;
@@ -71,14 +72,16 @@ public class EmptyShopDeleter implements Listener {
 
     private static boolean shopShouldBeRemoved(Inventory inventory, ItemStack[] stock) {
         if (Properties.REMOVE_EMPTY_SHOPS) {
+            // The items were already transferred, the inventory has to be counted again
+            InventoryCount count = InventoryCount.of(inventory, stock);
             if (Properties.ALLOW_PARTIAL_TRANSACTIONS) {
-                for (ItemStack itemStack : stock) {
-                    if (inventory.containsAtLeast(itemStack, 1)) {
+                for (int i = 0; i < count.getTargetCount(); i++) {
+                    if (count.getAmount(i) > 0) {
                         return false;
                     }
                 }
                 return true;
-            } else if (!InventoryUtil.hasItems(stock, inventory)) {
+            } else if (!count.hasItems()) {
                 return true;
             }
         }
@@ -1,13 +1,10 @@
 package com.Acrobot.ChestShop.Listeners.PreTransaction;
 
-import com.Acrobot.Breeze.Utils.InventoryUtil;
 import com.Acrobot.ChestShop.ChestShop;
 import com.Acrobot.ChestShop.Events.Economy.CurrencyCheckEvent;
 import com.Acrobot.ChestShop.Events.PreTransactionEvent;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
-import org.bukkit.inventory.Inventory;
-import org.bukkit.inventory.ItemStack;
 
 import java.math.BigDecimal;
 
@@ -26,10 +23,8 @@ public class AmountAndPriceChecker implements Listener {
             return;
         }
 
-        ItemStack[] stock = event.getStock();
-        Inventory ownerInventory = event.getOwnerInventory();
-
         CurrencyCheckEvent currencyCheckEvent = new CurrencyCheckEvent(event.getExactPrice(), event.getClient());
+        currencyCheckEvent.setEconomyContext(event.getEconomyContext());
         ChestShop.callEvent(currencyCheckEvent);
 
         if (!currencyCheckEvent.hasEnough()) {
@@ -37,7 +32,7 @@ public class AmountAndPriceChecker implements Listener {
             return;
         }
 
-        if (!InventoryUtil.hasItems(stock, ownerInventory)) {
+        if (!event.getOwnerCount().hasItems()) {
             event.setCancelled(NOT_ENOUGH_STOCK_IN_CHEST);
         }
     }
@@ -48,12 +43,10 @@ public class AmountAndPriceChecker implements Listener {
             return;
         }
 
-        ItemStack[] stock = event.getStock();
-        Inventory clientInventory = event.getClientInventory();
-
         CurrencyCheckEvent currencyCheckEvent = new CurrencyCheckEvent(event.getExactPrice(),
                                                         event.getOwnerAccount().getUuid(),
                                                         event.getSign().getWorld());
+        currencyCheckEvent.setEconomyContext(event.getEconomyContext());
         ChestShop.callEvent(currencyCheckEvent);
 
         if (!currencyCheckEvent.hasEnough()) {
@@ -61,7 +54,7 @@ public class AmountAndPriceChecker implements Listener {
             return;
         }
 
-        if (!InventoryUtil.hasItems(stock, clientInventory)) {
+        if (!event.getClientCount().hasItems()) {
             event.setCancelled(NOT_ENOUGH_STOCK_IN_INVENTORY);
         }
     }
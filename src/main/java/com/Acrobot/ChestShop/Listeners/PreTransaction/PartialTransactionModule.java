@@ -1,5 +1,6 @@
 package com.Acrobot.ChestShop.Listeners.PreTransaction;
 
+import com.Acrobot.Breeze.Utils.InventoryCount;
 import com.Acrobot.Breeze.Utils.InventoryUtil;
 import com.Acrobot.Breeze.Utils.MaterialUtil;
 import com.Acrobot.ChestShop.ChestShop;
@@ -13,7 +14,6 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
 import java.math.BigDecimal;
@@ -22,7 +22,6 @@ import java.math.RoundingMode;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
 import static com.Acrobot.ChestShop.Events.PreTransactionEvent.TransactionOutcome.*;
@@ -50,11 +49,13 @@ public class PartialTransactionModule implements Listener {
         BigDecimal pricePerItem = event.getExactPrice().divide(BigDecimal.valueOf(itemCount), MathContext.DECIMAL128);
 
         CurrencyAmountEvent currencyAmountEvent = new CurrencyAmountEvent(client);
+        currencyAmountEvent.setEconomyContext(event.getEconomyContext());
         ChestShop.callEvent(currencyAmountEvent);
 
         BigDecimal walletMoney = currencyAmountEvent.getAmount();
 
         CurrencyCheckEvent currencyCheckEvent = new CurrencyCheckEvent(event.getExactPrice(), client);
+        currencyCheckEvent.setEconomyContext(event.getEconomyContext());
         ChestShop.callEvent(currencyCheckEvent);
 
         if (!currencyCheckEvent.hasEnough()) {
@@ -75,8 +76,9 @@ public class PartialTransactionModule implements Listener {
             event.setStock(getCountedItemStack(event.getStock(), amountAffordable));
         }
 
-        if (!InventoryUtil.hasItems(event.getStock(), event.getOwnerInventory())) {
-            ItemStack[] itemsHad = getItems(event.getStock(), event.getOwnerInventory());
+        InventoryCount ownerCount = event.getOwnerCount();
+        if (!ownerCount.hasItems()) {
+            ItemStack[] itemsHad = getItems(ownerCount);
             int possessedItemCount = InventoryUtil.countItems(itemsHad);
 
             if (possessedItemCount <= 0) {
@@ -94,8 +96,9 @@ public class PartialTransactionModule implements Listener {
             event.setStock(itemsHad);
         }
 
-        if (!InventoryUtil.fits(event.getStock(), event.getClientInventory())) {
-            ItemStack[] itemsFit = getItemsThatFit(event.getStock(), event.getClientInventory());
+        InventoryCount clientCount = event.getClientCount();
+        if (!clientCount.fits()) {
+            ItemStack[] itemsFit = getItemsThatFit(clientCount);
             int possessedItemCount = InventoryUtil.countItems(itemsFit);
             if (possessedItemCount <= 0) {
                 event.setCancelled(NOT_ENOUGH_SPACE_IN_INVENTORY);
@@ -115,6 +118,7 @@ public class PartialTransactionModule implements Listener {
         UUID seller = event.getOwnerAccount().getUuid();
 
         CurrencyHoldEvent currencyHoldEvent = new CurrencyHoldEvent(event.getExactPrice(), seller, client.getWorld());
+        currencyHoldEvent.setEconomyContext(event.getEconomyContext());
         ChestShop.callEvent(currencyHoldEvent);
 
         if (!currencyHoldEvent.canHold()) {
@@ -141,10 +145,12 @@ public class PartialTransactionModule implements Listener {
 
         if (Economy.isOwnerEconomicallyActive(event.getOwnerInventory())) {
             CurrencyCheckEvent currencyCheckEvent = new CurrencyCheckEvent(event.getExactPrice(), owner, client.getWorld());
+            currencyCheckEvent.setEconomyContext(event.getEconomyContext());
             ChestShop.callEvent(currencyCheckEvent);
 
             if (!currencyCheckEvent.hasEnough()) {
                 CurrencyAmountEvent currencyAmountEvent = new CurrencyAmountEvent(owner, client.getWorld());
+                currencyAmountEvent.setEconomyContext(event.getEconomyContext());
                 ChestShop.callEvent(currencyAmountEvent);
 
                 BigDecimal walletMoney = currencyAmountEvent.getAmount();
@@ -166,8 +172,9 @@ public class PartialTransactionModule implements Listener {
             }
         }
 
-        if (!InventoryUtil.hasItems(event.getStock(), event.getClientInventory())) {
-            ItemStack[] itemsHad = getItems(event.getStock(), event.getClientInventory());
+        InventoryCount clientCount = event.getClientCount();
+        if (!clientCount.hasItems()) {
+            ItemStack[] itemsHad = getItems(clientCount);
             int possessedItemCount = InventoryUtil.countItems(itemsHad);
 
             if (possessedItemCount <= 0) {
@@ -185,8 +192,9 @@ public class PartialTransactionModule implements Listener {
             event.setStock(itemsHad);
         }
 
-        if (!InventoryUtil.fits(event.getStock(), event.getOwnerInventory())) {
-            ItemStack[] itemsFit = getItemsThatFit(event.getStock(), event.getOwnerInventory());
+        InventoryCount ownerCount = event.getOwnerCount();
+        if (!ownerCount.fits()) {
+            ItemStack[] itemsFit = getItemsThatFit(ownerCount);
             int possessedItemCount = InventoryUtil.countItems(itemsFit);
             if (possessedItemCount <= 0) {
                 event.setCancelled(NOT_ENOUGH_SPACE_IN_CHEST);
@@ -204,6 +212,7 @@ public class PartialTransactionModule implements Listener {
         }
 
         CurrencyHoldEvent currencyHoldEvent = new CurrencyHoldEvent(event.getExactPrice(), client);
+        currencyHoldEvent.setEconomyContext(event.getEconomyContext());
         ChestShop.callEvent(currencyHoldEvent);
 
         if (!currencyHoldEvent.canHold()) {
@@ -215,13 +224,12 @@ public class PartialTransactionModule implements Listener {
         return walletMoney.divide(pricePerItem, 0, RoundingMode.FLOOR).intValueExact();
     }
 
-    private static ItemStack[] getItems(ItemStack[] stock, Inventory inventory) {
+    private static ItemStack[] getItems(InventoryCount count) {
         List<ItemStack> toReturn = new LinkedList<>();
 
-        for (Map.Entry<ItemStack, Integer> entry : InventoryUtil.getItemCounts(stock).entrySet()) {
-            int amount = InventoryUtil.getAmount(entry.getKey(), inventory);
-            Collections.addAll(toReturn, InventoryUtil.getItemStacked(entry.getKey(),
-                    Math.min(amount, entry.getValue())));
+        for (int i = 0; i < count.getTargetCount(); i++) {
+            Collections.addAll(toReturn, InventoryUtil.getItemStacked(count.getTarget(i),
+                    Math.min(count.getAmount(i), count.getWanted(i))));
         }
 
         return toReturn.toArray(new ItemStack[0]);
@@ -279,27 +287,19 @@ public class PartialTransactionModule implements Listener {
     /**
      * Make an array of items fit into an inventory.
      *
-     * @param stock     The items to fit in the inventory
-     * @param inventory The inventory to fit it in
-     * @return Whether or not the items fit into the inventory
+     * @param count The counted stock in the inventory to fit it in
+     * @return The part of the stock that fits into the inventory
      */
-    private static ItemStack[] getItemsThatFit(ItemStack[] stock, Inventory inventory) {
+    private static ItemStack[] getItemsThatFit(InventoryCount count) {
         List<ItemStack> resultStock = new LinkedList<>();
 
-        int emptySlots = InventoryUtil.countEmpty(inventory);
+        int emptySlots = count.getEmptySlots();
 
-        for (Map.Entry<ItemStack, Integer> entry : InventoryUtil.getItemCounts(stock).entrySet()) {
-            ItemStack item = entry.getKey();
-            int amount = entry.getValue();
+        for (int i = 0; i < count.getTargetCount(); i++) {
+            ItemStack item = count.getTarget(i);
+            int amount = count.getWanted(i);
             int maxStackSize = InventoryUtil.getMaxStackSize(item);
-            int free = 0;
-            for (ItemStack itemInInventory : inventory.getContents()) {
-                if (MaterialUtil.equals(item, itemInInventory)) {
-                    if (itemInInventory != null) {
-                        free += (maxStackSize - itemInInventory.getAmount()) % maxStackSize;
-                    }
-                }
-            }
+            int free = Math.max(0, count.getStackSpace(i));
 
             if (free == 0 && emptySlots == 0) {
                 continue;
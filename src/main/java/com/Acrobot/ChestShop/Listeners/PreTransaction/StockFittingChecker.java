@@ -1,12 +1,8 @@
 package com.Acrobot.ChestShop.Listeners.PreTransaction;
 
-import com.Acrobot.Breeze.Utils.InventoryUtil;
-import com.Acrobot.ChestShop.Database.Item;
 import com.Acrobot.ChestShop.Events.PreTransactionEvent;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
-import org.bukkit.inventory.Inventory;
-import org.bukkit.inventory.ItemStack;
 
 import static com.Acrobot.ChestShop.Events.PreTransactionEvent.TransactionOutcome.NOT_ENOUGH_SPACE_IN_CHEST;
 import static com.Acrobot.ChestShop.Events.PreTransactionEvent.TransactionOutcome.NOT_ENOUGH_SPACE_IN_INVENTORY;
@@ -23,10 +19,7 @@ public class StockFittingChecker implements Listener {
             return;
         }
 
-        Inventory shopInventory = event.getOwnerInventory();
-        ItemStack[] stock = event.getStock();
-
-        if (!InventoryUtil.fits(stock, shopInventory)) {
+        if (!event.getOwnerCount().fits()) {
             event.setCancelled(NOT_ENOUGH_SPACE_IN_CHEST);
         }
     }
@@ -37,10 +30,7 @@ public class StockFittingChecker implements Listener {
             return;
         }
 
-        Inventory clientInventory = event.getClientInventory();
-        ItemStack[] stock = event.getStock();
-
-        if (!InventoryUtil.fits(stock, clientInventory)) {
+        if (!event.getClientCount().fits()) {
             event.setCancelled(NOT_ENOUGH_SPACE_IN_INVENTORY);
         }
     }
@@ -21,7 +21,7 @@ public class ShopRemovalLogger implements Listener {
             return;
         }
 
-        ChestShop.runInAsyncThread(() -> {
+        ChestShop.runInAsyncThread("logging", () -> {
             String shopOwner = ChestShopSign.getOwner(event.getSign());
             String typeOfShop = ChestShopSign.isAdminShop(shopOwner) ? "An Admin Shop" : "A shop belonging to " + shopOwner;
 
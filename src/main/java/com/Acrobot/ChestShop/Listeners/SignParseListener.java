@@ -1,12 +1,12 @@
 package com.Acrobot.ChestShop.Listeners;
 
 import com.Acrobot.Breeze.Utils.MaterialUtil;
-import com.Acrobot.Breeze.Utils.StringUtil;
 import com.Acrobot.ChestShop.Configuration.Properties;
 import com.Acrobot.ChestShop.Events.ItemParseEvent;
 import com.Acrobot.ChestShop.Events.MaterialParseEvent;
 import com.Acrobot.ChestShop.Events.SignValidationEvent;
 import com.Acrobot.ChestShop.Signs.ChestShopSign;
+import com.Acrobot.ChestShop.Signs.SignLineParser;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
@@ -15,6 +15,8 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class SignParseListener implements Listener {
+    private static final Pattern PLAYERNAME_WITH_ID_PATTERN = Pattern.compile("^(.+):[A-Za-z0-9]+$"); // regexp to match ':' and a base62 encoded string
+    private static volatile Pattern playernamePattern = null;
 
     @EventHandler(priority = EventPriority.NORMAL)
     public static void onItemParse(ItemParseEvent event) {
@@ -38,9 +40,7 @@ public class SignParseListener implements Listener {
         // If the shop owner is not blank (auto-filled) or the admin shop string, we need to validate it
         if ((!ChestShopSign.isAdminShop(ownerName)) && (!ownerName.isEmpty())) {
 
-            // Prepare regexp patterns
-            Pattern playernamePattern = Pattern.compile(Properties.VALID_PLAYERNAME_REGEXP); // regexp from config file
-            Matcher playernameWithIdMatcher = Pattern.compile("^(.+):[A-Za-z0-9]+$").matcher(ownerName); // regexp to match ':' and a base62 encoded string
+            Matcher playernameWithIdMatcher = PLAYERNAME_WITH_ID_PATTERN.matcher(ownerName);
             // Check if the owner name has an ID. This can happen on duplicate or too long names
             if (playernameWithIdMatcher.matches()) {
                 // Owner name matches the id pattern, so validate everything before the last ':'
@@ -48,29 +48,30 @@ public class SignParseListener implements Listener {
             }
 
             // If the owner name doesn't match, this is not a valid sign
-            if (!playernamePattern.matcher(ownerName).matches()) {
+            if (!getPlayernamePattern().matcher(ownerName).matches()) {
                 event.setValid(false);
                 return;
             }
         }
 
-        // The owner name on the first line is valid. Now validate the last 3 lines against the predefined regexp patterns.
-        for (int i = 0; i < 3; i++) {
-            boolean matches = false;
-            for (Pattern pattern : ChestShopSign.SHOP_SIGN_PATTERN[i]) {
-                if (pattern.matcher(StringUtil.strip(StringUtil.stripColourCodes(lines[i + 1]))).matches()) {
-                    matches = true;
-                    break;
-                }
-            }
-            if (!matches) {
-                event.setValid(false);
-                return;
-            }
-        }
+        // The owner name on the first line is valid. Now validate the last 3 lines.
+        // The price line parser only accepts lines with at most one ':' so this is a valid prepared sign if all lines parse.
+        event.setValid(SignLineParser.isValidQuantityLine(ChestShopSign.getQuantityLine(lines))
+                && SignLineParser.isValidPriceLine(ChestShopSign.getPrice(lines))
+                && SignLineParser.isValidItemLine(ChestShopSign.getItem(lines)));
+    }
 
-        // All lines are looking good. If the price line contains only one ':', then this is a valid prepared sign.
-        String priceLine = ChestShopSign.getPrice(lines);
-        event.setValid(priceLine.indexOf(':') == priceLine.lastIndexOf(':'));
+    /**
+     * Get the compiled player name pattern from the config. It is only compiled again when the config value changed.
+     *
+     * @return The player name pattern
+     */
+    private static Pattern getPlayernamePattern() {
+        Pattern pattern = playernamePattern;
+        if (pattern == null || !pattern.pattern().equals(Properties.VALID_PLAYERNAME_REGEXP)) {
+            pattern = Pattern.compile(Properties.VALID_PLAYERNAME_REGEXP); // regexp from config file
+            playernamePattern = pattern;
+        }
+        return pattern;
     }
 }
@@ -0,0 +1,40 @@
+package com.Acrobot.ChestShop.Metadata;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.io.IOException;
+
+/**
+ * Converts items to and from the codes which are stored in the item database.
+ * <p>
+ * Codecs are registered in {@link ItemCodecs}, either directly or by a
+ * {@link com.Acrobot.ChestShop.Utils.VersionAdapter} which also implements this interface.
+ */
+public interface ItemCodec {
+
+    /**
+     * The format version of this codec. It is written in front of every code so that
+     * the correct codec can be chosen when reading it again. Higher versions are preferred.
+     *
+     * @return The format version, has to be larger than {@link ItemCodecs#LEGACY_VERSION}
+     */
+    int getVersion();
+
+    /**
+     * Encode an item
+     *
+     * @param item The item to encode
+     * @return The encoded item without the version header
+     * @throws IOException If the item couldn't be encoded
+     */
+    String encode(ItemStack item) throws IOException;
+
+    /**
+     * Decode an item
+     *
+     * @param code The encoded item without the version header
+     * @return The decoded item
+     * @throws IOException If the code couldn't be decoded
+     */
+    ItemStack decode(String code) throws IOException;
+}
@@ -0,0 +1,143 @@
+package com.Acrobot.ChestShop.Metadata;
+
+import com.Acrobot.ChestShop.Configuration.Properties;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the available {@link ItemCodec}s and chooses the right one for reading and writing item codes.
+ * <p>
+ * Codes written by a versioned codec start with a header like <tt>v2:</tt>, codes without one are in the
+ * {@link YamlItemCodec legacy format}. (Those always start with <tt>rO0</tt> so they can't be confused)
+ */
+public class ItemCodecs {
+    public static final int LEGACY_VERSION = 1;
+
+    private static final char HEADER_START = 'v';
+    private static final char HEADER_END = ':';
+
+    private static final YamlItemCodec LEGACY = new YamlItemCodec();
+    private static final Map<Integer, ItemCodec> CODECS = new ConcurrentHashMap<>();
+    private static volatile ItemCodec latest = LEGACY;
+
+    /**
+     * Register a codec. If it has the highest version it will be used for all newly written items.
+     *
+     * @param codec The codec to register
+     */
+    public static synchronized void register(ItemCodec codec) {
+        if (codec.getVersion() <= LEGACY_VERSION) {
+            throw new IllegalArgumentException("Codec version " + codec.getVersion() + " of " + codec.getClass().getSimpleName() + " is reserved!");
+        }
+        CODECS.put(codec.getVersion(), codec);
+        if (codec.getVersion() > latest.getVersion()) {
+            latest = codec;
+        }
+    }
+
+    /**
+     * @return The legacy YAML codec
+     */
+    public static YamlItemCodec getLegacy() {
+        return LEGACY;
+    }
+
+    /**
+     * @return All codecs which are available on this server, including the legacy one
+     */
+    public static List<ItemCodec> getAvailable() {
+        List<ItemCodec> codecs = new ArrayList<>(CODECS.values());
+        codecs.add(LEGACY);
+        return codecs;
+    }
+
+    /**
+     * @return The codec which is used for writing items
+     */
+    public static ItemCodec getPreferred() {
+        return Properties.USE_BINARY_ITEM_FORMAT ? latest : LEGACY;
+    }
+
+    /**
+     * Encode an item with the preferred codec
+     *
+     * @param item The item
+     * @return The code including its version header
+     * @throws IOException If the item couldn't be encoded
+     */
+    public static String encode(ItemStack item) throws IOException {
+        return encode(getPreferred(), item);
+    }
+
+    /**
+     * Encode an item with a specific codec
+     *
+     * @param codec The codec
+     * @param item  The item
+     * @return The code including its version header
+     * @throws IOException If the item couldn't be encoded
+     */
+    public static String encode(ItemCodec codec, ItemStack item) throws IOException {
+        String code = codec.encode(item);
+        if (codec.getVersion() == LEGACY_VERSION) {
+            return code;
+        }
+        return HEADER_START + String.valueOf(codec.getVersion()) + HEADER_END + code;
+    }
+
+    /**
+     * Decode an item with the codec that it was encoded with
+     *
+     * @param code The code including its version header
+     * @return The decoded item
+     * @throws IOException If the code couldn't be decoded or its codec isn't available on this server
+     */
+    public static ItemStack decode(String code) throws IOException {
+        int version = getVersion(code);
+        if (version == LEGACY_VERSION) {
+            return LEGACY.decode(code);
+        }
+
+        ItemCodec codec = CODECS.get(version);
+        if (codec == null) {
+            throw new IOException("Item format version " + version + " is not supported by this server!");
+        }
+        return codec.decode(code.substring(code.indexOf(HEADER_END) + 1));
+    }
+
+    /**
+     * Get the format version of a code
+     *
+     * @param code The code
+     * @return The version from the code's header or {@link #LEGACY_VERSION} if it has none
+     */
+    public static int getVersion(String code) {
+        if (code.isEmpty() || code.charAt(0) != HEADER_START) {
+            return LEGACY_VERSION;
+        }
+        int end = code.indexOf(HEADER_END);
+        if (end < 2) {
+            return LEGACY_VERSION;
+        }
+        try {
+            return Integer.parseInt(code.substring(1, end));
+        } catch (NumberFormatException e) {
+            return LEGACY_VERSION;
+        }
+    }
+
+    /**
+     * Check whether a code is written in the preferred format
+     *
+     * @param code The code
+     * @return Whether or not the code doesn't need to be upgraded
+     */
+    public static boolean isPreferredFormat(String code) {
+        return getVersion(code) == getPreferred().getVersion();
+    }
+}
@@ -1,70 +1,142 @@
 package com.Acrobot.ChestShop.Metadata;
 
+import com.Acrobot.Breeze.Collection.WeightedCache;
 import com.Acrobot.Breeze.Utils.Encoding.Base62;
-import com.Acrobot.Breeze.Utils.Encoding.Base64;
 import com.Acrobot.ChestShop.ChestShop;
+import com.Acrobot.ChestShop.Configuration.Properties;
 import com.Acrobot.ChestShop.Database.DaoCreator;
+import com.Acrobot.ChestShop.Database.Invalidation.Invalidation;
 import com.Acrobot.ChestShop.Database.Item;
-import com.j256.ormlite.dao.CloseableIterator;
 import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.stmt.SelectArg;
 import org.bukkit.Material;
 import org.bukkit.configuration.file.YamlConfiguration;
-import org.bukkit.configuration.file.YamlConstructor;
-import org.bukkit.configuration.file.YamlRepresenter;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.Damageable;
 import org.bukkit.inventory.meta.ItemMeta;
-import org.yaml.snakeyaml.DumperOptions;
-import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.error.YAMLException;
-import org.yaml.snakeyaml.nodes.Tag;
 
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 /**
  * Saves items with Metadata in database, which allows for saving items on signs easily.
+ * The items are encoded with the {@link ItemCodecs#getPreferred() preferred codec},
+ * items in older formats are upgraded when they are loaded.
  *
  * @author Acrobot
  */
 public class ItemDatabase {
+    private static final String RECENT_ITEMS_FILE = "recent-items.yml";
+    /**
+     * How often storing a new item is tried when another item with the same hash is stored at the same time
+     */
+    private static final int MAX_CREATE_ATTEMPTS = 3;
+
     private Dao<Item, Integer> itemDao;
 
-    private final Yaml yaml;
+    private volatile MetadataMigration migration = null;
+
+    /**
+     * Item ID -> decoded item. The cached items are never handed out directly, only clones of them.
+     */
+    private final WeightedCache<Integer, ItemStack> itemCache;
 
     public ItemDatabase() {
-        yaml = new Yaml(new YamlBukkitConstructor(), new YamlRepresenter(), new DumperOptions());
+        itemCache = new WeightedCache<>(Properties.ITEM_CACHE_SIZE, Properties.ITEM_CACHE_MAX_KILOBYTES * 1024L);
 
         try {
             itemDao = DaoCreator.getDaoAndCreateTable(Item.class);
+            ChestShop.getInvalidationBus().subscribe(Invalidation.Topic.ITEM, this::invalidate);
             handleMetadataUpdate();
+            if (Properties.ITEM_CACHE_WARMUP) {
+                warmUpCache();
+            }
         } catch (SQLException e) {
             ChestShop.getBukkitLogger().log(Level.SEVERE, "Error while loading items database", e);
         }
     }
 
-    private void handleMetadataUpdate() {
-        File configFile = ChestShop.loadFile("version");
-        YamlConfiguration versionConfig = YamlConfiguration.loadConfiguration(configFile);
-
-        int previousVersion = versionConfig.getInt("metadata-version", -1);
-        int newVersion = getCurrentMetadataVersion();
-        if (previousVersion < newVersion) {
-            if (updateMetadataVersion(previousVersion, newVersion)) {
-                versionConfig.set("metadata-version", newVersion);
-                try {
-                    versionConfig.save(configFile);
-                } catch (IOException e) {
-                    ChestShop.getBukkitLogger().log(Level.SEVERE, "Error while updating metadata-version from " + previousVersion + " to " + newVersion, e);
+    /**
+     * Load the items which were used most recently before the last shutdown into the cache
+     */
+    private void warmUpCache() {
+        File recentItemsFile = new File(ChestShop.getFolder(), RECENT_ITEMS_FILE);
+        if (!recentItemsFile.exists()) {
+            return;
+        }
+
+        List<Integer> ids = YamlConfiguration.loadConfiguration(recentItemsFile).getIntegerList("items");
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        ChestShop.runInAsyncThread("item database", () -> {
+            int loaded = 0;
+            for (int id : ids) {
+                if (loadItem(id) != null) {
+                    loaded++;
                 }
-            } else {
-                ChestShop.getBukkitLogger().log(Level.WARNING, "Error while updating Item Metadata database! While the plugin will still run it will work less efficiently.");
             }
+            ChestShop.logDebug("Loaded " + loaded + " recently used items into the item cache");
+        });
+    }
+
+    /**
+     * Save the IDs of the most recently used items so that they can be loaded into the cache on the next startup
+     */
+    public void saveRecentlyUsed() {
+        if (!Properties.ITEM_CACHE_WARMUP) {
+            return;
+        }
+
+        YamlConfiguration recentItems = new YamlConfiguration();
+        recentItems.set("items", itemCache.getKeys());
+        try {
+            recentItems.save(new File(ChestShop.getFolder(), RECENT_ITEMS_FILE));
+        } catch (IOException e) {
+            ChestShop.getBukkitLogger().log(Level.WARNING, "Unable to save the recently used items", e);
+        }
+    }
+
+    /**
+     * @return The amount of item lookups which were answered from the cache
+     */
+    public long getCacheHits() {
+        return itemCache.getHits();
+    }
+
+    /**
+     * @return The amount of item lookups which needed to load the item from the database
+     */
+    public long getCacheMisses() {
+        return itemCache.getMisses();
+    }
+
+    /**
+     * @return The amount of cached items
+     */
+    public int getCacheSize() {
+        return itemCache.size();
+    }
+
+    private void handleMetadataUpdate() {
+        migration = MetadataMigration.create(this, itemDao, getCurrentMetadataVersion());
+        if (migration != null) {
+            ChestShop.runInAsyncThread("item migration", migration);
+        }
+    }
+
+    /**
+     * Stop the background update of the items' metadata version. It will continue on the next start.
+     */
+    public void stopMetadataMigration() {
+        if (migration != null) {
+            migration.stop();
         }
     }
 
@@ -79,58 +151,6 @@ public class ItemDatabase {
         return (int) serialized.getOrDefault("v", -1);
     }
 
-    private boolean updateMetadataVersion(int previousVersion, int newVersion) {
-        if (previousVersion > -1) {
-            ChestShop.getBukkitLogger().info("Data version change detected! Previous version was " + previousVersion);
-        }
-        ChestShop.getBukkitLogger().info("Updating Item Metadata database to data version " + newVersion + "...");
-
-        AtomicInteger i = new AtomicInteger();
-        AtomicInteger updated = new AtomicInteger();
-        CloseableIterator<Item> it = itemDao.iterator();
-
-        long start = System.currentTimeMillis();
-        try {
-            itemDao.callBatchTasks(() -> {
-                while (it.hasNext()) {
-                    i.getAndIncrement();
-                    Item item = it.next();
-
-                    try {
-                        String serialized = (String) Base64.decodeToObject(item.getBase64ItemCode());
-                        if (previousVersion < 0 || !serialized.contains("\nv: " + newVersion + "\n")) { // Hacky way to quickly check the version as it's not too big of an issue if some items don't convert
-                            try {
-                                ItemStack itemStack = yaml.loadAs(serialized, ItemStack.class);
-                                item.setBase64ItemCode(Base64.encodeObject(yaml.dump(itemStack)));
-                                itemDao.update(item);
-                                updated.getAndIncrement();
-                            } catch (RuntimeException e) {
-                                ChestShop.getBukkitLogger().log(Level.SEVERE, "YAML of the item with ID " + Base62.encode(item.getId()) + " (" + item.getId() + ") is corrupted: \n" + serialized + "\n" + e.getMessage());
-                            }
-                        }
-                    } catch (IOException | ClassNotFoundException | SQLException e) {
-                        ChestShop.getBukkitLogger().log(Level.SEVERE, "Unable to convert item with ID " + Base62.encode(item.getId()) + " (" + item.getId() + ")", e);
-                    } catch (StackOverflowError e) {
-                        ChestShop.getBukkitLogger().log(Level.SEVERE, "Item with ID " + Base62.encode(item.getId()) + " (" + item.getId() + ") is corrupted. Sorry :(");
-                    }
-                    if (i.get() % 1000 == 0) {
-                        ChestShop.getBukkitLogger().info("Checked " + i + " items. Updated " + updated + "...");
-                    }
-                }
-                return true;
-            });
-        } catch (Exception e) {
-            ChestShop.getBukkitLogger().log(Level.SEVERE, "Unable to update metadata version of all items from " + previousVersion + " to " + newVersion, e);
-            return false;
-        } finally {
-            it.closeQuietly();
-        }
-
-        ChestShop.getBukkitLogger().info("Finished updating database in " + (System.currentTimeMillis() - start) / 1000.0 + "s. " +
-                updated + " items out of " + i + " were updated!");
-        return true;
-    }
-
     /**
      * Gets the item code for this item
      *
@@ -150,26 +170,120 @@ public class ItemDatabase {
                 }
             }
 
-            String dumped = yaml.dump(clone);
-            ItemStack loadedItem = yaml.loadAs(dumped, ItemStack.class);
-            if (!loadedItem.isSimilar(item)) {
-                dumped = yaml.dump(loadedItem);
-            }
-            String code = Base64.encodeObject(dumped);
+            ItemCodec preferred = ItemCodecs.getPreferred();
+            String code = encode(preferred, clone, item);
 
-            Item itemEntity = itemDao.queryBuilder().where().eq("code", new SelectArg(code)).queryForFirst();
+            Item itemEntity = findItem(code);
             if (itemEntity == null) {
-                itemEntity = new Item(code);
-                itemDao.create(itemEntity);
+                itemEntity = findItemInOtherFormats(preferred, clone, item);
+            }
+            if (itemEntity == null) {
+                itemEntity = createItem(code);
             }
             return Base62.encode(itemEntity.getId());
-        } catch (SQLException | IOException e) {
+        } catch (SQLException | IOException | YAMLException e) {
             ChestShop.getBukkitLogger().log(Level.SEVERE, "Unable to get code of item " + item, e);
         }
 
         return null;
     }
 
+    /**
+     * Store a new item. If another thread or server stored the same item in the meantime then that one is returned.
+     *
+     * @param code The code of the item
+     * @return The stored item entity
+     * @throws SQLException If the item couldn't be stored
+     */
+    private Item createItem(String code) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            Item itemEntity = new Item(code);
+            if (itemDao.queryBuilder().where().eq("hash", new SelectArg(itemEntity.getHash())).countOf() > 0) {
+                // Another item has the same hash already, this one can only be found by its full code
+                itemEntity.setHash(null);
+            }
+            try {
+                itemDao.create(itemEntity);
+                return itemEntity;
+            } catch (SQLException e) {
+                // The hash is unique, so creating fails if the same item was stored since it was looked up
+                Item existing = findItem(code);
+                if (existing != null) {
+                    return existing;
+                }
+                if (attempt >= MAX_CREATE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Encode an item the same way whenever it is stored. If decoding the code doesn't result in the
+     * same item then the decoded one is encoded again, as that is what will be loaded later.
+     *
+     * @param codec The codec to encode the item with
+     * @param clone The copy of the item to encode
+     * @param item  The original item
+     * @return The code of the item
+     * @throws IOException If the item couldn't be encoded
+     */
+    private static String encode(ItemCodec codec, ItemStack clone, ItemStack item) throws IOException {
+        String code = ItemCodecs.encode(codec, clone);
+        ItemStack loadedItem = ItemCodecs.decode(code);
+        if (!loadedItem.isSimilar(item)) {
+            code = ItemCodecs.encode(codec, loadedItem);
+        }
+        return code;
+    }
+
+    /**
+     * Find an item which is stored in another format than the preferred one. Items are only converted
+     * when they are loaded, so the rows of items which weren't used since the preferred format changed
+     * still have the hash of their old code.
+     *
+     * @param preferred The preferred codec which was already checked
+     * @param clone     The copy of the item to encode
+     * @param item      The original item
+     * @return The item entity or <tt>null</tt> if it isn't stored in any other format
+     * @throws SQLException If the database couldn't be queried
+     */
+    private Item findItemInOtherFormats(ItemCodec preferred, ItemStack clone, ItemStack item) throws SQLException {
+        for (ItemCodec codec : ItemCodecs.getAvailable()) {
+            if (codec == preferred) {
+                continue;
+            }
+            String code;
+            try {
+                code = encode(codec, clone, item);
+            } catch (IOException | RuntimeException e) {
+                continue; // the item can't be stored in that format, so it can't have been stored in it before
+            }
+            Item itemEntity = findItem(code);
+            if (itemEntity != null) {
+                return itemEntity;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the item entity with the exact code. Looks the item up by the code's hash and only
+     * compares the full codes of the items without a hash if there happens to be a hash collision.
+     * Both lookups use the index of the hash column.
+     *
+     * @param code The Base64 code of the item
+     * @return The item entity or <tt>null</tt> if there is none with that code
+     * @throws SQLException If the database couldn't be queried
+     */
+    private Item findItem(String code) throws SQLException {
+        Item itemEntity = itemDao.queryBuilder().where().eq("hash", new SelectArg(Item.getHash(code))).queryForFirst();
+        if (itemEntity == null || itemEntity.getBase64ItemCode().equals(code)) {
+            return itemEntity;
+        }
+        return itemDao.queryBuilder().where().isNull("hash").and().eq("code", new SelectArg(code)).queryForFirst();
+    }
+
     /**
      * Gets an ItemStack from a item code
      *
@@ -178,9 +292,31 @@ public class ItemDatabase {
      */
     public ItemStack getFromCode(String code)
     {
+        int id = Base62.decode(code);
+
+        ItemStack item = itemCache.get(id);
+        if (item == null) {
+            item = loadItem(id);
+            if (item == null) {
+                return null;
+            }
+        }
+
+        return item.clone();
+    }
+
+    /**
+     * Load an item from the database and add it to the cache.
+     * Items which aren't stored in the preferred format or weren't reached by the metadata migration yet
+     * are upgraded asynchronously.
+     *
+     * @param id The item's ID
+     * @return The loaded item which must not be modified, or <tt>null</tt> if it couldn't be loaded
+     */
+    private ItemStack loadItem(int id) {
         // TODO java.lang.StackOverflowError - http://pastebin.com/eRD8wUFM - Corrupt item DB?
 
-        int id = Base62.decode(code);
+        String code = Base62.encode(id);
         try {
             Item item = itemDao.queryBuilder().where().eq("id", new SelectArg(id)).queryForFirst();
 
@@ -191,11 +327,29 @@ public class ItemDatabase {
             String serialized = item.getBase64ItemCode();
 
             try {
-                return yaml.loadAs((String) Base64.decodeToObject(serialized), ItemStack.class);
+                ItemStack itemStack = ItemCodecs.decode(serialized);
+                if (itemStack != null) {
+                    itemCache.put(id, itemStack, serialized.length());
+                    MetadataMigration migration = this.migration;
+                    if (!ItemCodecs.isPreferredFormat(serialized) || (migration != null && migration.isOutdated(id))) {
+                        if (migration != null) {
+                            migration.markUpgraded(id);
+                        }
+                        ItemStack upgraded = itemStack.clone();
+                        ChestShop.runInAsyncThread("item database", () -> {
+                            try {
+                                upgradeItem(item, upgraded);
+                            } catch (IOException | SQLException | RuntimeException e) {
+                                ChestShop.getBukkitLogger().log(Level.WARNING, "Unable to convert item with ID " + code + " (" + id + ") to the new format", e);
+                            }
+                        });
+                    }
+                }
+                return itemStack;
             } catch (YAMLException e) {
                 ChestShop.getBukkitLogger().log(Level.SEVERE, "YAML of the item with ID " + Base62.encode(item.getId()) + " (" + item.getId() + ") is corrupted: \n" + serialized);
             }
-        } catch (IOException | ClassNotFoundException | SQLException | YAMLException e) {
+        } catch (IOException | SQLException | RuntimeException e) {
             ChestShop.getBukkitLogger().log(Level.SEVERE, "Unable to load item with ID " + code + " (" + id + ")", e);
         } catch (StackOverflowError e) {
             ChestShop.getBukkitLogger().log(Level.SEVERE, "Item with ID " + code + " (" + id + ") is corrupted. Sorry :(");
@@ -204,10 +358,48 @@ public class ItemDatabase {
         return null;
     }
 
-    private static class YamlBukkitConstructor extends YamlConstructor {
-        public YamlBukkitConstructor() {
-            this.yamlConstructors.put(new Tag(Tag.PREFIX + "org.bukkit.inventory.ItemStack"), yamlConstructors.get(Tag.MAP));
+    /**
+     * Store an item again with the preferred codec. Its ID stays the same so that signs with its code still work.
+     *
+     * @param item      The item entity
+     * @param itemStack The decoded item
+     * @throws IOException  If the item couldn't be encoded
+     * @throws SQLException If the database couldn't be updated
+     */
+    private void upgradeItem(Item item, ItemStack itemStack) throws IOException, SQLException {
+        item.setBase64ItemCode(ItemCodecs.encode(itemStack));
+        updateItem(item);
+    }
+
+    /**
+     * Write the changed code of an item to the database
+     *
+     * @param item The item entity
+     * @throws SQLException If the database couldn't be updated
+     */
+    void updateItem(Item item) throws SQLException {
+        if (itemDao.queryBuilder().where().eq("hash", new SelectArg(item.getHash())).and().ne("id", item.getId()).countOf() > 0) {
+            // The updated item is the same as another one now, keep that one as the one to be found by hash
+            item.setHash(null);
         }
+        itemDao.update(item);
+        ChestShop.getInvalidationBus().publish(Invalidation.Topic.ITEM, String.valueOf(item.getId()));
+    }
 
+    /**
+     * Remove an item whose code another server changed from the cache
+     *
+     * @param invalidation The invalidation with the item's ID
+     */
+    private void invalidate(Invalidation invalidation) {
+        if (invalidation.isAll()) {
+            itemCache.clear();
+            return;
+        }
+        for (String key : invalidation.getKeys()) {
+            try {
+                itemCache.remove(Integer.parseInt(key));
+            } catch (NumberFormatException ignored) {}
+        }
     }
 }
@@ -0,0 +1,430 @@
+package com.Acrobot.ChestShop.Metadata;
+
+import com.Acrobot.Breeze.Utils.Encoding.Base62;
+import com.Acrobot.ChestShop.ChestShop;
+import com.Acrobot.ChestShop.Configuration.Properties;
+import com.Acrobot.ChestShop.Database.ConnectionManager;
+import com.Acrobot.ChestShop.Database.Item;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.db.DatabaseType;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Re-encodes all items of the database after a data version change in the background.
+ * <p>
+ * The items are converted on a pool of worker threads and written back in batches. After every batch the
+ * last processed ID is saved so that the migration continues there after a restart. The progress is kept in
+ * the version file, or in the database itself if it is shared by multiple servers. In that case only the
+ * server holding the migration's lease converts and upgrades items.
+ * Items which are used before the migration reached them are upgraded by the {@link ItemDatabase} itself.
+ */
+class MetadataMigration implements Runnable {
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String VERSION_KEY = "metadata-version";
+    private static final String CHECKPOINT_SECTION = "metadata-migration";
+    private static final String TARGET_VERSION_KEY = CHECKPOINT_SECTION + ".target-version";
+    private static final String PREVIOUS_VERSION_KEY = CHECKPOINT_SECTION + ".previous-version";
+    private static final String LAST_ID_KEY = CHECKPOINT_SECTION + ".last-id";
+
+    private final ItemDatabase itemDatabase;
+    private final Dao<Item, Integer> itemDao;
+    private final Progress progress;
+    private final int previousVersion;
+    private final int newVersion;
+
+    /**
+     * IDs of items which were already upgraded on access and can be skipped
+     */
+    private final Set<Integer> upgradedIds = ConcurrentHashMap.newKeySet();
+
+    private volatile int lastId;
+    private volatile boolean running = true;
+    private volatile boolean stopped = false;
+
+    private MetadataMigration(ItemDatabase itemDatabase, Dao<Item, Integer> itemDao, Progress progress, int previousVersion, int newVersion, int lastId) {
+        this.itemDatabase = itemDatabase;
+        this.itemDao = itemDao;
+        this.progress = progress;
+        this.previousVersion = previousVersion;
+        this.newVersion = newVersion;
+        this.lastId = lastId;
+    }
+
+    /**
+     * Create the migration for the current data version, continuing an unfinished one if possible
+     *
+     * @param itemDatabase The item database
+     * @param itemDao      The DAO of the items
+     * @param newVersion   The current data version
+     * @return The migration or <tt>null</tt> if the items are up to date or another server is updating them
+     */
+    static MetadataMigration create(ItemDatabase itemDatabase, Dao<Item, Integer> itemDao, int newVersion) {
+        Progress progress;
+        int previousVersion;
+        int lastId = 0;
+        try {
+            progress = Properties.DATABASE_BACKEND.isSharedStore() ? new StoreProgress(itemDao) : new FileProgress();
+
+            previousVersion = progress.get(VERSION_KEY, -1);
+            if (previousVersion >= newVersion) {
+                return null;
+            }
+
+            if (!progress.acquire()) {
+                ChestShop.getBukkitLogger().info("Another server is updating the Item Metadata database to a new data version");
+                return null;
+            }
+
+            int targetVersion = progress.get(TARGET_VERSION_KEY, -1);
+            if (targetVersion > -1) {
+                // Always convert from the oldest version that might still be in the database
+                previousVersion = progress.get(PREVIOUS_VERSION_KEY, previousVersion);
+                if (targetVersion == newVersion) {
+                    lastId = progress.get(LAST_ID_KEY, 0);
+                }
+            }
+        } catch (SQLException e) {
+            ChestShop.getBukkitLogger().log(Level.SEVERE, "Unable to read the progress of the Item Metadata database update", e);
+            return null;
+        }
+
+        if (previousVersion > -1) {
+            ChestShop.getBukkitLogger().info("Data version change detected! Previous version was " + previousVersion);
+        }
+        if (lastId > 0) {
+            ChestShop.getBukkitLogger().info("Continuing to update Item Metadata database to data version " + newVersion + " after item " + lastId + " in the background...");
+        } else {
+            ChestShop.getBukkitLogger().info("Updating Item Metadata database to data version " + newVersion + " in the background...");
+        }
+        return new MetadataMigration(itemDatabase, itemDao, progress, previousVersion, newVersion, lastId);
+    }
+
+    @Override
+    public void run() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ChestShop Item Migration");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        int checked = 0;
+        int updated = 0;
+        long start = System.currentTimeMillis();
+        try {
+            if (!saveCheckpoint()) {
+                return;
+            }
+            while (!stopped) {
+                List<Item> batch = itemDao.queryBuilder().orderBy("id", true).limit((long) BATCH_SIZE).where().gt("id", lastId).query();
+                if (batch.isEmpty()) {
+                    finish();
+                    ChestShop.getBukkitLogger().info("Finished updating database in " + (System.currentTimeMillis() - start) / 1000.0 + "s. " +
+                            updated + " items out of " + checked + " were updated!");
+                    return;
+                }
+
+                List<Future<String>> codes = new ArrayList<>(batch.size());
+                for (Item item : batch) {
+                    codes.add(workers.submit(() -> convert(item)));
+                }
+
+                List<Item> changed = new ArrayList<>();
+                for (int i = 0; i < batch.size(); i++) {
+                    String code = codes.get(i).get();
+                    if (code != null) {
+                        Item item = batch.get(i);
+                        item.setBase64ItemCode(code);
+                        changed.add(item);
+                    }
+                }
+
+                if (!changed.isEmpty()) {
+                    itemDao.callBatchTasks(() -> {
+                        for (Item item : changed) {
+                            if (!upgradedIds.contains(item.getId())) {
+                                itemDatabase.updateItem(item);
+                            }
+                        }
+                        return null;
+                    });
+                }
+
+                checked += batch.size();
+                updated += changed.size();
+                lastId = batch.get(batch.size() - 1).getId();
+                if (!saveCheckpoint()) {
+                    return;
+                }
+                ChestShop.getBukkitLogger().info("Checked " + checked + " items. Updated " + updated + "...");
+            }
+            ChestShop.getBukkitLogger().info("Paused updating the Item Metadata database after item " + lastId + ", it will continue on the next start.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            ChestShop.getBukkitLogger().log(Level.SEVERE, "Unable to update metadata version of all items from " + previousVersion + " to " + newVersion
+                    + ". It will be tried again after item " + lastId + " on the next start.", e);
+        } finally {
+            running = false;
+            workers.shutdownNow();
+            progress.release();
+        }
+    }
+
+    /**
+     * Decode and re-encode an item if it isn't up to date
+     *
+     * @param item The item entity
+     * @return The new code or <tt>null</tt> if the item doesn't need to or couldn't be updated
+     */
+    private String convert(Item item) {
+        if (upgradedIds.contains(item.getId())) {
+            return null;
+        }
+
+        String code = item.getBase64ItemCode();
+        try {
+            if (ItemCodecs.getVersion(code) == ItemCodecs.LEGACY_VERSION) {
+                String serialized = ItemCodecs.getLegacy().getYaml(code);
+                if (previousVersion > -1 && serialized.contains("\nv: " + newVersion + "\n") && ItemCodecs.isPreferredFormat(code)) { // Hacky way to quickly check the version as it's not too big of an issue if some items don't convert
+                    return null;
+                }
+                try {
+                    return ItemCodecs.encode(ItemCodecs.getLegacy().decode(code));
+                } catch (RuntimeException e) {
+                    ChestShop.getBukkitLogger().log(Level.SEVERE, "YAML of the item with ID " + Base62.encode(item.getId()) + " (" + item.getId() + ") is corrupted: \n" + serialized + "\n" + e.getMessage());
+                    return null;
+                }
+            }
+            // Versioned formats can't be checked quickly, re-encoding them stores them with the new data version
+            return ItemCodecs.encode(ItemCodecs.decode(code));
+        } catch (IOException | RuntimeException e) {
+            ChestShop.getBukkitLogger().log(Level.SEVERE, "Unable to convert item with ID " + Base62.encode(item.getId()) + " (" + item.getId() + ")", e);
+        } catch (StackOverflowError e) {
+            ChestShop.getBukkitLogger().log(Level.SEVERE, "Item with ID " + Base62.encode(item.getId()) + " (" + item.getId() + ") is corrupted. Sorry :(");
+        }
+        return null;
+    }
+
+    /**
+     * Check whether an item still needs to be upgraded because the migration hasn't reached it yet
+     *
+     * @param id The item's ID
+     * @return Whether or not the item is outdated
+     */
+    boolean isOutdated(int id) {
+        return running && id > lastId && !upgradedIds.contains(id);
+    }
+
+    /**
+     * Mark an item as upgraded so that the migration skips it
+     *
+     * @param id The item's ID
+     */
+    void markUpgraded(int id) {
+        upgradedIds.add(id);
+    }
+
+    /**
+     * Stop the migration after the current batch, it will continue on the next start
+     */
+    void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Save the progress and renew the lease of the migration
+     *
+     * @return Whether or not this server may continue the migration
+     * @throws SQLException If the progress couldn't be saved in the database
+     */
+    private synchronized boolean saveCheckpoint() throws SQLException {
+        if (!progress.acquire()) {
+            ChestShop.getBukkitLogger().warning("Another server took over updating the Item Metadata database after item " + lastId);
+            return false;
+        }
+        progress.saveCheckpoint(newVersion, previousVersion, lastId);
+        return true;
+    }
+
+    private synchronized void finish() throws SQLException {
+        progress.finish(newVersion);
+    }
+
+    /**
+     * Where the version of the items and the progress of their migration is stored
+     */
+    private interface Progress {
+        /**
+         * @param key          The key of the value
+         * @param defaultValue The value to return if none is stored
+         * @return The stored value
+         * @throws SQLException If the value couldn't be read
+         */
+        int get(String key, int defaultValue) throws SQLException;
+
+        /**
+         * Make sure that only this server runs the migration, called before it starts and after every batch
+         *
+         * @return Whether or not this server may run the migration
+         * @throws SQLException If the lease couldn't be checked
+         */
+        boolean acquire() throws SQLException;
+
+        /**
+         * Let other servers run the migration
+         */
+        void release();
+
+        void saveCheckpoint(int targetVersion, int previousVersion, int lastId) throws SQLException;
+
+        void finish(int version) throws SQLException;
+    }
+
+    /**
+     * Keeps the progress in the local version file
+     */
+    private static class FileProgress implements Progress {
+        private final File versionFile = ChestShop.loadFile("version");
+        private final YamlConfiguration versionConfig = YamlConfiguration.loadConfiguration(versionFile);
+
+        @Override
+        public int get(String key, int defaultValue) {
+            return versionConfig.getInt(key, defaultValue);
+        }
+
+        @Override
+        public boolean acquire() {
+            return true;
+        }
+
+        @Override
+        public void release() {}
+
+        @Override
+        public void saveCheckpoint(int targetVersion, int previousVersion, int lastId) {
+            versionConfig.set(TARGET_VERSION_KEY, targetVersion);
+            versionConfig.set(PREVIOUS_VERSION_KEY, previousVersion);
+            versionConfig.set(LAST_ID_KEY, lastId);
+            save();
+        }
+
+        @Override
+        public void finish(int version) {
+            versionConfig.set(VERSION_KEY, version);
+            versionConfig.set(CHECKPOINT_SECTION, null);
+            save();
+        }
+
+        private void save() {
+            try {
+                versionConfig.save(versionFile);
+            } catch (IOException e) {
+                ChestShop.getBukkitLogger().log(Level.SEVERE, "Error while saving the progress of the metadata-version update", e);
+            }
+        }
+    }
+
+    /**
+     * Keeps the progress in a table of the shared database, so that the items are only converted once for all
+     * servers using it. The server running the migration holds a lease which it renews after every batch, if it
+     * stops without finishing then another server can continue once the lease expired.
+     */
+    private static class StoreProgress implements Progress {
+        private static final long LEASE_TIME = TimeUnit.MINUTES.toMillis(5);
+        private static final String LEASE_KEY = "metadata-migration.lease";
+
+        private final Dao<Item, Integer> dao;
+        private final String table;
+        private final String nameColumn;
+        private final String valueColumn;
+        private final String ownerColumn;
+        private final String owner = UUID.randomUUID().toString();
+
+        private StoreProgress(Dao<Item, Integer> dao) throws SQLException {
+            this.dao = dao;
+            DatabaseType databaseType = dao.getConnectionSource().getDatabaseType();
+            table = escape(databaseType, ConnectionManager.getTablePrefix() + "metadata_migration");
+            nameColumn = escape(databaseType, "name");
+            valueColumn = escape(databaseType, "value");
+            ownerColumn = escape(databaseType, "owner");
+            dao.executeRawNoArgs("CREATE TABLE IF NOT EXISTS " + table + " (" + nameColumn + " VARCHAR(64) NOT NULL PRIMARY KEY, "
+                    + valueColumn + " BIGINT NOT NULL, " + ownerColumn + " VARCHAR(36))");
+        }
+
+        @Override
+        public int get(String key, int defaultValue) throws SQLException {
+            String[] row = getRow(key);
+            return row != null ? Integer.parseInt(row[0]) : defaultValue;
+        }
+
+        @Override
+        public boolean acquire() throws SQLException {
+            if (getRow(LEASE_KEY) == null) {
+                try {
+                    dao.executeRaw("INSERT INTO " + table + " (" + nameColumn + ", " + valueColumn + ", " + ownerColumn + ") VALUES (?, 0, '')", LEASE_KEY);
+                } catch (SQLException ignored) {
+                    // Another server created it at the same time
+                }
+            }
+            long now = System.currentTimeMillis();
+            return dao.updateRaw("UPDATE " + table + " SET " + valueColumn + " = " + (now + LEASE_TIME) + ", " + ownerColumn + " = ?"
+                    + " WHERE " + nameColumn + " = ? AND (" + valueColumn + " < " + now + " OR " + ownerColumn + " = ?)", owner, LEASE_KEY, owner) == 1;
+        }
+
+        @Override
+        public void release() {
+            try {
+                dao.updateRaw("UPDATE " + table + " SET " + valueColumn + " = 0 WHERE " + nameColumn + " = ? AND " + ownerColumn + " = ?", LEASE_KEY, owner);
+            } catch (SQLException e) {
+                ChestShop.getBukkitLogger().log(Level.WARNING, "Unable to release the lease of the Item Metadata database update, other servers can continue it once it expired", e);
+            }
+        }
+
+        @Override
+        public void saveCheckpoint(int targetVersion, int previousVersion, int lastId) throws SQLException {
+            set(TARGET_VERSION_KEY, targetVersion);
+            set(PREVIOUS_VERSION_KEY, previousVersion);
+            set(LAST_ID_KEY, lastId);
+        }
+
+        @Override
+        public void finish(int version) throws SQLException {
+            set(VERSION_KEY, version);
+            dao.executeRaw("DELETE FROM " + table + " WHERE " + nameColumn + " IN (?, ?, ?)", TARGET_VERSION_KEY, PREVIOUS_VERSION_KEY, LAST_ID_KEY);
+        }
+
+        private String[] getRow(String key) throws SQLException {
+            // Closes the results itself
+            return dao.queryRaw("SELECT " + valueColumn + " FROM " + table + " WHERE " + nameColumn + " = ?", key).getFirstResult();
+        }
+
+        private void set(String key, int value) throws SQLException {
+            if (dao.updateRaw("UPDATE " + table + " SET " + valueColumn + " = " + value + " WHERE " + nameColumn + " = ?", key) == 0) {
+                dao.executeRaw("INSERT INTO " + table + " (" + nameColumn + ", " + valueColumn + ") VALUES (?, " + value + ")", key);
+            }
+        }
+
+        private static String escape(DatabaseType databaseType, String name) {
+            StringBuilder builder = new StringBuilder();
+            databaseType.appendEscapedEntityName(builder, name);
+            return builder.toString();
+        }
+    }
+}
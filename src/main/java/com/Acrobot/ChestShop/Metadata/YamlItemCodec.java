@@ -0,0 +1,63 @@
+package com.Acrobot.ChestShop.Metadata;
+
+import com.Acrobot.Breeze.Utils.Encoding.Base64;
+import org.bukkit.configuration.file.YamlConstructor;
+import org.bukkit.configuration.file.YamlRepresenter;
+import org.bukkit.inventory.ItemStack;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.nodes.Tag;
+
+import java.io.IOException;
+
+/**
+ * The original item format: the YAML dump of the item stored as a Base64 encoded serialized Java string.
+ * This format works on every server but is very large, its codes don't have a version header.
+ */
+public class YamlItemCodec implements ItemCodec {
+    // Yaml instances aren't thread safe
+    private final ThreadLocal<Yaml> yaml = ThreadLocal.withInitial(
+            () -> new Yaml(new YamlBukkitConstructor(), new YamlRepresenter(), new DumperOptions())
+    );
+
+    @Override
+    public int getVersion() {
+        return ItemCodecs.LEGACY_VERSION;
+    }
+
+    @Override
+    public String encode(ItemStack item) throws IOException {
+        return Base64.encodeObject(yaml.get().dump(item));
+    }
+
+    @Override
+    public ItemStack decode(String code) throws IOException {
+        try {
+            return yaml.get().loadAs((String) Base64.decodeToObject(code), ItemStack.class);
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Get the YAML of an encoded item without parsing it
+     *
+     * @param code The encoded item
+     * @return The YAML of the item
+     * @throws IOException If the code couldn't be decoded
+     */
+    public String getYaml(String code) throws IOException {
+        try {
+            return (String) Base64.decodeToObject(code);
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static class YamlBukkitConstructor extends YamlConstructor {
+        public YamlBukkitConstructor() {
+            this.yamlConstructors.put(new Tag(Tag.PREFIX + "org.bukkit.inventory.ItemStack"), yamlConstructors.get(Tag.MAP));
+        }
+
+    }
+}
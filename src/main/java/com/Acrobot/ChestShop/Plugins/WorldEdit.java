@@ -0,0 +1,58 @@
+package com.Acrobot.ChestShop.Plugins;
+
+import com.Acrobot.ChestShop.Signs.ShopIndex;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.event.extent.EditSessionEvent;
+import com.sk89q.worldedit.extent.AbstractDelegateExtent;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.eventbus.Subscribe;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import org.bukkit.World;
+
+/**
+ * Makes the {@link ShopIndex} forget the chunks that WorldEdit places signs in,
+ * as these signs might be shops which were created without any events.
+ *
+ * @author Acrobot
+ */
+public class WorldEdit {
+
+    public static void register() {
+        com.sk89q.worldedit.WorldEdit.getInstance().getEventBus().register(new WorldEdit());
+    }
+
+    @Subscribe
+    public void onEditSession(EditSessionEvent event) {
+        if (event.getWorld() != null && event.getStage() == EditSession.Stage.BEFORE_CHANGE) {
+            event.setExtent(new SignTrackingExtent(event.getExtent(), BukkitAdapter.adapt(event.getWorld())));
+        }
+    }
+
+    private static class SignTrackingExtent extends AbstractDelegateExtent {
+        private final World world;
+        private long lastChunk = Long.MIN_VALUE;
+
+        private SignTrackingExtent(Extent extent, World world) {
+            super(extent);
+            this.world = world;
+        }
+
+        @Override
+        public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
+            boolean changed = super.setBlock(location, block);
+            if (changed && block.getBlockType().getId().endsWith("_sign")) {
+                int chunkX = location.getBlockX() >> 4;
+                int chunkZ = location.getBlockZ() >> 4;
+                long chunk = ShopIndex.chunkKey(chunkX, chunkZ);
+                if (chunk != lastChunk) {
+                    lastChunk = chunk;
+                    ShopIndex.invalidate(world, chunkX, chunkZ);
+                }
+            }
+            return changed;
+        }
+    }
+}
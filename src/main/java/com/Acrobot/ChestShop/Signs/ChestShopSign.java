@@ -137,7 +137,7 @@ public class ChestShopSign {
     }
 
     public static boolean isValid(Sign sign) {
-        return isValid(sign.getLines());
+        return ShopSignCache.get(sign).isValid();
     }
 
     public static boolean isValid(String[] lines) {
@@ -0,0 +1,637 @@
+package com.Acrobot.ChestShop.Signs;
+
+import com.Acrobot.Breeze.Collection.LongHashMap;
+import com.Acrobot.Breeze.Utils.BlockUtil;
+import com.Acrobot.Breeze.Utils.ImplementationAdapter;
+import com.Acrobot.ChestShop.ChestShop;
+import com.Acrobot.ChestShop.Configuration.Properties;
+import com.Acrobot.ChestShop.Events.ShopCreatedEvent;
+import com.Acrobot.ChestShop.Events.ShopDestroyedEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Sign;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.SignChangeEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps track of the positions of all shop signs in loaded chunks so that finding
+ * the shop signs connected to a block doesn't require loading the neighbouring blocks.
+ * <p>
+ * Every shop sign is registered at its own position and at the positions of its six neighbours,
+ * which are all the blocks that {@link com.Acrobot.ChestShop.Utils.uBlock} searches a shop sign from.
+ * Chunks are indexed on their region's thread after they load and dropped again when they unload. Chunks which
+ * aren't indexed yet (e.g. because they were loaded before the plugin or changed by WorldEdit) are <i>unknown</i>:
+ * lookups in them say so, and the callers then fall back to checking the blocks themselves.
+ * <p>
+ * Signs which other plugins, commands or structure blocks write without any events can't be seen by the index,
+ * so it only answers that there is no shop somewhere if {@link Properties#TRUST_SHOP_INDEX} is enabled.
+ * Otherwise every lookup is unknown and nothing is indexed at all.
+ * <p>
+ * Additionally a bitmap of all chunks which have a shop sign in or up to {@link #SHOP_CHUNK_MARGIN}
+ * blocks around them is kept, so that listeners for very frequent events can cheaply ignore chunks without shops.
+ * Lookups only take a read lock and never index chunks themselves.
+ */
+public class ShopIndex implements Listener {
+    private static final int[][] NEIGHBOUR_OFFSETS = {{0, 0, 0}, {0, -1, 0}, {0, 1, 0}, {1, 0, 0}, {0, 0, -1}, {-1, 0, 0}, {0, 0, 1}};
+    private static final long[] EMPTY = new long[0];
+
+    /**
+     * How far away a shop sign can be from a block that belongs to its shop (e.g. the other half of a double chest)
+     */
+    private static final int SHOP_CHUNK_MARGIN = 2;
+
+    private static final Map<UUID, WorldIndex> worlds = new ConcurrentHashMap<>();
+
+    /**
+     * Get the positions of the shop signs that are on or next to a block.
+     * A returned position doesn't guarantee that the sign belongs to this block, it still needs to be checked.
+     *
+     * @param block The block to get the nearby shop signs of
+     * @return The packed positions of the shop signs (empty if there are none),
+     *         or <tt>null</tt> if the area isn't indexed and all neighbours need to be checked
+     */
+    public static long[] getNearbyShopSigns(Block block) {
+        if (!isTrusted()) {
+            return null;
+        }
+        WorldIndex index = getIndex(block.getWorld());
+        int x = block.getX();
+        int z = block.getZ();
+        index.lock.readLock().lock();
+        try {
+            // Signs next to a block at a chunk border can be in the neighbouring chunks
+            if (!index.isIndexed(block.getWorld(), x, z, 1)) {
+                return null;
+            }
+            long[] signs = index.nearbySigns.get(toKey(x, block.getY(), z));
+            return signs != null ? signs : EMPTY;
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Check whether the chunk of a block might contain anything belonging to a shop.
+     * If this returns <tt>false</tt> then the block is neither a shop sign, nor a container of a shop
+     * nor a block that a shop sign is attached to. Chunks which aren't indexed might always contain shops.
+     *
+     * @param block The block to check
+     * @return Whether or not there might be a shop sign in or close to the block's chunk,
+     *         always <tt>true</tt> if the index isn't trusted
+     */
+    public static boolean isShopChunk(Block block) {
+        if (!isTrusted()) {
+            return true;
+        }
+        WorldIndex index = getIndex(block.getWorld());
+        int x = block.getX();
+        int z = block.getZ();
+        index.lock.readLock().lock();
+        try {
+            return !index.isIndexed(block.getWorld(), x, z, SHOP_CHUNK_MARGIN) || index.isShopChunk(x >> 4, z >> 4);
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Check whether a block might be one of the shop signs returned by {@link #getNearbyShopSigns(Block)}
+     *
+     * @param positions The packed positions, <tt>null</tt> if they are unknown
+     * @param block     The block
+     * @return Whether or not the position of the block is in the array, always <tt>true</tt> if the positions are unknown
+     */
+    public static boolean mightContain(long[] positions, Block block) {
+        if (positions == null) {
+            return true;
+        }
+        long key = toKey(block.getX(), block.getY(), block.getZ());
+        for (long position : positions) {
+            if (position == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get all signs inside the bounding box of the given blocks.
+     * The returned signs still need to be checked for whether they are shop signs.
+     *
+     * @param blocks The blocks, all of them need to be in the same world
+     * @param margin How many blocks to extend the bounding box by in every direction
+     * @return The blocks of the signs in the bounding box
+     */
+    public static List<Block> getSigns(Collection<Block> blocks, int margin) {
+        if (blocks.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        World world = null;
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (Block block : blocks) {
+            if (world == null) {
+                world = block.getWorld();
+            }
+            minX = Math.min(minX, block.getX());
+            minY = Math.min(minY, block.getY());
+            minZ = Math.min(minZ, block.getZ());
+            maxX = Math.max(maxX, block.getX());
+            maxY = Math.max(maxY, block.getY());
+            maxZ = Math.max(maxZ, block.getZ());
+        }
+
+        return getSigns(world, minX - margin, minY - margin, minZ - margin, maxX + margin, maxY + margin, maxZ + margin);
+    }
+
+    /**
+     * Get all signs inside a bounding box. The returned signs still need to be checked for whether they are shop signs.
+     * This looks at the tile entities of the loaded chunks instead of the index, so it also finds the signs
+     * which were written without any events. That is still much cheaper than checking the neighbours of every block.
+     *
+     * @param world The world
+     * @param minX  The minimum x coordinate (inclusive)
+     * @param minY  The minimum y coordinate (inclusive)
+     * @param minZ  The minimum z coordinate (inclusive)
+     * @param maxX  The maximum x coordinate (inclusive)
+     * @param maxY  The maximum y coordinate (inclusive)
+     * @param maxZ  The maximum z coordinate (inclusive)
+     * @return The blocks of the signs in the bounding box
+     */
+    public static List<Block> getSigns(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        List<Block> result = new ArrayList<>();
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                    continue;
+                }
+                for (BlockState state : ImplementationAdapter.getTileEntities(world.getChunkAt(chunkX, chunkZ), BlockUtil::isSign)) {
+                    int x = state.getX(), y = state.getY(), z = state.getZ();
+                    if (x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ) {
+                        result.add(state.getBlock());
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Register a shop sign. This doesn't check whether the sign is actually valid!
+     *
+     * @param sign The shop sign's block
+     */
+    public static void register(Block sign) {
+        if (!isTrusted()) {
+            return;
+        }
+        WorldIndex index = getIndex(sign.getWorld());
+        index.lock.writeLock().lock();
+        try {
+            index.ensureIndexed(sign.getWorld(), sign.getX() >> 4, sign.getZ() >> 4);
+            index.add(toKey(sign.getX(), sign.getY(), sign.getZ()));
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a shop sign from the index
+     *
+     * @param sign The shop sign's block
+     */
+    public static void unregister(Block sign) {
+        WorldIndex index = worlds.get(sign.getWorld().getUID());
+        if (index != null) {
+            index.lock.writeLock().lock();
+            try {
+                index.remove(toKey(sign.getX(), sign.getY(), sign.getZ()));
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Forget what is known about a chunk, e.g. because signs were placed in it without any events.
+     * It is unknown until it gets indexed again.
+     *
+     * @param world  The world of the chunk
+     * @param chunkX The chunk's x coordinate
+     * @param chunkZ The chunk's z coordinate
+     */
+    public static void invalidate(World world, int chunkX, int chunkZ) {
+        WorldIndex index = worlds.get(world.getUID());
+        if (index != null) {
+            index.lock.writeLock().lock();
+            try {
+                index.drop(chunkKey(chunkX, chunkZ));
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Check a sign block again on its region's thread once its changes were applied and update its index entry
+     *
+     * @param block The sign's block
+     */
+    private static void recheck(Block block) {
+        if (!isTrusted() || !ChestShop.getPlugin().isEnabled()) {
+            return;
+        }
+        Bukkit.getRegionScheduler().run(ChestShop.getPlugin(), block.getLocation(), task -> {
+            if (BlockUtil.isSign(block) && ChestShopSign.isValid(block)) {
+                register(block);
+            } else {
+                unregister(block);
+            }
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public static void onShopCreated(ShopCreatedEvent event) {
+        register(event.getSign().getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public static void onShopDestroyed(ShopDestroyedEvent event) {
+        unregister(event.getSign().getBlock());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public static void onSignChange(SignChangeEvent event) {
+        // Edited signs can become or stop being shops without a ShopCreatedEvent or ShopDestroyedEvent
+        recheck(event.getBlock());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public static void onSignPlace(BlockPlaceEvent event) {
+        // Sign items can already contain text
+        if (BlockUtil.isSign(event.getBlockPlaced())) {
+            recheck(event.getBlockPlaced());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public static void onChunkLoad(ChunkLoadEvent event) {
+        if (!isTrusted()) {
+            return;
+        }
+        Chunk chunk = event.getChunk();
+        WorldIndex index = getIndex(chunk.getWorld());
+        if (event.isNewChunk()) {
+            index.lock.writeLock().lock();
+            try {
+                index.chunkSigns.put(chunkKey(chunk.getX(), chunk.getZ()), EMPTY);
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        } else {
+            // Don't hold up the chunk load with reading all of its signs, the chunk is unknown until then
+            index.queueIndexing(chunk.getWorld(), chunk.getX(), chunk.getZ());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public static void onChunkUnload(ChunkUnloadEvent event) {
+        invalidate(event.getWorld(), event.getChunk().getX(), event.getChunk().getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public static void onWorldUnload(WorldUnloadEvent event) {
+        worlds.remove(event.getWorld().getUID());
+    }
+
+    /**
+     * Check whether the index should be used. If it isn't then everything known is dropped,
+     * as it would be outdated by the time that the index gets enabled again.
+     *
+     * @return Whether or not the index is trusted
+     */
+    private static boolean isTrusted() {
+        if (!Properties.TRUST_SHOP_INDEX) {
+            if (!worlds.isEmpty()) {
+                worlds.clear();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Check whether a sign might be a shop sign by only looking at its lines.
+     * This is much cheaper than {@link ChestShopSign#isValid(Sign)} as it doesn't call any events,
+     * everything found through the index is validated by the callers anyways.
+     *
+     * @param sign The sign
+     * @return Whether or not the owner line isn't empty and the price line contains a B or S
+     */
+    private static boolean hasShopShape(Sign sign) {
+        if (sign.getLine(ChestShopSign.NAME_LINE).isEmpty()) {
+            return false;
+        }
+        String price = sign.getLine(ChestShopSign.PRICE_LINE);
+        for (int i = 0; i < price.length(); i++) {
+            char c = price.charAt(i);
+            if (c == 'B' || c == 'b' || c == 'S' || c == 's') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static WorldIndex getIndex(World world) {
+        return worlds.computeIfAbsent(world.getUID(), id -> new WorldIndex());
+    }
+
+    /**
+     * Pack block coordinates into a single long. (26 bits x, 26 bits z and 12 bits y)
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @return The packed position
+     */
+    public static long toKey(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int getX(long key) {
+        return (int) (key >> 38);
+    }
+
+    public static int getY(long key) {
+        return (int) (key << 52 >> 52);
+    }
+
+    public static int getZ(long key) {
+        return (int) (key << 26 >> 38);
+    }
+
+    /**
+     * Pack chunk coordinates into a single long
+     *
+     * @param chunkX The chunk's x coordinate
+     * @param chunkZ The chunk's z coordinate
+     * @return The packed chunk coordinates
+     */
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX & 0xFFFFFFFFL) | (((long) chunkZ & 0xFFFFFFFFL) << 32);
+    }
+
+    private static long[] append(long[] array, long value) {
+        for (long l : array) {
+            if (l == value) {
+                return array;
+            }
+        }
+        long[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = value;
+        return result;
+    }
+
+    private static long[] removeValue(long[] array, long value) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == value) {
+                long[] result = new long[array.length - 1];
+                System.arraycopy(array, 0, result, 0, i);
+                System.arraycopy(array, i + 1, result, i, array.length - i - 1);
+                return result;
+            }
+        }
+        return array;
+    }
+
+    private static class WorldIndex {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        /**
+         * Unknown chunks which are waiting to be indexed on their region's thread
+         */
+        private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+        /**
+         * Block position -> positions of the shop signs on or next to that block
+         */
+        private final LongHashMap<long[]> nearbySigns = new LongHashMap<>(256);
+
+        /**
+         * Chunk -> positions of the shop signs inside that chunk. Only contains indexed chunks.
+         */
+        private final LongHashMap<long[]> chunkSigns = new LongHashMap<>(256);
+
+        /**
+         * Region of 32x32 chunks -> bitmap of the chunks in that region which have shop signs in or around them
+         */
+        private final LongHashMap<long[]> shopChunks = new LongHashMap<>(16);
+
+        private void ensureIndexed(World world, int chunkX, int chunkZ) {
+            if (!chunkSigns.containsKey(chunkKey(chunkX, chunkZ)) && world.isChunkLoaded(chunkX, chunkZ)) {
+                index(world.getChunkAt(chunkX, chunkZ));
+            }
+        }
+
+        /**
+         * Check whether all loaded chunks around a position are indexed, the ones which aren't get queued for indexing.
+         * Signs in chunks which aren't loaded can't be checked anyways. Only needs the read lock.
+         */
+        private boolean isIndexed(World world, int x, int z, int margin) {
+            boolean indexed = true;
+            for (int chunkX = (x - margin) >> 4; chunkX <= (x + margin) >> 4; chunkX++) {
+                for (int chunkZ = (z - margin) >> 4; chunkZ <= (z + margin) >> 4; chunkZ++) {
+                    if (!chunkSigns.containsKey(chunkKey(chunkX, chunkZ)) && world.isChunkLoaded(chunkX, chunkZ)) {
+                        queueIndexing(world, chunkX, chunkZ);
+                        indexed = false;
+                    }
+                }
+            }
+            return indexed;
+        }
+
+        private void queueIndexing(World world, int chunkX, int chunkZ) {
+            long chunkKey = chunkKey(chunkX, chunkZ);
+            if (!ChestShop.getPlugin().isEnabled() || !pending.add(chunkKey)) {
+                return;
+            }
+            Bukkit.getRegionScheduler().run(ChestShop.getPlugin(), world, chunkX, chunkZ, task -> {
+                pending.remove(chunkKey);
+                lock.writeLock().lock();
+                try {
+                    ensureIndexed(world, chunkX, chunkZ);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+        }
+
+        private boolean isShopChunk(int chunkX, int chunkZ) {
+            long[] bitmap = shopChunks.get(chunkKey(chunkX >> 5, chunkZ >> 5));
+            if (bitmap == null) {
+                return false;
+            }
+            int bit = ((chunkZ & 31) << 5) | (chunkX & 31);
+            return (bitmap[bit >> 6] & (1L << bit)) != 0;
+        }
+
+        private void setShopChunk(int chunkX, int chunkZ, boolean value) {
+            long regionKey = chunkKey(chunkX >> 5, chunkZ >> 5);
+            long[] bitmap = shopChunks.get(regionKey);
+            if (bitmap == null) {
+                if (!value) {
+                    return;
+                }
+                bitmap = new long[16];
+                shopChunks.put(regionKey, bitmap);
+            }
+
+            int bit = ((chunkZ & 31) << 5) | (chunkX & 31);
+            if (value) {
+                bitmap[bit >> 6] |= 1L << bit;
+            } else {
+                bitmap[bit >> 6] &= ~(1L << bit);
+                for (long bits : bitmap) {
+                    if (bits != 0) {
+                        return;
+                    }
+                }
+                shopChunks.remove(regionKey);
+            }
+        }
+
+        /**
+         * Recalculate the bits of the chunks around a shop sign after it got removed
+         */
+        private void updateShopChunks(long sign) {
+            int x = getX(sign), z = getZ(sign);
+            for (int chunkX = (x - SHOP_CHUNK_MARGIN) >> 4; chunkX <= (x + SHOP_CHUNK_MARGIN) >> 4; chunkX++) {
+                for (int chunkZ = (z - SHOP_CHUNK_MARGIN) >> 4; chunkZ <= (z + SHOP_CHUNK_MARGIN) >> 4; chunkZ++) {
+                    setShopChunk(chunkX, chunkZ, hasSignsAround(chunkX, chunkZ));
+                }
+            }
+        }
+
+        private boolean hasSignsAround(int chunkX, int chunkZ) {
+            int minX = (chunkX << 4) - SHOP_CHUNK_MARGIN, maxX = (chunkX << 4) + 15 + SHOP_CHUNK_MARGIN;
+            int minZ = (chunkZ << 4) - SHOP_CHUNK_MARGIN, maxZ = (chunkZ << 4) + 15 + SHOP_CHUNK_MARGIN;
+            for (int neighbourX = chunkX - 1; neighbourX <= chunkX + 1; neighbourX++) {
+                for (int neighbourZ = chunkZ - 1; neighbourZ <= chunkZ + 1; neighbourZ++) {
+                    long[] signs = chunkSigns.get(chunkKey(neighbourX, neighbourZ));
+                    if (signs == null) {
+                        continue;
+                    }
+                    for (long sign : signs) {
+                        int x = getX(sign), z = getZ(sign);
+                        if (x >= minX && x <= maxX && z >= minZ && z <= maxZ) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        private void index(Chunk chunk) {
+            long chunkKey = chunkKey(chunk.getX(), chunk.getZ());
+            drop(chunkKey);
+            chunkSigns.put(chunkKey, EMPTY);
+
+            for (BlockState state : ImplementationAdapter.getTileEntities(chunk, BlockUtil::isSign)) {
+                if (state instanceof Sign && hasShopShape((Sign) state)) {
+                    add(toKey(state.getX(), state.getY(), state.getZ()));
+                }
+            }
+        }
+
+        private void drop(long chunkKey) {
+            long[] signs = chunkSigns.remove(chunkKey);
+            if (signs != null) {
+                for (long sign : signs) {
+                    unlink(sign);
+                }
+                for (long sign : signs) {
+                    updateShopChunks(sign);
+                }
+            }
+        }
+
+        private void add(long sign) {
+            long chunkKey = chunkKey(getX(sign) >> 4, getZ(sign) >> 4);
+            long[] signs = chunkSigns.get(chunkKey);
+            if (signs == null) {
+                signs = EMPTY;
+            }
+            long[] updated = append(signs, sign);
+            if (updated == signs) {
+                return;
+            }
+            chunkSigns.put(chunkKey, updated);
+
+            int x = getX(sign), z = getZ(sign);
+            for (int chunkX = (x - SHOP_CHUNK_MARGIN) >> 4; chunkX <= (x + SHOP_CHUNK_MARGIN) >> 4; chunkX++) {
+                for (int chunkZ = (z - SHOP_CHUNK_MARGIN) >> 4; chunkZ <= (z + SHOP_CHUNK_MARGIN) >> 4; chunkZ++) {
+                    setShopChunk(chunkX, chunkZ, true);
+                }
+            }
+
+            for (int[] offset : NEIGHBOUR_OFFSETS) {
+                long neighbour = toKey(getX(sign) + offset[0], getY(sign) + offset[1], getZ(sign) + offset[2]);
+                long[] nearby = nearbySigns.get(neighbour);
+                nearbySigns.put(neighbour, append(nearby != null ? nearby : EMPTY, sign));
+            }
+        }
+
+        private void remove(long sign) {
+            long chunkKey = chunkKey(getX(sign) >> 4, getZ(sign) >> 4);
+            long[] signs = chunkSigns.get(chunkKey);
+            if (signs == null) {
+                return;
+            }
+            long[] updated = removeValue(signs, sign);
+            if (updated == signs) {
+                return;
+            }
+            chunkSigns.put(chunkKey, updated);
+            unlink(sign);
+            updateShopChunks(sign);
+        }
+
+        private void unlink(long sign) {
+            for (int[] offset : NEIGHBOUR_OFFSETS) {
+                long neighbour = toKey(getX(sign) + offset[0], getY(sign) + offset[1], getZ(sign) + offset[2]);
+                long[] nearby = nearbySigns.get(neighbour);
+                if (nearby != null) {
+                    nearby = removeValue(nearby, sign);
+                    if (nearby.length == 0) {
+                        nearbySigns.remove(neighbour);
+                    } else {
+                        nearbySigns.put(neighbour, nearby);
+                    }
+                }
+            }
+        }
+    }
+}
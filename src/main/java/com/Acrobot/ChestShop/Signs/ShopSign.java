@@ -0,0 +1,168 @@
+package com.Acrobot.ChestShop.Signs;
+
+import com.Acrobot.Breeze.Utils.PriceUtil;
+import com.Acrobot.ChestShop.ChestShop;
+import com.Acrobot.ChestShop.Events.ItemParseEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * The parsed contents of a shop sign.
+ * Instances are created from the sign's lines and never change, use {@link ShopSignCache} to get the one of a sign.
+ */
+public class ShopSign {
+    private final String[] lines;
+    private final boolean valid;
+
+    private final String owner;
+    private final boolean adminShop;
+    private final int businessAccountId;
+    private final String quantityLine;
+    private final int quantity;
+    private final String priceLine;
+    private final BigDecimal buyPrice;
+    private final BigDecimal sellPrice;
+    private final String itemLine;
+
+    private volatile boolean itemParsed = false;
+    private volatile ItemStack item = null;
+
+    private ShopSign(String[] lines) {
+        this.lines = lines;
+        this.valid = ChestShopSign.isValid(lines);
+        this.owner = ChestShopSign.getOwner(lines);
+        this.adminShop = ChestShopSign.isAdminShop(owner);
+
+        int businessAccountId = -1;
+        if (ChestShopSign.isBusinessAccount(owner)) {
+            try {
+                businessAccountId = ChestShopSign.getBusinessAccountId(owner);
+            } catch (NumberFormatException ignored) {} // Not a valid account id
+        }
+        this.businessAccountId = businessAccountId;
+
+        this.quantityLine = ChestShopSign.getQuantityLine(lines);
+        int quantity = -1;
+        try {
+            quantity = ChestShopSign.getQuantity(lines);
+        } catch (NumberFormatException ignored) {} // There is no quantity number on the sign
+        this.quantity = quantity;
+
+        this.priceLine = ChestShopSign.getPrice(lines);
+        this.buyPrice = PriceUtil.getExactBuyPrice(priceLine);
+        this.sellPrice = PriceUtil.getExactSellPrice(priceLine);
+        this.itemLine = ChestShopSign.getItem(lines);
+    }
+
+    /**
+     * Parse sign lines into a new shop sign model. This does not use the cache!
+     *
+     * @param lines The (not colour stripped) lines of the sign
+     * @return The parsed shop sign
+     */
+    public static ShopSign parse(String[] lines) {
+        return new ShopSign(lines.clone());
+    }
+
+    /**
+     * Check whether this model was parsed from the given lines
+     *
+     * @param lines The lines to compare
+     * @return Whether or not the lines are the same as the ones this model was parsed from
+     */
+    public boolean matches(String[] lines) {
+        return Arrays.equals(this.lines, lines);
+    }
+
+    /**
+     * @return Whether or not the lines form a valid shop sign
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @return The owner string of the sign
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return Whether or not this is an admin shop
+     */
+    public boolean isAdminShop() {
+        return adminShop;
+    }
+
+    /**
+     * @return Whether or not the owner is a Treasury business account (B:accountId format)
+     */
+    public boolean isBusinessAccount() {
+        return ChestShopSign.isBusinessAccount(owner);
+    }
+
+    /**
+     * @return The Treasury business account ID or <tt>-1</tt> if there is no valid one on the sign
+     */
+    public int getBusinessAccountId() {
+        return businessAccountId;
+    }
+
+    /**
+     * @return The quantity and counter line
+     */
+    public String getQuantityLine() {
+        return quantityLine;
+    }
+
+    /**
+     * @return The quantity or <tt>-1</tt> if there is no valid quantity on the sign
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * @return The price line
+     */
+    public String getPriceLine() {
+        return priceLine;
+    }
+
+    /**
+     * @return The exact buy price, {@link PriceUtil#NO_PRICE} if there is none
+     */
+    public BigDecimal getBuyPrice() {
+        return buyPrice;
+    }
+
+    /**
+     * @return The exact sell price, {@link PriceUtil#NO_PRICE} if there is none
+     */
+    public BigDecimal getSellPrice() {
+        return sellPrice;
+    }
+
+    /**
+     * @return The item line
+     */
+    public String getItemLine() {
+        return itemLine;
+    }
+
+    /**
+     * Get the item of the shop. It is parsed with an {@link ItemParseEvent} the first time this is called.
+     *
+     * @return A copy of the parsed item or <tt>null</tt> if the item line couldn't be parsed
+     */
+    public ItemStack getItem() {
+        if (!itemParsed) {
+            item = ChestShop.callEvent(new ItemParseEvent(itemLine)).getItem();
+            itemParsed = true;
+        }
+        return item != null ? item.clone() : null;
+    }
+}
@@ -0,0 +1,85 @@
+package com.Acrobot.ChestShop.Signs;
+
+import com.Acrobot.Breeze.Collection.SimpleCache;
+import com.Acrobot.ChestShop.Configuration.Properties;
+import com.Acrobot.ChestShop.Events.ChestShopReloadEvent;
+import com.Acrobot.ChestShop.Events.ShopDestroyedEvent;
+import com.Acrobot.ChestShop.Events.ShopEditedEvent;
+import org.bukkit.block.Block;
+import org.bukkit.block.Sign;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.SignChangeEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * Caches the parsed {@link ShopSign} of sign blocks so that signs don't need to be validated and parsed again
+ * every time somebody interacts with them.
+ * <p>
+ * Entries are checked against the current lines of the sign on every lookup, the invalidation
+ * on sign changes and reloads only makes sure that no outdated models are kept around.
+ */
+public class ShopSignCache implements Listener {
+    private static volatile SimpleCache<Block, ShopSign> cache = new SimpleCache<>(Properties.CACHE_SIZE);
+
+    /**
+     * Get the parsed shop sign model of a sign
+     *
+     * @param sign The sign
+     * @return The parsed sign, either from the cache or newly parsed
+     */
+    public static ShopSign get(Sign sign) {
+        String[] lines = sign.getLines();
+        Block block = sign.getBlock();
+
+        ShopSign shopSign = cache.get(block);
+        if (shopSign == null || !shopSign.matches(lines)) {
+            shopSign = ShopSign.parse(lines);
+            cache.put(block, shopSign);
+        }
+        return shopSign;
+    }
+
+    /**
+     * Remove the cached model of a sign block
+     *
+     * @param block The sign block
+     */
+    public static void invalidate(Block block) {
+        cache.remove(block);
+    }
+
+    /**
+     * Remove all cached models
+     */
+    public static void invalidateAll() {
+        cache.clear();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public static void onSignChange(SignChangeEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public static void onShopEdited(ShopEditedEvent event) {
+        invalidate(event.getSign().getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public static void onShopDestroyed(ShopDestroyedEvent event) {
+        invalidate(event.getSign().getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public static void onReload(ChestShopReloadEvent event) {
+        // The config (and with it the cache size, admin shop name and aliases) might have changed
+        cache = new SimpleCache<>(Properties.CACHE_SIZE);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public static void onWorldUnload(WorldUnloadEvent event) {
+        invalidateAll();
+    }
+}
@@ -0,0 +1,400 @@
+package com.Acrobot.ChestShop.Signs;
+
+/**
+ * Hand-written parser for the quantity, price and item lines of shop signs.
+ * <p>
+ * It accepts exactly the same (colour stripped and trimmed) lines as the patterns in
+ * {@link ChestShopSign#SHOP_SIGN_PATTERN} but only needs a single pass over each line.
+ */
+public class SignLineParser {
+
+    /**
+     * Parse the quantity line of a sign
+     *
+     * @param line The stripped quantity line
+     * @return The parsed line or <tt>null</tt> if it isn't valid
+     */
+    public static QuantityLine parseQuantityLine(String line) {
+        int length = line.length();
+
+        // 1-6 digits
+        if (length > 0 && length <= 6 && isDigits(line, 0, length) && line.charAt(0) != '0') {
+            return new QuantityLine(Integer.parseInt(line), -1);
+        }
+
+        // Q <1-5 digits> : C <1-5 digits>
+        if (!line.startsWith("Q ")) {
+            return null;
+        }
+        int separator = line.indexOf(" : C ", 2);
+        if (separator < 3 || separator > 7 || !isDigits(line, 2, separator) || line.charAt(2) == '0') {
+            return null;
+        }
+        int counterStart = separator + 5;
+        if (length - counterStart < 1 || length - counterStart > 5 || !isDigits(line, counterStart, length)) {
+            return null;
+        }
+        return new QuantityLine(Integer.parseInt(line.substring(2, separator)), Integer.parseInt(line.substring(counterStart)));
+    }
+
+    /**
+     * Check whether a quantity line is valid
+     *
+     * @param line The stripped quantity line
+     * @return Whether or not the line is valid
+     */
+    public static boolean isValidQuantityLine(String line) {
+        return parseQuantityLine(line) != null;
+    }
+
+    /**
+     * Parse the price line of a sign
+     *
+     * @param line The stripped price line
+     * @return The parsed line or <tt>null</tt> if it isn't valid
+     */
+    public static PriceLine parsePriceLine(String line) {
+        int separator = line.indexOf(':');
+        if (separator < 0) {
+            if (isPlainPrice(line)) {
+                // A price without any indicator, this is not a complete shop sign but the line itself is valid
+                return new PriceLine(null, null);
+            }
+            PricePart part = parsePricePart(line, 0, line.length());
+            return part != null ? new PriceLine(part, null) : null;
+        }
+
+        if (line.indexOf(':', separator + 1) > -1) {
+            return null;
+        }
+
+        int firstEnd = separator;
+        while (firstEnd > 0 && line.charAt(firstEnd - 1) == ' ') {
+            firstEnd--;
+        }
+        int secondStart = separator + 1;
+        while (secondStart < line.length() && line.charAt(secondStart) == ' ') {
+            secondStart++;
+        }
+
+        PricePart first = parsePricePart(line, 0, firstEnd);
+        if (first == null) {
+            return null;
+        }
+        PricePart second = parsePricePart(line, secondStart, line.length());
+        if (second == null) {
+            return null;
+        }
+        return new PriceLine(first, second);
+    }
+
+    /**
+     * Check whether a price line is valid
+     *
+     * @param line The stripped price line
+     * @return Whether or not the line is valid
+     */
+    public static boolean isValidPriceLine(String line) {
+        return parsePriceLine(line) != null;
+    }
+
+    /**
+     * Parse the item line of a sign
+     *
+     * @param line The stripped item line
+     * @return The parsed line or <tt>null</tt> if it isn't valid
+     */
+    public static ItemLine parseItemLine(String line) {
+        if (line.equals(ChestShopSign.AUTOFILL_CODE)) {
+            return new ItemLine(line, null, null);
+        }
+
+        int length = line.length();
+        int nameEnd = 0;
+        while (nameEnd < length) {
+            int codePoint = line.codePointAt(nameEnd);
+            if (codePoint == ':' || codePoint == '#') {
+                break;
+            }
+            if (!Character.isLetter(codePoint) && !isDigit(codePoint) && codePoint != '_' && codePoint != ' ' && codePoint != '-') {
+                return null;
+            }
+            nameEnd += Character.charCount(codePoint);
+        }
+        if (nameEnd == 0) {
+            return null;
+        }
+
+        String durability = null;
+        String metadata = null;
+        int position = nameEnd;
+        while (position < length) {
+            char type = line.charAt(position);
+            int end = position + 1;
+            while (end < length && line.charAt(end) != ':' && line.charAt(end) != '#') {
+                end++;
+            }
+            if (type == ':' && durability == null && isDigits(line, position + 1, end)) {
+                durability = line.substring(position, end);
+            } else if (type == '#' && metadata == null && isAlphanumeric(line, position + 1, end)) {
+                metadata = line.substring(position, end);
+            } else {
+                return null;
+            }
+            position = end;
+        }
+        return new ItemLine(line.substring(0, nameEnd), durability, metadata);
+    }
+
+    /**
+     * Check whether an item line is valid
+     *
+     * @param line The stripped item line
+     * @return Whether or not the line is valid
+     */
+    public static boolean isValidItemLine(String line) {
+        return parseItemLine(line) != null;
+    }
+
+    /**
+     * A part of the price line with an indicator, e.g. <tt>B 10</tt> or <tt>5k S</tt>
+     */
+    private static PricePart parsePricePart(String line, int start, int end) {
+        if (end - start < 2) {
+            return null;
+        }
+
+        char indicator = toIndicator(line.charAt(start));
+        if (isIndicator(indicator)) {
+            // Indicator in front, spaces are only allowed between it and the price
+            int priceStart = start + 1;
+            while (priceStart < end && line.charAt(priceStart) == ' ') {
+                priceStart++;
+            }
+            if (isFree(line, priceStart, end)) {
+                return new PricePart(indicator, line.substring(priceStart, end));
+            }
+            int numberEnd = end;
+            if (numberEnd > priceStart && isMultiplier(line.charAt(numberEnd - 1))) {
+                numberEnd--;
+            }
+            if (isNumber(line, priceStart, numberEnd)) {
+                return new PricePart(indicator, line.substring(priceStart, end));
+            }
+        }
+
+        indicator = toIndicator(line.charAt(end - 1));
+        if (isIndicator(indicator)) {
+            // Indicator at the end, multipliers need at least one space between them and the indicator
+            int priceEnd = end - 1;
+            while (priceEnd > start && line.charAt(priceEnd - 1) == ' ') {
+                priceEnd--;
+            }
+            boolean hasSpace = priceEnd < end - 1;
+            if (isFree(line, start, priceEnd)) {
+                return new PricePart(indicator, line.substring(start, priceEnd));
+            }
+            int numberEnd = priceEnd;
+            if (hasSpace && numberEnd > start && isMultiplier(line.charAt(numberEnd - 1))) {
+                numberEnd--;
+            }
+            if (isNumber(line, start, numberEnd)) {
+                return new PricePart(indicator, line.substring(start, priceEnd));
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * A price without an indicator, the digits are optional
+     */
+    private static boolean isPlainPrice(String line) {
+        int end = line.length();
+        if (isFree(line, 0, end)) {
+            return true;
+        }
+        if (end > 0 && isMultiplier(line.charAt(end - 1))) {
+            end--;
+        }
+        int position = 0;
+        while (position < end && isDigit(line.charAt(position))) {
+            position++;
+        }
+        return position == end || isFraction(line, position, end);
+    }
+
+    /**
+     * At least one digit optionally followed by a fraction or exponent
+     */
+    private static boolean isNumber(String line, int start, int end) {
+        int position = start;
+        while (position < end && isDigit(line.charAt(position))) {
+            position++;
+        }
+        return position > start && (position == end || isFraction(line, position, end));
+    }
+
+    /**
+     * A dot or exponent sign followed by at least one digit
+     */
+    private static boolean isFraction(String line, int start, int end) {
+        char c = line.charAt(start);
+        return (c == '.' || c == 'e' || c == 'E') && end - start > 1 && isDigits(line, start + 1, end);
+    }
+
+    private static boolean isFree(String line, int start, int end) {
+        return end - start == 4 && line.regionMatches(true, start, "free", 0, 4) && isAscii(line, start, end);
+    }
+
+    private static char toIndicator(char c) {
+        return c == 'b' || c == 's' ? (char) (c - 'a' + 'A') : c;
+    }
+
+    private static boolean isIndicator(char c) {
+        return c == 'B' || c == 'S';
+    }
+
+    private static boolean isMultiplier(char c) {
+        return c == 'k' || c == 'K' || c == 'm' || c == 'M';
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isDigits(String line, int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (!isDigit(line.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAlphanumeric(String line, int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (!isDigit(c) && !(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAscii(String line, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line.charAt(i) > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static class QuantityLine {
+        private final int quantity;
+        private final int counter;
+
+        private QuantityLine(int quantity, int counter) {
+            this.quantity = quantity;
+            this.counter = counter;
+        }
+
+        /**
+         * @return The quantity
+         */
+        public int getQuantity() {
+            return quantity;
+        }
+
+        /**
+         * @return The stock counter or <tt>-1</tt> if the line has none
+         */
+        public int getCounter() {
+            return counter;
+        }
+    }
+
+    public static class PriceLine {
+        private final PricePart first;
+        private final PricePart second;
+
+        private PriceLine(PricePart first, PricePart second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        /**
+         * @return The price text of the buy part (e.g. <tt>10k</tt> or <tt>free</tt>) or <tt>null</tt> if there is none
+         */
+        public String getBuyPrice() {
+            return getPrice('B');
+        }
+
+        /**
+         * @return The price text of the sell part (e.g. <tt>10k</tt> or <tt>free</tt>) or <tt>null</tt> if there is none
+         */
+        public String getSellPrice() {
+            return getPrice('S');
+        }
+
+        private String getPrice(char indicator) {
+            if (first != null && first.indicator == indicator) {
+                return first.price;
+            }
+            if (second != null && second.indicator == indicator) {
+                return second.price;
+            }
+            return null;
+        }
+    }
+
+    private static class PricePart {
+        private final char indicator;
+        private final String price;
+
+        private PricePart(char indicator, String price) {
+            this.indicator = indicator;
+            this.price = price;
+        }
+    }
+
+    public static class ItemLine {
+        private final String name;
+        private final String durability;
+        private final String metadata;
+
+        private ItemLine(String name, String durability, String metadata) {
+            this.name = name;
+            this.durability = durability;
+            this.metadata = metadata;
+        }
+
+        /**
+         * @return The item name (or the autofill code)
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The durability part including the colon, or <tt>null</tt> if there is none
+         */
+        public String getDurability() {
+            return durability;
+        }
+
+        /**
+         * @return The metadata part including the hash, or <tt>null</tt> if there is none
+         */
+        public String getMetadata() {
+            return metadata;
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package com.Acrobot.ChestShop.UUIDs;
+
+import com.Acrobot.ChestShop.Database.Account;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A compact in-memory copy of the accounts table.
+ * <p>
+ * The accounts are stored column-wise in primitive arrays with the UUIDs as pairs of longs. They are indexed
+ * in open-addressing hash tables by their short name (which is unique), their name and their UUID.
+ * Accounts sharing a name or UUID are chained so that the last seen one can be found like the database
+ * queries of the {@link NameManager} do.
+ */
+class AccountIndex {
+    private static final int NONE = -1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready = false;
+
+    // Account columns by slot
+    private int size = 0;
+    private long[] uuidMost = new long[16];
+    private long[] uuidLeast = new long[16];
+    private String[] names = new String[16];
+    private String[] shortNames = new String[16];
+    private long[] lastSeen = new long[16];
+    private boolean[] ignoreMessages = new boolean[16];
+    private int[] nextWithUuid = new int[16];
+    private int[] nextWithName = new int[16];
+
+    // Short name -> slot
+    private String[] shortKeys = new String[32];
+    private int[] shortSlots = new int[32];
+    private int shortCount = 0;
+
+    // Name -> first slot of the chain of accounts with that name
+    private String[] nameKeys = new String[32];
+    private int[] nameHeads = new int[32];
+    private int nameCount = 0;
+
+    // UUID -> first slot of the chain of accounts with that UUID
+    private long[] uuidKeysMost = new long[32];
+    private long[] uuidKeysLeast = new long[32];
+    private boolean[] uuidKeyUsed = new boolean[32];
+    private int[] uuidHeads = new int[32];
+    private int uuidCount = 0;
+
+    /**
+     * @return Whether or not the whole table was loaded and the index can answer lookups
+     */
+    boolean isReady() {
+        return ready;
+    }
+
+    void setReady() {
+        ready = true;
+    }
+
+    /**
+     * Add an account which was read from the database. Accounts which were already stored
+     * while the table was loaded are newer and are kept.
+     *
+     * @param account The account
+     */
+    void load(Account account) {
+        lock.writeLock().lock();
+        try {
+            if (findShort(account.getShortName()) == NONE) {
+                insert(account);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add or update an account which was written to the database
+     *
+     * @param account The account
+     */
+    void put(Account account) {
+        lock.writeLock().lock();
+        try {
+            int slot = findShort(account.getShortName());
+            if (slot == NONE) {
+                insert(account);
+                return;
+            }
+            UUID uuid = account.getUuid();
+            if (!names[slot].equals(account.getName())) {
+                unlinkName(slot);
+                names[slot] = dedupe(account.getName(), account.getShortName());
+                linkName(slot);
+            }
+            if (uuidMost[slot] != uuid.getMostSignificantBits() || uuidLeast[slot] != uuid.getLeastSignificantBits()) {
+                unlinkUuid(slot);
+                uuidMost[slot] = uuid.getMostSignificantBits();
+                uuidLeast[slot] = uuid.getLeastSignificantBits();
+                linkUuid(slot);
+            }
+            lastSeen[slot] = account.getLastSeen() != null ? account.getLastSeen().getTime() : 0;
+            ignoreMessages[slot] = account.isIgnoringMessages();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param uuid The UUID
+     * @return A copy of the last seen account with that UUID or <tt>null</tt>
+     */
+    Account getByUuid(UUID uuid) {
+        lock.readLock().lock();
+        try {
+            int index = findUuid(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            return index != NONE ? toAccount(latest(uuidHeads[index], nextWithUuid)) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param name The full name
+     * @return A copy of the last seen account with that name or <tt>null</tt>
+     */
+    Account getByName(String name) {
+        lock.readLock().lock();
+        try {
+            int index = findName(name);
+            return index != NONE ? toAccount(latest(nameHeads[index], nextWithName)) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param shortName The short name
+     * @return A copy of the account with that short name or <tt>null</tt>
+     */
+    Account getByShortName(String shortName) {
+        lock.readLock().lock();
+        try {
+            return toAccount(findShort(shortName));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param uuid The UUID
+     * @param name The full name
+     * @return A copy of the account with that UUID and name or <tt>null</tt>
+     */
+    Account get(UUID uuid, String name) {
+        lock.readLock().lock();
+        try {
+            int index = findUuid(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            if (index != NONE) {
+                for (int slot = uuidHeads[index]; slot != NONE; slot = nextWithUuid[slot]) {
+                    if (names[slot].equals(name)) {
+                        return toAccount(slot);
+                    }
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Estimate the memory used by the index, assuming compressed object pointers and compact strings
+     *
+     * @return The estimated amount of bytes
+     */
+    long estimateMemory() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            // Columns
+            bytes += (long) uuidMost.length * (8 + 8 + 4 + 4 + 8 + 1 + 4 + 4);
+            // Hash tables
+            bytes += (long) shortKeys.length * (4 + 4) + (long) nameKeys.length * (4 + 4)
+                    + (long) uuidKeysMost.length * (8 + 8 + 1 + 4);
+            for (int slot = 0; slot < size; slot++) {
+                bytes += estimateString(names[slot]);
+                if (shortNames[slot] != names[slot]) {
+                    bytes += estimateString(shortNames[slot]);
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long estimateString(String string) {
+        return 24 + 16 + string.length();
+    }
+
+    private Account toAccount(int slot) {
+        if (slot == NONE) {
+            return null;
+        }
+        Account account = new Account(names[slot], shortNames[slot], new UUID(uuidMost[slot], uuidLeast[slot]));
+        account.setLastSeen(new Date(lastSeen[slot]));
+        account.setIgnoreMessages(ignoreMessages[slot]);
+        return account;
+    }
+
+    private int latest(int head, int[] next) {
+        int latest = NONE;
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            if (latest == NONE || lastSeen[slot] > lastSeen[latest]) {
+                latest = slot;
+            }
+        }
+        return latest;
+    }
+
+    private void insert(Account account) {
+        if (size == uuidMost.length) {
+            int capacity = size * 2;
+            uuidMost = Arrays.copyOf(uuidMost, capacity);
+            uuidLeast = Arrays.copyOf(uuidLeast, capacity);
+            names = Arrays.copyOf(names, capacity);
+            shortNames = Arrays.copyOf(shortNames, capacity);
+            lastSeen = Arrays.copyOf(lastSeen, capacity);
+            ignoreMessages = Arrays.copyOf(ignoreMessages, capacity);
+            nextWithUuid = Arrays.copyOf(nextWithUuid, capacity);
+            nextWithName = Arrays.copyOf(nextWithName, capacity);
+        }
+
+        int slot = size++;
+        UUID uuid = account.getUuid();
+        uuidMost[slot] = uuid.getMostSignificantBits();
+        uuidLeast[slot] = uuid.getLeastSignificantBits();
+        shortNames[slot] = account.getShortName();
+        names[slot] = dedupe(account.getName(), account.getShortName());
+        lastSeen[slot] = account.getLastSeen() != null ? account.getLastSeen().getTime() : 0;
+        ignoreMessages[slot] = account.isIgnoringMessages();
+
+        addShort(slot);
+        linkName(slot);
+        linkUuid(slot);
+    }
+
+    /**
+     * Most short names are the same as the full name, share the string in that case
+     */
+    private static String dedupe(String name, String shortName) {
+        return name.equals(shortName) ? shortName : name;
+    }
+
+    // Short name table
+
+    private int findShort(String shortName) {
+        int mask = shortKeys.length - 1;
+        for (int i = mix(shortName.hashCode()) & mask; shortKeys[i] != null; i = (i + 1) & mask) {
+            if (shortKeys[i].equals(shortName)) {
+                return shortSlots[i];
+            }
+        }
+        return NONE;
+    }
+
+    private void addShort(int slot) {
+        if ((shortCount + 1) * 2 > shortKeys.length) {
+            String[] oldKeys = shortKeys;
+            int[] oldSlots = shortSlots;
+            shortKeys = new String[oldKeys.length * 2];
+            shortSlots = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    insertShort(oldKeys[i], oldSlots[i]);
+                }
+            }
+        }
+        insertShort(shortNames[slot], slot);
+        shortCount++;
+    }
+
+    private void insertShort(String key, int slot) {
+        int mask = shortKeys.length - 1;
+        int i = mix(key.hashCode()) & mask;
+        while (shortKeys[i] != null) {
+            i = (i + 1) & mask;
+        }
+        shortKeys[i] = key;
+        shortSlots[i] = slot;
+    }
+
+    // Name table
+
+    private int findName(String name) {
+        int mask = nameKeys.length - 1;
+        for (int i = mix(name.hashCode()) & mask; nameKeys[i] != null; i = (i + 1) & mask) {
+            if (nameKeys[i].equals(name)) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+
+    private void linkName(int slot) {
+        int index = findName(names[slot]);
+        if (index == NONE) {
+            if ((nameCount + 1) * 2 > nameKeys.length) {
+                String[] oldKeys = nameKeys;
+                int[] oldHeads = nameHeads;
+                nameKeys = new String[oldKeys.length * 2];
+                nameHeads = new int[oldKeys.length * 2];
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != null) {
+                        nameHeads[insertName(oldKeys[i])] = oldHeads[i];
+                    }
+                }
+            }
+            index = insertName(names[slot]);
+            nameHeads[index] = NONE;
+            nameCount++;
+        }
+        nextWithName[slot] = nameHeads[index];
+        nameHeads[index] = slot;
+    }
+
+    private int insertName(String key) {
+        int mask = nameKeys.length - 1;
+        int i = mix(key.hashCode()) & mask;
+        while (nameKeys[i] != null) {
+            i = (i + 1) & mask;
+        }
+        nameKeys[i] = key;
+        return i;
+    }
+
+    private void unlinkName(int slot) {
+        int index = findName(names[slot]);
+        nameHeads[index] = unlink(nameHeads[index], slot, nextWithName);
+    }
+
+    // UUID table
+
+    private int findUuid(long most, long least) {
+        int mask = uuidKeyUsed.length - 1;
+        for (int i = mix(Long.hashCode(most ^ least)) & mask; uuidKeyUsed[i]; i = (i + 1) & mask) {
+            if (uuidKeysMost[i] == most && uuidKeysLeast[i] == least) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+
+    private void linkUuid(int slot) {
+        int index = findUuid(uuidMost[slot], uuidLeast[slot]);
+        if (index == NONE) {
+            if ((uuidCount + 1) * 2 > uuidKeyUsed.length) {
+                long[] oldMost = uuidKeysMost;
+                long[] oldLeast = uuidKeysLeast;
+                boolean[] oldUsed = uuidKeyUsed;
+                int[] oldHeads = uuidHeads;
+                uuidKeysMost = new long[oldUsed.length * 2];
+                uuidKeysLeast = new long[oldUsed.length * 2];
+                uuidKeyUsed = new boolean[oldUsed.length * 2];
+                uuidHeads = new int[oldUsed.length * 2];
+                for (int i = 0; i < oldUsed.length; i++) {
+                    if (oldUsed[i]) {
+                        uuidHeads[insertUuid(oldMost[i], oldLeast[i])] = oldHeads[i];
+                    }
+                }
+            }
+            index = insertUuid(uuidMost[slot], uuidLeast[slot]);
+            uuidHeads[index] = NONE;
+            uuidCount++;
+        }
+        nextWithUuid[slot] = uuidHeads[index];
+        uuidHeads[index] = slot;
+    }
+
+    private int insertUuid(long most, long least) {
+        int mask = uuidKeyUsed.length - 1;
+        int i = mix(Long.hashCode(most ^ least)) & mask;
+        while (uuidKeyUsed[i]) {
+            i = (i + 1) & mask;
+        }
+        uuidKeysMost[i] = most;
+        uuidKeysLeast[i] = least;
+        uuidKeyUsed[i] = true;
+        return i;
+    }
+
+    private void unlinkUuid(int slot) {
+        int index = findUuid(uuidMost[slot], uuidLeast[slot]);
+        uuidHeads[index] = unlink(uuidHeads[index], slot, nextWithUuid);
+    }
+
+    /**
+     * Remove a slot from a chain
+     *
+     * @return The new head of the chain
+     */
+    private static int unlink(int head, int slot, int[] next) {
+        if (head == slot) {
+            return next[slot];
+        }
+        for (int previous = head; previous != NONE; previous = next[previous]) {
+            if (next[previous] == slot) {
+                next[previous] = next[slot];
+                break;
+            }
+        }
+        return head;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16) ^ (hash >>> 7);
+    }
+}
@@ -0,0 +1,96 @@
+package com.Acrobot.ChestShop.UUIDs;
+
+import com.Acrobot.ChestShop.ChestShop;
+import com.Acrobot.ChestShop.Configuration.Properties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Collects the name and last seen updates of joining players and writes them from a single thread.
+ * <p>
+ * Updates are coalesced per UUID (the latest name wins) and written in one transaction every
+ * {@link Properties#ACCOUNT_UPDATE_INTERVAL} seconds, so that many joins at once don't each need their own
+ * thread and database transaction.
+ */
+class AccountUpdateQueue {
+    private final Map<UUID, PlayerDTO> pending = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor writer = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "ChestShop account updates");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    AccountUpdateQueue() {
+        // The next scheduled flush would only delay the shutdown, the final flush happens in shutdown() directly
+        writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        scheduleFlush();
+    }
+
+    /**
+     * Queue an update of a player's account
+     *
+     * @param player The player data to store
+     */
+    void add(PlayerDTO player) {
+        pending.put(player.getUniqueId(), player);
+    }
+
+    /**
+     * @return The amount of players whose accounts still need to be updated
+     */
+    int size() {
+        return pending.size();
+    }
+
+    /**
+     * Stop the writer thread and write all queued updates on the calling thread.
+     * A flush that is already running is waited for, the next scheduled one is dropped.
+     */
+    void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(15, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void scheduleFlush() {
+        try {
+            writer.schedule(() -> {
+                flush();
+                scheduleFlush();
+            }, Math.max(1, Properties.ACCOUNT_UPDATE_INTERVAL), TimeUnit.SECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // Shutting down, the remaining updates are flushed by shutdown()
+        }
+    }
+
+    private void flush() {
+        List<PlayerDTO> batch = new ArrayList<>();
+        for (UUID uuid : pending.keySet()) {
+            PlayerDTO player = pending.remove(uuid);
+            if (player != null) {
+                batch.add(player);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            NameManager.storeUsernames(batch);
+        } catch (Exception e) {
+            ChestShop.getBukkitLogger().log(Level.WARNING, "Error while updating " + batch.size() + " accounts", e);
+        }
+    }
+}
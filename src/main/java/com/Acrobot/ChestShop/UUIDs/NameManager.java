@@ -2,21 +2,24 @@ package com.Acrobot.ChestShop.UUIDs;
 
 import com.Acrobot.Breeze.Utils.Encoding.Base62;
 import com.Acrobot.Breeze.Utils.NameUtil;
-import com.Acrobot.Breeze.Collection.SimpleCache;
+import com.Acrobot.Breeze.Collection.ConcurrentCache;
 import com.Acrobot.Breeze.Utils.NumberUtil;
 import com.Acrobot.ChestShop.ChestShop;
 import com.Acrobot.ChestShop.Configuration.Properties;
 import com.Acrobot.ChestShop.Database.Account;
 import com.Acrobot.ChestShop.Database.DaoCreator;
+import com.Acrobot.ChestShop.Database.Invalidation.Invalidation;
 import com.Acrobot.ChestShop.Events.AccountAccessEvent;
 import com.Acrobot.ChestShop.Events.AccountQueryEvent;
 import com.Acrobot.ChestShop.Permission;
 import com.Acrobot.ChestShop.Signs.ChestShopSign;
 import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
+import com.j256.ormlite.dao.CloseableIterator;
 import com.j256.ormlite.dao.Dao;
 
 import com.j256.ormlite.stmt.SelectArg;
+import com.j256.ormlite.stmt.UpdateBuilder;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
@@ -24,10 +27,16 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 /**
@@ -37,20 +46,51 @@ import java.util.logging.Level;
  */
 @SuppressWarnings("UnusedAssignment") // I deliberately set the variables to null while initializing
 public class NameManager implements Listener {
+    /**
+     * Only guards the creation of accounts so that no two accounts get the same short name, lookups don't lock
+     */
     private static final Object accountsLock = new Object();
+    /**
+     * How often creating an account is tried when other servers sharing the database take its short name
+     */
+    private static final int MAX_CREATE_ATTEMPTS = 5;
 
     private static Dao<Account, String> accounts;
+    /**
+     * The preloaded accounts table if {@link Properties#PRELOAD_ACCOUNTS} is enabled, all writes are applied to it
+     */
+    private static volatile AccountIndex accountIndex;
+    private static AccountUpdateQueue updateQueue;
 
-    private static SimpleCache<String, Account> usernameToAccount = new SimpleCache<>(Properties.CACHE_SIZE);
-    private static SimpleCache<UUID, Account> uuidToAccount = new SimpleCache<>(Properties.CACHE_SIZE);
-    private static SimpleCache<String, Account> shortToAccount = new SimpleCache<>(Properties.CACHE_SIZE);
-    private static SimpleCache<String, Boolean> invalidPlayers = new SimpleCache<>(Properties.CACHE_SIZE);
+    private static final ConcurrentCache<String, Account> usernameToAccount = newCache();
+    private static final ConcurrentCache<UUID, Account> uuidToAccount = newCache();
+    private static final ConcurrentCache<String, Account> shortToAccount = newCache();
+    /**
+     * Lower case names for which no valid offline player exists, only negative entries are used
+     */
+    private static final ConcurrentCache<String, Boolean> invalidPlayers = newCache();
 
     private static Account adminAccount;
     private static Account serverEconomyAccount;
     private static int uuidVersion = -1;
 
+    private static <K, V> ConcurrentCache<K, V> newCache() {
+        return new ConcurrentCache<>(Properties.CACHE_SIZE, Properties.UNKNOWN_ACCOUNT_CACHE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return The preloaded accounts if they are fully loaded, <tt>null</tt> if the database needs to be queried
+     */
+    private static AccountIndex getLoadedIndex() {
+        AccountIndex index = accountIndex;
+        return index != null && index.isReady() ? index : null;
+    }
+
     public static int getAccountCount() {
+        AccountIndex index = getLoadedIndex();
+        if (index != null) {
+            return index.size() - 1;
+        }
         try {
             return NumberUtil.toInt(accounts.queryBuilder().countOf() - 1);
         } catch (SQLException e) {
@@ -100,22 +140,23 @@ public class NameManager implements Listener {
      */
     public static Account getAccount(UUID uuid) {
         try {
-            synchronized (accountsLock) {
-                return uuidToAccount.get(uuid, () -> {
-                    try {
-                        Account account = accounts.queryBuilder().orderBy("lastSeen", false).where().eq("uuid", new SelectArg(uuid)).queryForFirst();
-                        if (account != null) {
-                            account.setUuid(uuid); // HOW IS IT EVEN POSSIBLE THAT UUID IS NOT SET EVEN IF WE HAVE FOUND THE PLAYER?!
-                            shortToAccount.put(account.getShortName(), account);
-                            usernameToAccount.put(account.getName(), account);
-                            return account;
-                        }
-                    } catch (SQLException e) {
-                        ChestShop.getBukkitLogger().log(Level.WARNING, "Error while getting account for " + uuid + ":", e);
+            return uuidToAccount.get(uuid, () -> {
+                try {
+                    AccountIndex index = getLoadedIndex();
+                    Account account = index != null
+                            ? index.getByUuid(uuid)
+                            : accounts.queryBuilder().orderBy("lastSeen", false).where().eq("uuid", new SelectArg(uuid)).queryForFirst();
+                    if (account != null) {
+                        account.setUuid(uuid); // HOW IS IT EVEN POSSIBLE THAT UUID IS NOT SET EVEN IF WE HAVE FOUND THE PLAYER?!
+                        shortToAccount.put(account.getShortName(), account);
+                        usernameToAccount.put(account.getName(), account);
                     }
-                    throw new Exception("Could not find account for " + uuid);
-                });
-            }
+                    return account;
+                } catch (SQLException e) {
+                    ChestShop.getBukkitLogger().log(Level.WARNING, "Error while getting account for " + uuid + ":", e);
+                    throw e;
+                }
+            });
         } catch (ExecutionException ignored) {
             return null;
         }
@@ -132,21 +173,22 @@ public class NameManager implements Listener {
         Preconditions.checkNotNull(fullName, "fullName cannot be null!");
         Preconditions.checkArgument(!fullName.isEmpty(), "fullName cannot be empty!");
         try {
-            synchronized (accountsLock) {
-                return usernameToAccount.get(fullName, () -> {
-                    try {
-                        Account account = accounts.queryBuilder().orderBy("lastSeen", false).where().eq("name", new SelectArg(fullName)).queryForFirst();
-                        if (account != null) {
-                            account.setName(fullName); // HOW IS IT EVEN POSSIBLE THAT THE NAME IS NOT SET EVEN IF WE HAVE FOUND THE PLAYER?!
-                            shortToAccount.put(account.getShortName(), account);
-                            return account;
-                        }
-                    } catch (SQLException e) {
-                        ChestShop.getBukkitLogger().log(Level.WARNING, "Error while getting account for " + fullName + ":", e);
+            return usernameToAccount.get(fullName, () -> {
+                try {
+                    AccountIndex index = getLoadedIndex();
+                    Account account = index != null
+                            ? index.getByName(fullName)
+                            : accounts.queryBuilder().orderBy("lastSeen", false).where().eq("name", new SelectArg(fullName)).queryForFirst();
+                    if (account != null) {
+                        account.setName(fullName); // HOW IS IT EVEN POSSIBLE THAT THE NAME IS NOT SET EVEN IF WE HAVE FOUND THE PLAYER?!
+                        shortToAccount.put(account.getShortName(), account);
                     }
-                    throw new Exception("Could not find account for " + fullName);
-                });
-            }
+                    return account;
+                } catch (SQLException e) {
+                    ChestShop.getBukkitLogger().log(Level.WARNING, "Error while getting account for " + fullName + ":", e);
+                    throw e;
+                }
+            });
         } catch (ExecutionException ignored) {
             return null;
         }
@@ -174,24 +216,79 @@ public class NameManager implements Listener {
         Account account = null;
 
         try {
-            synchronized (accountsLock) {
-                account = shortToAccount.get(shortName, () -> {
-                    try {
-                        Account a = accounts.queryBuilder().where().eq("shortName", new SelectArg(shortName)).queryForFirst();
-                        if (a != null) {
-                            a.setShortName(shortName); // HOW IS IT EVEN POSSIBLE THAT THE NAME IS NOT SET EVEN IF WE HAVE FOUND THE PLAYER?!
-                            return a;
-                        }
-                    } catch (SQLException e) {
-                        ChestShop.getBukkitLogger().log(Level.WARNING, "Error while getting account for " + shortName + ":", e);
+            account = shortToAccount.get(shortName, () -> {
+                try {
+                    AccountIndex index = getLoadedIndex();
+                    Account a = index != null
+                            ? index.getByShortName(shortName)
+                            : accounts.queryBuilder().where().eq("shortName", new SelectArg(shortName)).queryForFirst();
+                    if (a != null) {
+                        a.setShortName(shortName); // HOW IS IT EVEN POSSIBLE THAT THE NAME IS NOT SET EVEN IF WE HAVE FOUND THE PLAYER?!
                     }
-                    throw new Exception("Could not find account for " + shortName);
-                });
-            }
+                    return a;
+                } catch (SQLException e) {
+                    ChestShop.getBukkitLogger().log(Level.WARNING, "Error while getting account for " + shortName + ":", e);
+                    throw e;
+                }
+            });
         } catch (ExecutionException ignored) {}
         return account;
     }
 
+    /**
+     * Resolve the account for a (shortened) name, like the {@link AccountQueryEvent} does, without blocking the
+     * calling thread. If the answer is already cached then the returned future is completed immediately,
+     * otherwise the database (and offline player data) is queried asynchronously.
+     *
+     * @param name The name of the player to get the account for
+     * @param searchOfflinePlayer Whether or not to search the offline players too
+     * @return A future which completes with the account or <tt>null</tt> if none was found
+     */
+    public static CompletableFuture<Account> resolveAccount(String name, boolean searchOfflinePlayer) {
+        if (isAccountCached(name, searchOfflinePlayer)) {
+            return CompletableFuture.completedFuture(getLastAccountFromName(name, searchOfflinePlayer));
+        }
+        return CompletableFuture.supplyAsync(() -> getLastAccountFromName(name, searchOfflinePlayer), task -> ChestShop.runInAsyncThread("accounts", task));
+    }
+
+    /**
+     * Check whether the account of a (shortened) name can be resolved without querying the database
+     * or the offline player data.
+     *
+     * @param name The name of the player to get the account for
+     * @param searchOfflinePlayer Whether or not the offline players would be searched too
+     * @return Whether or not the account (or the lack of one) is cached
+     */
+    public static boolean isAccountCached(String name, boolean searchOfflinePlayer) {
+        if (name == null || name.isEmpty()) {
+            return true;
+        }
+        if (!shortToAccount.contains(name)) {
+            return false;
+        }
+        Account account = shortToAccount.peek(name);
+        if (account == null) {
+            if (!usernameToAccount.contains(name)) {
+                return false;
+            }
+            account = usernameToAccount.peek(name);
+        }
+        if (account == null) {
+            return !searchOfflinePlayer || invalidPlayers.isKnownAbsent(name.toLowerCase(Locale.ROOT));
+        }
+        return uuidToAccount.contains(account.getUuid());
+    }
+
+    /**
+     * Check whether the account of a UUID (or the lack of one) is cached
+     *
+     * @param uuid The UUID of the player
+     * @return Whether or not {@link #getAccount(UUID)} would be answered without querying the database
+     */
+    public static boolean isAccountCached(UUID uuid) {
+        return uuidToAccount.contains(uuid);
+    }
+
     /**
      * Get the information from the last time a player logged in that previously used the (shortened) name
      *
@@ -205,14 +302,14 @@ public class NameManager implements Listener {
         if (account == null) {
             account = getAccount(name);
         }
-        if (account == null && searchOfflinePlayer && !invalidPlayers.contains(name.toLowerCase(Locale.ROOT))) {
+        if (account == null && searchOfflinePlayer && !invalidPlayers.isKnownAbsent(name.toLowerCase(Locale.ROOT))) {
             // no account with that shortname was found, try to get an offline player with that name
             OfflinePlayer offlinePlayer = ChestShop.getBukkitServer().getOfflinePlayer(name);
             if (offlinePlayer != null && offlinePlayer.getName() != null && offlinePlayer.getUniqueId() != null
                     && (!Properties.ENSURE_CORRECT_PLAYERID || offlinePlayer.getUniqueId().version() == uuidVersion)) {
                 account = storeUsername(new PlayerDTO(offlinePlayer.getUniqueId(), offlinePlayer.getName()));
             } else {
-                invalidPlayers.put(name.toLowerCase(Locale.ROOT), true);
+                invalidPlayers.markAbsent(name.toLowerCase(Locale.ROOT));
             }
         }
         if (account != null) {
@@ -233,61 +330,272 @@ public class NameManager implements Listener {
         Account latestAccount = null;
         synchronized (accountsLock) {
             try {
-                latestAccount = accounts.queryBuilder().where().eq("uuid", new SelectArg(uuid)).and().eq("name", new SelectArg(player.getName())).queryForFirst();
+                latestAccount = findStoredAccount(player);
             } catch (SQLException e) {
                 ChestShop.getBukkitLogger().log(Level.WARNING, "Error while searching for latest account of " + player.getName() + "/" + uuid + ":", e);
             }
 
-            if (latestAccount == null) {
-                latestAccount = new Account(player.getName(), getNewShortenedName(player), player.getUniqueId());
-            }
-
-            latestAccount.setLastSeen(new Date());
             try {
-                storeAccount(latestAccount);
+                if (latestAccount == null) {
+                    latestAccount = createAccount(player);
+                } else {
+                    latestAccount.setLastSeen(new Date());
+                    storeAccount(latestAccount);
+                }
             } catch (SQLException e) {
                 ChestShop.getBukkitLogger().log(Level.WARNING, "Error while updating account " + latestAccount + ":", e);
                 return null;
             }
 
-            usernameToAccount.put(latestAccount.getName(), latestAccount);
-            uuidToAccount.put(uuid, latestAccount);
-            shortToAccount.put(latestAccount.getShortName(), latestAccount);
+            cacheAccount(latestAccount);
         }
 
         return latestAccount;
     }
 
     /**
-     * Store an account into the database
+     * Get the stored account of a player with the player's current name
+     *
+     * @param player The data transfer object of the player
+     * @return The account or <tt>null</tt> if there is none with that UUID and name
+     * @throws SQLException if there was an error querying the database
+     */
+    private static Account findStoredAccount(PlayerDTO player) throws SQLException {
+        AccountIndex index = getLoadedIndex();
+        return index != null
+                ? index.get(player.getUniqueId(), player.getName())
+                : accounts.queryBuilder().where().eq("uuid", new SelectArg(player.getUniqueId())).and().eq("name", new SelectArg(player.getName())).queryForFirst();
+    }
+
+    private static void cacheAccount(Account account) {
+        usernameToAccount.put(account.getName(), account);
+        uuidToAccount.put(account.getUuid(), account);
+        shortToAccount.put(account.getShortName(), account);
+    }
+
+    /**
+     * Queue an update of the name and last seen date of a player with an existing account.
+     * The update is written asynchronously together with other queued updates.
+     *
+     * @param player The data transfer object of the player to store
+     */
+    public static void queueUsername(PlayerDTO player) {
+        AccountUpdateQueue queue = updateQueue;
+        if (queue != null) {
+            queue.add(player);
+        } else {
+            ChestShop.runInAsyncThread("accounts", () -> {
+                if (getAccount(player.getUniqueId()) != null) {
+                    storeUsername(player);
+                }
+            });
+        }
+    }
+
+    /**
+     * Store the usernames of players which already have an account. The last seen dates of the accounts which
+     * exist with the players' current names are updated in one transaction, the accounts of players who
+     * changed their name are created one by one afterwards.
+     * <p>
+     * Creating an account can fail on a short name that another server took, which would abort the whole
+     * transaction on some databases, so only plain updates are batched. The caches are only updated and the
+     * changes are only published to other servers once the transaction was committed.
+     *
+     * @param players The data transfer objects of the players to store
+     * @throws Exception if the transaction failed
+     */
+    static void storeUsernames(List<PlayerDTO> players) throws Exception {
+        List<PlayerDTO> missing = new ArrayList<>();
+        // Same order as storeUsername: the accounts lock first, then the database's writer for the transaction
+        synchronized (accountsLock) {
+            List<Account> updates = new ArrayList<>();
+            for (PlayerDTO player : players) {
+                if (getAccount(player.getUniqueId()) == null) {
+                    continue;
+                }
+                Account account = findStoredAccount(player);
+                if (account != null) {
+                    updates.add(account);
+                } else {
+                    missing.add(player);
+                }
+            }
+
+            if (!updates.isEmpty()) {
+                Date lastSeen = new Date();
+                List<Account> updated = accounts.callBatchTasks(() -> {
+                    List<Account> stored = new ArrayList<>();
+                    for (Account account : updates) {
+                        // Only the date changes, the cached account is left alone until the transaction went through
+                        UpdateBuilder<Account, String> update = accounts.updateBuilder();
+                        update.updateColumnValue("lastSeen", lastSeen);
+                        update.where().idEq(account.getShortName())
+                                .and().eq("uuid", new SelectArg(account.getUuid()))
+                                .and().eq("name", new SelectArg(account.getName()));
+                        if (update.update() > 0) {
+                            stored.add(account);
+                        } else {
+                            // Another server removed or renamed the row in the meantime, it's stored again below
+                            missing.add(new PlayerDTO(account.getUuid(), account.getName()));
+                        }
+                    }
+                    return stored;
+                });
+
+                for (Account account : updated) {
+                    account.setLastSeen(lastSeen);
+                    cacheStoredAccount(account);
+                    cacheAccount(account);
+                }
+            }
+        }
+
+        for (PlayerDTO player : missing) {
+            storeUsername(player);
+        }
+    }
+
+    /**
+     * Write all queued account updates and stop the writer, called when the plugin gets disabled
+     */
+    public static void flushQueuedUsernames() {
+        AccountUpdateQueue queue = updateQueue;
+        updateQueue = null;
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    /**
+     * Create the account of a player which doesn't have one yet. If another server sharing the database
+     * took the short name in the meantime the next free one is used, if it created the account of the
+     * player itself then that account is updated instead.
+     *
+     * @param player The data transfer object of the player
+     * @return The created or updated account
+     * @throws SQLException if there was an error creating the account
+     */
+    private static Account createAccount(PlayerDTO player) throws SQLException {
+        Set<String> takenNames = new HashSet<>();
+        for (int attempt = 1; ; attempt++) {
+            Account account = new Account(player.getName(), getNewShortenedName(player, takenNames), player.getUniqueId());
+            account.setLastSeen(new Date());
+            try {
+                accounts.create(account);
+                cacheStoredAccount(account);
+                return account;
+            } catch (SQLException e) {
+                Account existing = accounts.queryBuilder().where().eq("uuid", new SelectArg(player.getUniqueId())).and().eq("name", new SelectArg(player.getName())).queryForFirst();
+                if (existing != null) {
+                    existing.setLastSeen(account.getLastSeen());
+                    storeAccount(existing);
+                    return existing;
+                }
+                if (attempt >= MAX_CREATE_ATTEMPTS || !accounts.idExists(account.getShortName())) {
+                    throw e;
+                }
+                // The short name might have been cached as unused before the other server took it
+                shortToAccount.remove(account.getShortName());
+                takenNames.add(account.getShortName());
+            }
+        }
+    }
+
+    /**
+     * Store an account into the database. Accounts which exist are updated, the row is only created if
+     * there is none with the account's short name yet.
      *
      * @param account The account to store
      * @throws SQLException if there was an error updating the account
      */
     public static void storeAccount(Account account) throws SQLException {
-        accounts.createOrUpdate(account);
+        if (accounts.update(account) == 0) {
+            accounts.create(account);
+        }
+        cacheStoredAccount(account);
+    }
+
+    private static void cacheStoredAccount(Account account) {
+        AccountIndex index = accountIndex;
+        if (index != null) {
+            index.put(account);
+        }
+        ChestShop.getInvalidationBus().publish(Invalidation.Topic.ACCOUNT, account.getShortName(), account.getName(), account.getUuid().toString());
+    }
+
+    /**
+     * Remove an account which another server wrote from the caches. If the accounts are preloaded
+     * then the account is read from the database again first.
+     *
+     * @param invalidation The invalidation with the short name, name and UUID of the account
+     */
+    private static void invalidate(Invalidation invalidation) {
+        if (invalidation.isAll()) {
+            for (ConcurrentCache<?, ?> cache : new ConcurrentCache[]{usernameToAccount, uuidToAccount, shortToAccount, invalidPlayers}) {
+                cache.clear();
+            }
+            if (accountIndex != null) {
+                AccountIndex index = new AccountIndex();
+                accountIndex = index;
+                Dao<Account, String> dao = accounts;
+                ChestShop.runInAsyncThread("accounts", () -> preloadAccounts(index, dao));
+            }
+            return;
+        }
+
+        String[] keys = invalidation.getKeys();
+        if (keys.length != 3) {
+            return;
+        }
+        Runnable removeKeys = () -> {
+            shortToAccount.remove(keys[0]);
+            usernameToAccount.remove(keys[1]);
+            invalidPlayers.remove(keys[1].toLowerCase(Locale.ROOT));
+            uuidToAccount.remove(UUID.fromString(keys[2]));
+        };
+
+        AccountIndex index = accountIndex;
+        if (index == null) {
+            removeKeys.run();
+            return;
+        }
+        ChestShop.runInAsyncThread("accounts", () -> {
+            try {
+                Account account = accounts.queryForId(keys[0]);
+                if (account != null) {
+                    index.put(account);
+                }
+            } catch (SQLException e) {
+                ChestShop.getBukkitLogger().log(Level.WARNING, "Error while reloading account " + keys[0] + " which another server changed", e);
+            }
+            removeKeys.run();
+        });
     }
 
     /**
      * Get a new unique shortened name that hasn't been used by another player yet
      *
-     * @param player The player data to get the shortened name for
+     * @param player     The player data to get the shortened name for
+     * @param takenNames Short names which are known to be used even if they aren't found
      * @return A new shortened name that hasn't been used before and is a maximum of 15 chars long
      */
-    private static String getNewShortenedName(PlayerDTO player) {
+    private static String getNewShortenedName(PlayerDTO player, Set<String> takenNames) {
         String shortenedName = NameUtil.stripUsername(player.getName());
 
-        Account account = getAccountFromShortName(shortenedName);
-        if (account == null) {
+        if (!isShortNameTaken(shortenedName, takenNames)) {
             return shortenedName;
         }
-        for (int id = 0; account != null; id++) {
+        for (int id = 0; ; id++) {
             String baseId = Base62.encode(id);
             shortenedName = NameUtil.stripUsername(player.getName(), 15 - 1 - baseId.length()) + ":" + baseId;
-            account = getAccountFromShortName(shortenedName);
+            if (!isShortNameTaken(shortenedName, takenNames)) {
+                return shortenedName;
+            }
         }
+    }
 
-        return shortenedName;
+    private static boolean isShortNameTaken(String shortName, Set<String> takenNames) {
+        return takenNames.contains(shortName) || getAccountFromShortName(shortName) != null;
     }
 
     public static boolean canUseName(Player player, Permission base, String name) {
@@ -344,7 +652,77 @@ public class NameManager implements Listener {
         return serverEconomyAccount != null && uuid.equals(serverEconomyAccount.getUuid());
     }
 
+    /**
+     * @return The amount of account lookups which were answered from the caches, including unknown accounts
+     */
+    public static long getCacheHits() {
+        return uuidToAccount.getHits() + usernameToAccount.getHits() + shortToAccount.getHits();
+    }
+
+    /**
+     * @return The amount of account lookups which were answered from the caches with an unknown account
+     */
+    public static long getCacheNegativeHits() {
+        return uuidToAccount.getNegativeHits() + usernameToAccount.getNegativeHits() + shortToAccount.getNegativeHits();
+    }
+
+    /**
+     * @return The amount of account lookups which needed to query the database
+     */
+    public static long getCacheMisses() {
+        return uuidToAccount.getMisses() + usernameToAccount.getMisses() + shortToAccount.getMisses();
+    }
+
+    /**
+     * @return The amount of cached account entries
+     */
+    public static int getCacheSize() {
+        return uuidToAccount.size() + usernameToAccount.size() + shortToAccount.size();
+    }
+
+    /**
+     * @return The amount of accounts which are preloaded into memory, 0 if preloading is disabled
+     */
+    public static int getPreloadedAccountCount() {
+        AccountIndex index = accountIndex;
+        return index != null ? index.size() : 0;
+    }
+
+    /**
+     * @return The estimated memory used by the preloaded accounts in bytes, 0 if preloading is disabled
+     */
+    public static long getPreloadedAccountMemory() {
+        AccountIndex index = accountIndex;
+        return index != null ? index.estimateMemory() : 0;
+    }
+
+    /**
+     * Read the whole accounts table into the index
+     *
+     * @param index The index to fill
+     * @param dao   The DAO to read the accounts with
+     */
+    private static void preloadAccounts(AccountIndex index, Dao<Account, String> dao) {
+        long start = System.currentTimeMillis();
+        try (CloseableIterator<Account> iterator = dao.iterator()) {
+            while (iterator.hasNext()) {
+                index.load(iterator.next());
+            }
+            index.setReady();
+            ChestShop.getBukkitLogger().info("Preloaded " + index.size() + " accounts into memory (~"
+                    + index.estimateMemory() / 1024 + " KiB) in " + (System.currentTimeMillis() - start) + "ms");
+        } catch (Exception e) {
+            ChestShop.getBukkitLogger().log(Level.WARNING, "Error while preloading accounts, they will be queried from the database instead", e);
+            if (accountIndex == index) {
+                accountIndex = null;
+            }
+        }
+    }
+
     public static void load() {
+        for (ConcurrentCache<?, ?> cache : new ConcurrentCache[]{usernameToAccount, uuidToAccount, shortToAccount, invalidPlayers}) {
+            cache.resize(Properties.CACHE_SIZE, Properties.UNKNOWN_ACCOUNT_CACHE_SECONDS, TimeUnit.SECONDS);
+        }
         if (getUuidVersion() < 0) {
             if (Bukkit.getOnlineMode()) {
                 setUuidVersion(4);
@@ -354,6 +732,20 @@ public class NameManager implements Listener {
         }
         try {
             accounts = DaoCreator.getDaoAndCreateTable(Account.class);
+            ChestShop.getInvalidationBus().subscribe(Invalidation.Topic.ACCOUNT, NameManager::invalidate);
+
+            if (updateQueue == null) {
+                updateQueue = new AccountUpdateQueue();
+            }
+
+            if (!Properties.PRELOAD_ACCOUNTS) {
+                accountIndex = null;
+            } else if (accountIndex == null) {
+                AccountIndex index = new AccountIndex();
+                accountIndex = index;
+                Dao<Account, String> dao = accounts;
+                ChestShop.runInAsyncThread("accounts", () -> preloadAccounts(index, dao));
+            }
 
             try {
                 adminAccount = new Account(Properties.ADMIN_SHOP_NAME, Bukkit.getOfflinePlayer(Properties.ADMIN_SHOP_NAME).getUniqueId());
@@ -363,7 +755,7 @@ public class NameManager implements Listener {
                 adminAccount = new Account(Properties.ADMIN_SHOP_NAME, UUID.nameUUIDFromBytes(("OfflinePlayer:" + Properties.ADMIN_SHOP_NAME).getBytes(Charsets.UTF_8)));
                 ChestShop.getBukkitLogger().log(Level.WARNING, "Your server appears to be ratelimited by Mojang and can't query UUID data from their API. If you run into issues with admin shops please report them!");
             }
-            accounts.createOrUpdate(adminAccount);
+            storeAccount(adminAccount);
 
             if (!Properties.SERVER_ECONOMY_ACCOUNT.isEmpty()) {
                 serverEconomyAccount = getAccount(Properties.SERVER_ECONOMY_ACCOUNT);
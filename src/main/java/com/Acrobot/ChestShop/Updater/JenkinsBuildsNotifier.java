@@ -56,7 +56,7 @@ public class JenkinsBuildsNotifier implements Runnable {
 
         try {
             apiUrl = new URL(jenkinsJobUrl + "api/json");
-            ChestShop.runInAsyncThread(this);
+            ChestShop.runInAsyncThread("updates", this);
         } catch (MalformedURLException e) {
             plugin.getLogger().log(Level.WARNING, "Can not check for new dev builds as " + jenkinsJobUrl + "api/json is not a valid url!", e);
         }
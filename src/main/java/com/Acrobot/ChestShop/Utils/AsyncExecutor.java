@@ -0,0 +1,280 @@
+package com.Acrobot.ChestShop.Utils;
+
+import com.Acrobot.ChestShop.ChestShop;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Runs the plugin's asynchronous tasks (database access, logging, update checks) with a limited amount of threads.
+ * <p>
+ * Tasks are either run by a fixed amount of named platform threads or each by its own virtual thread.
+ * In both modes only a limited amount of tasks can wait at the same time, further tasks are handled by the
+ * {@link RejectionPolicy}. How long tasks waited and ran is recorded per task type.
+ */
+public class AsyncExecutor {
+    private final Mode mode;
+    private final RejectionPolicy rejectionPolicy;
+    private final ExecutorService executor;
+    /**
+     * Limits the tasks that were submitted but didn't finish yet in the virtual thread mode
+     */
+    private final Semaphore virtualPermits;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final Map<String, TaskStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new executor
+     *
+     * @param mode            Whether to use a pool of platform threads or one virtual thread per task
+     * @param threads         The amount of platform threads
+     * @param queueSize       How many tasks can wait at most (in the virtual mode: how many can be unfinished at most)
+     * @param rejectionPolicy What to do with tasks if too many are waiting
+     */
+    public AsyncExecutor(Mode mode, int threads, int queueSize, RejectionPolicy rejectionPolicy) {
+        this.mode = mode;
+        this.rejectionPolicy = rejectionPolicy;
+        queueSize = Math.max(1, queueSize);
+        if (mode == Mode.VIRTUAL) {
+            executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ChestShop async ", 0).factory());
+            virtualPermits = new Semaphore(queueSize);
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                    Math.max(1, threads), Math.max(1, threads),
+                    60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueSize),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "ChestShop async " + threadNumber.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    (runnable, e) -> { throw new RejectedExecutionException(); }
+            );
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+            virtualPermits = null;
+        }
+    }
+
+    /**
+     * Run a task asynchronously
+     *
+     * @param type     The type of the task which its metrics are recorded under
+     * @param runnable The task
+     */
+    public void execute(String type, Runnable runnable) {
+        TaskStats taskStats = stats.computeIfAbsent(type, t -> new TaskStats());
+        long submitted = System.nanoTime();
+
+        if (virtualPermits != null && !virtualPermits.tryAcquire()) {
+            reject(type, taskStats, submitted, runnable);
+            return;
+        }
+        queued.incrementAndGet();
+        try {
+            executor.execute(() -> run(type, taskStats, submitted, runnable, virtualPermits != null));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            if (virtualPermits != null) {
+                virtualPermits.release();
+            }
+            reject(type, taskStats, submitted, runnable);
+        }
+    }
+
+    private void run(String type, TaskStats taskStats, long submitted, Runnable runnable, boolean releasePermit) {
+        long started = System.nanoTime();
+        queued.decrementAndGet();
+        active.incrementAndGet();
+        try {
+            runnable.run();
+        } catch (Throwable e) {
+            ChestShop.getBukkitLogger().log(Level.SEVERE, "Error in asynchronous " + type + " task", e);
+        } finally {
+            long finished = System.nanoTime();
+            taskStats.record(started - submitted, finished - started);
+            active.decrementAndGet();
+            completed.increment();
+            if (releasePermit) {
+                virtualPermits.release();
+            }
+        }
+    }
+
+    private void reject(String type, TaskStats taskStats, long submitted, Runnable runnable) {
+        rejected.increment();
+        taskStats.rejected.increment();
+        if (rejectionPolicy == RejectionPolicy.CALLER_RUNS || executor.isShutdown()) {
+            // Tasks submitted while shutting down are still run so that no data gets lost
+            queued.incrementAndGet();
+            run(type, taskStats, submitted, runnable, false);
+        } else {
+            ChestShop.getBukkitLogger().log(Level.WARNING, "Dropped asynchronous " + type + " task as too many tasks are waiting. ("
+                    + queued.get() + " waiting, " + active.get() + " running)");
+        }
+    }
+
+    /**
+     * Stop accepting new tasks and wait for the waiting and running ones to finish. Waiting continues as long as
+     * tasks still finish, only if no task finished for the given time the remaining ones are interrupted.
+     *
+     * @param stallTimeout How long to wait for a task to finish before giving up
+     * @param unit         The unit of the timeout
+     */
+    public void shutdown(long stallTimeout, TimeUnit unit) {
+        executor.shutdown();
+        long stallNanos = unit.toNanos(stallTimeout);
+        long lastCompleted = completed.sum();
+        long lastProgress = System.nanoTime();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                long nowCompleted = completed.sum();
+                if (nowCompleted != lastCompleted) {
+                    lastCompleted = nowCompleted;
+                    lastProgress = System.nanoTime();
+                } else if (System.nanoTime() - lastProgress > stallNanos) {
+                    break;
+                }
+                ChestShop.getBukkitLogger().info("Waiting for " + (queued.get() + active.get()) + " asynchronous tasks to finish...");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (!executor.isTerminated()) {
+            int remaining = executor.shutdownNow().size();
+            ChestShop.getBukkitLogger().log(Level.WARNING, "Asynchronous tasks didn't finish in time! Interrupted "
+                    + active.get() + " running and dropped " + remaining + " waiting tasks.");
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return The amount of tasks which are waiting to be run
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * @return The amount of tasks which are currently running
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * @return The amount of tasks which couldn't be queued because too many tasks were waiting
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return The metrics of the tasks by their type, sorted by the type
+     */
+    public Map<String, TaskStats> getStats() {
+        return new TreeMap<>(stats);
+    }
+
+    public enum Mode {
+        /**
+         * Run tasks on a fixed amount of platform threads
+         */
+        PLATFORM,
+        /**
+         * Run every task on its own virtual thread
+         */
+        VIRTUAL
+    }
+
+    public enum RejectionPolicy {
+        /**
+         * Run the task on the thread which submitted it
+         */
+        CALLER_RUNS,
+        /**
+         * Drop the task and log a warning
+         */
+        DISCARD
+    }
+
+    /**
+     * The metrics of one type of task
+     */
+    public static class TaskStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder totalQueueTime = new LongAdder();
+        private final LongAdder totalRunTime = new LongAdder();
+        private final LongAccumulator maxQueueTime = new LongAccumulator(Math::max, 0);
+        private final LongAccumulator maxRunTime = new LongAccumulator(Math::max, 0);
+
+        private void record(long queueTime, long runTime) {
+            count.increment();
+            totalQueueTime.add(queueTime);
+            totalRunTime.add(runTime);
+            maxQueueTime.accumulate(queueTime);
+            maxRunTime.accumulate(runTime);
+        }
+
+        /**
+         * @return The amount of finished tasks
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getRejected() {
+            return rejected.sum();
+        }
+
+        /**
+         * @return The average time in milliseconds the tasks waited before they were run
+         */
+        public double getAverageQueueMillis() {
+            long count = getCount();
+            return count > 0 ? totalQueueTime.sum() / 1e6 / count : 0;
+        }
+
+        public double getMaxQueueMillis() {
+            return maxQueueTime.get() / 1e6;
+        }
+
+        /**
+         * @return The average time in milliseconds the tasks took to run
+         */
+        public double getAverageRunMillis() {
+            long count = getCount();
+            return count > 0 ? totalRunTime.sum() / 1e6 / count : 0;
+        }
+
+        public double getMaxRunMillis() {
+            return maxRunTime.get() / 1e6;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.Acrobot.ChestShop.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resolves (partially typed) item aliases to their item codes without looking at every alias.
+ * <p>
+ * An input resolves to the code of the alias with exactly that name. Otherwise the aliases are matched
+ * in the order of the map the index was created from: the shortest (first) alias starting with the
+ * case-insensitive input wins, unless an alias with the same amount of parts (split at spaces, underscores,
+ * dashes and before capital letters and digits of the input) whose parts all start with the input's parts
+ * comes first. Such an alias is only skipped if it is also the shortest prefix match found up to that point.
+ * <p>
+ * The aliases matching all parts are found by intersecting the sorted alias lists of one prefix tree per part,
+ * skipping ahead with binary searches instead of visiting every alias which only matches some of the parts.
+ */
+public class ItemAliasIndex {
+    /**
+     * The maximum length an alias can have to be found by its prefix
+     */
+    private static final int MAX_PREFIX_LENGTH = Short.MAX_VALUE;
+
+    private final String[] codes;
+    private final int[] lengths;
+    private final String[][] parts;
+
+    private final Map<String, String> byAlias;
+    private final PrefixNode root = new PrefixNode();
+    /**
+     * Prefix trees over each part of the aliases by the amount of parts of the aliases
+     */
+    private final Map<Integer, PartNode[]> byPartCount = new HashMap<>();
+
+    /**
+     * Create a new index
+     *
+     * @param aliases The aliases by their item codes, in the order they should be matched in
+     */
+    public ItemAliasIndex(Map<String, String> aliases) {
+        int size = aliases.size();
+        codes = new String[size];
+        lengths = new int[size];
+        parts = new String[size][];
+        byAlias = new HashMap<>(size * 4 / 3 + 1);
+
+        int index = 0;
+        for (Map.Entry<String, String> entry : aliases.entrySet()) {
+            String alias = entry.getValue();
+            String upperCaseAlias = alias.toUpperCase(Locale.ROOT);
+
+            codes[index] = entry.getKey();
+            lengths[index] = alias.length();
+            parts[index] = split(upperCaseAlias);
+            byAlias.putIfAbsent(alias, entry.getKey());
+
+            root.insert(upperCaseAlias, index, lengths);
+            if (parts[index].length > 1) {
+                PartNode[] partNodes = byPartCount.computeIfAbsent(parts[index].length, ItemAliasIndex::newPartNodes);
+                for (int i = 0; i < parts[index].length; i++) {
+                    partNodes[i].insert(parts[index][i], index);
+                }
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Resolve an item string to the code of an alias
+     *
+     * @param itemString The item string, e.g. from a sign
+     * @return The code of the matching alias or <tt>null</tt> if no alias matches
+     */
+    public String resolve(String itemString) {
+        String code = byAlias.get(itemString);
+        if (code != null) {
+            return code;
+        }
+
+        PrefixNode prefixNode = root.find(itemString.toUpperCase(Locale.ROOT));
+
+        String[] typeParts = split(toParts(itemString).toUpperCase(Locale.ROOT));
+        if (typeParts.length > 1) {
+            int index = findPartMatch(typeParts, prefixNode);
+            if (index > -1) {
+                return codes[index];
+            }
+        }
+
+        if (prefixNode != null && prefixNode.size > 0) {
+            return codes[prefixNode.records[prefixNode.size - 1]];
+        }
+        return null;
+    }
+
+    /**
+     * Find the first alias whose parts all start with the respective parts of the input
+     *
+     * @param typeParts  The parts of the input
+     * @param prefixNode The node of the input in the prefix tree, its records are skipped
+     * @return The index of the alias or -1 if there is none
+     */
+    private int findPartMatch(String[] typeParts, PrefixNode prefixNode) {
+        PartNode[] partNodes = byPartCount.get(typeParts.length);
+        if (partNodes == null) {
+            return -1;
+        }
+        PartNode[] nodes = new PartNode[typeParts.length];
+        for (int i = 0; i < typeParts.length; i++) {
+            nodes[i] = partNodes[i].find(typeParts[i]);
+            if (nodes[i] == null) {
+                return -1;
+            }
+        }
+
+        // Every round moves all lists to the current candidate, a list without it moves the candidate further
+        int[] positions = new int[nodes.length];
+        int candidate = 0;
+        while (true) {
+            boolean matchesAll = true;
+            for (int i = 0; i < nodes.length; i++) {
+                PartNode node = nodes[i];
+                int position = Arrays.binarySearch(node.indices, positions[i], node.size, candidate);
+                if (position < 0) {
+                    position = -position - 1;
+                }
+                if (position == node.size) {
+                    return -1;
+                }
+                positions[i] = position;
+                if (node.indices[position] != candidate) {
+                    candidate = node.indices[position];
+                    matchesAll = false;
+                }
+            }
+            if (matchesAll) {
+                if (prefixNode == null || !prefixNode.isRecord(candidate)) {
+                    return candidate;
+                }
+                candidate++;
+            }
+        }
+    }
+
+    private static PartNode[] newPartNodes(int partCount) {
+        PartNode[] nodes = new PartNode[partCount];
+        for (int i = 0; i < partCount; i++) {
+            nodes[i] = new PartNode();
+        }
+        return nodes;
+    }
+
+    /**
+     * Put an underscore in front of every capital letter and digit (except 0) which isn't the first character
+     */
+    private static String toParts(String itemString) {
+        StringBuilder builder = null;
+        for (int i = 1; i < itemString.length(); i++) {
+            char c = itemString.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= '1' && c <= '9')) {
+                if (builder == null) {
+                    builder = new StringBuilder(itemString.length() + 8).append(itemString, 0, i);
+                }
+                builder.append('_');
+            }
+            if (builder != null) {
+                builder.append(c);
+            }
+        }
+        return builder != null ? builder.toString() : itemString;
+    }
+
+    /**
+     * Split a string at spaces, underscores and dashes, like {@link String#split(String)} this drops trailing empty parts
+     */
+    private static String[] split(String string) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c == ' ' || c == '_' || c == '-') {
+                parts.add(string.substring(start, i));
+                start = i + 1;
+            }
+        }
+        if (parts.isEmpty()) {
+            return new String[]{string};
+        }
+        parts.add(string.substring(start));
+
+        int size = parts.size();
+        while (size > 0 && parts.get(size - 1).isEmpty()) {
+            size--;
+        }
+        return parts.subList(0, size).toArray(new String[0]);
+    }
+
+    /**
+     * A node of the prefix tree over the upper case aliases. Every node knows the aliases starting with its
+     * prefix which were shorter than all aliases with that prefix before them, the last one is the best match.
+     */
+    private static class PrefixNode {
+        private char[] keys = new char[0];
+        private PrefixNode[] children = new PrefixNode[0];
+        private int[] records = new int[0];
+        private int size = 0;
+
+        private void insert(String alias, int index, int[] lengths) {
+            PrefixNode node = this;
+            for (int depth = 0; ; depth++) {
+                node.addRecord(index, lengths);
+                if (depth == alias.length()) {
+                    return;
+                }
+                node = node.getOrCreateChild(alias.charAt(depth));
+            }
+        }
+
+        private void addRecord(int index, int[] lengths) {
+            int length = lengths[index];
+            if (length >= MAX_PREFIX_LENGTH || (size > 0 && length >= lengths[records[size - 1]])) {
+                return;
+            }
+            if (size == records.length) {
+                records = Arrays.copyOf(records, Math.max(2, size * 2));
+            }
+            records[size++] = index;
+        }
+
+        private boolean isRecord(int index) {
+            return Arrays.binarySearch(records, 0, size, index) > -1;
+        }
+
+        private PrefixNode getOrCreateChild(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            return children[children.length - 1] = new PrefixNode();
+        }
+
+        private PrefixNode find(String prefix) {
+            PrefixNode node = this;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.getChild(prefix.charAt(i));
+            }
+            return node;
+        }
+
+        private PrefixNode getChild(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A node of a prefix tree over one part of aliases. Every node knows all aliases whose part
+     * starts with its prefix, in the order of the aliases.
+     */
+    private static class PartNode {
+        private char[] keys = new char[0];
+        private PartNode[] children = new PartNode[0];
+        private int[] indices = new int[0];
+        private int size = 0;
+
+        private void insert(String part, int index) {
+            PartNode node = this;
+            for (int depth = 0; ; depth++) {
+                if (node.size == node.indices.length) {
+                    node.indices = Arrays.copyOf(node.indices, Math.max(2, node.size * 2));
+                }
+                node.indices[node.size++] = index;
+                if (depth == part.length()) {
+                    return;
+                }
+                node = node.getOrCreateChild(part.charAt(depth));
+            }
+        }
+
+        private PartNode getOrCreateChild(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            return children[children.length - 1] = new PartNode();
+        }
+
+        private PartNode find(String prefix) {
+            PartNode node = this;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                PartNode child = null;
+                for (int j = 0; j < node.keys.length; j++) {
+                    if (node.keys[j] == prefix.charAt(i)) {
+                        child = node.children[j];
+                        break;
+                    }
+                }
+                node = child;
+            }
+            return node;
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.Acrobot.ChestShop.Utils;
 
+import com.Acrobot.Breeze.Collection.SimpleCache;
 import com.Acrobot.Breeze.Utils.InventoryUtil;
 import com.Acrobot.Breeze.Utils.MaterialUtil;
 import com.Acrobot.ChestShop.ChestShop;
+import com.Acrobot.ChestShop.Configuration.Properties;
 import com.Acrobot.ChestShop.Events.ItemParseEvent;
 import com.Acrobot.ChestShop.Events.ItemStringQueryEvent;
 import org.bukkit.Bukkit;
@@ -16,6 +18,17 @@ import static com.Acrobot.Breeze.Utils.MaterialUtil.MAXIMUM_SIGN_WIDTH;
 import static com.Acrobot.Breeze.Utils.StringUtil.getMinecraftStringWidth;
 
 public class ItemUtil {
+    /**
+     * Verified item codes by the item (with an amount of 1) and the maximum width
+     */
+    private static volatile SimpleCache<NameKey, String> names = new SimpleCache<>(Properties.CACHE_SIZE);
+
+    /**
+     * Clear the cached item names, e.g. after the item aliases were reloaded
+     */
+    public static void clearNameCache() {
+        names = new SimpleCache<>(Properties.CACHE_SIZE);
+    }
 
     /**
      * Get a list with item information
@@ -47,13 +60,29 @@ public class ItemUtil {
 
 
     /**
-     * Returns item's name, with a maximum width
+     * Returns item's name, with a maximum width. Names are cached until {@link #clearNameCache()} is called.
      *
      * @param itemStack ItemStack to name
      * @param maxWidth The max width that the name should have; 0 or below if it should be unlimited
      * @return ItemStack's name
      */
     public static String getName(ItemStack itemStack, int maxWidth) {
+        ItemStack item = itemStack.clone();
+        item.setAmount(1);
+        NameKey key = new NameKey(item, maxWidth);
+
+        SimpleCache<NameKey, String> names = ItemUtil.names;
+        String name = names.get(key);
+        if (name == null) {
+            name = queryName(itemStack, maxWidth);
+            if (name != null) {
+                names.put(key, name);
+            }
+        }
+        return name;
+    }
+
+    private static String queryName(ItemStack itemStack, int maxWidth) {
         String code = ChestShop.callEvent(new ItemStringQueryEvent(itemStack, maxWidth)).getItemString();
         if (code != null) {
             if (maxWidth > 0) {
@@ -97,4 +126,33 @@ public class ItemUtil {
     public static String getSignName(ItemStack itemStack) {
         return getName(itemStack, MAXIMUM_SIGN_WIDTH);
     }
+
+    private static class NameKey {
+        private final ItemStack item;
+        private final int maxWidth;
+        private final int hash;
+
+        private NameKey(ItemStack item, int maxWidth) {
+            this.item = item;
+            this.maxWidth = maxWidth;
+            this.hash = 31 * item.hashCode() + maxWidth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof NameKey)) {
+                return false;
+            }
+            NameKey key = (NameKey) o;
+            return hash == key.hash && maxWidth == key.maxWidth && item.equals(key.item);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 }
@@ -3,6 +3,7 @@ package com.Acrobot.ChestShop.Utils;
 import com.Acrobot.Breeze.Utils.BlockUtil;
 import com.Acrobot.ChestShop.Configuration.Properties;
 import com.Acrobot.ChestShop.Signs.ChestShopSign;
+import com.Acrobot.ChestShop.Signs.ShopIndex;
 import org.bukkit.Location;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
@@ -213,10 +214,16 @@ public class uBlock {
     public static List<Sign> findConnectedShopSigns(Block chestBlock) {
         List<Sign> result = new ArrayList<>();
 
+        // Unknown (null) nearby signs mean that all faces need to be checked
+        long[] nearbyShopSigns = ShopIndex.getNearbyShopSigns(chestBlock);
+        if (nearbyShopSigns != null && nearbyShopSigns.length == 0) {
+            return result;
+        }
+
         for (BlockFace bf : SHOP_FACES) {
             Block faceBlock = chestBlock.getRelative(bf);
 
-            if (!BlockUtil.isSign(faceBlock)) {
+            if (!ShopIndex.mightContain(nearbyShopSigns, faceBlock) || !BlockUtil.isSign(faceBlock)) {
                 continue;
             }
 
@@ -236,9 +243,14 @@ public class uBlock {
     }
 
     public static Sign findAnyNearbyShopSign(Block block) {
+        long[] nearbyShopSigns = ShopIndex.getNearbyShopSigns(block);
+        if (nearbyShopSigns != null && nearbyShopSigns.length == 0) {
+            return null;
+        }
+
         for (BlockFace bf : SHOP_FACES) {
             Block faceBlock = block.getRelative(bf);
-            if (!BlockUtil.isLoaded(faceBlock)) {
+            if (!ShopIndex.mightContain(nearbyShopSigns, faceBlock) || !BlockUtil.isLoaded(faceBlock)) {
                 continue;
             }
 
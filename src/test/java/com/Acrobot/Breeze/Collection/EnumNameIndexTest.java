@@ -0,0 +1,119 @@
+package com.Acrobot.Breeze.Collection;
+
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Checks that the {@link EnumNameIndex} finds the same constants as the linear search that was used before it
+ */
+public class EnumNameIndexTest {
+    private static final EnumNameIndex<Material> INDEX = new EnumNameIndex<>(Material.values());
+
+    @Test
+    public void testExactNames() {
+        for (Material material : Material.values()) {
+            assertSame(material, INDEX.getExact(material.name()));
+            assertSame(material, INDEX.find(material.name()));
+        }
+    }
+
+    @Test
+    public void testExampleNames() {
+        String[] names = {
+                "DIAMON_PICKA", "DIA_PICK", "EXP_BOTTLE", "D", "DIAMOND", "STONE", "ST", "S_S", "RED_WOOL", "R_W",
+                "OAK", "OAK_", "_", "__", "", "X", "ZZZ", "WOOD_SW", "GOLD_HELM", "LEGACY_", "A_B_C_D_E"
+        };
+        for (String name : names) {
+            assertEquals(findLinear(name), INDEX.find(name), name);
+        }
+    }
+
+    @Test
+    public void testPartialNames() {
+        Random random = new Random(42);
+        Material[] materials = Material.values();
+        List<String> names = new ArrayList<>();
+        for (Material material : materials) {
+            String name = material.name();
+            names.add(name.substring(0, 1 + random.nextInt(name.length())));
+
+            StringBuilder abbreviation = new StringBuilder();
+            for (String part : name.split("_")) {
+                if (abbreviation.length() > 0) {
+                    abbreviation.append('_');
+                }
+                abbreviation.append(part, 0, part.isEmpty() ? 0 : 1 + random.nextInt(part.length()));
+            }
+            names.add(abbreviation.toString());
+        }
+
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder name = new StringBuilder();
+            int parts = 1 + random.nextInt(4);
+            for (int j = 0; j < parts; j++) {
+                if (j > 0) {
+                    name.append('_');
+                }
+                String part = materials[random.nextInt(materials.length)].name().split("_")[0];
+                name.append(part, 0, random.nextInt(part.length() + 1));
+            }
+            names.add(name.toString());
+        }
+
+        for (String name : names) {
+            assertEquals(findLinear(name), INDEX.find(name), name);
+        }
+    }
+
+    /**
+     * The linear search of MaterialUtil's EnumParser that was used before the index
+     */
+    private static Material findLinear(String formatted) {
+        try {
+            return Material.valueOf(formatted);
+        } catch (IllegalArgumentException exception) {
+            List<Material> possibleEnums = new ArrayList<>();
+            String[] typeParts = formatted.split("_");
+            int length = Short.MAX_VALUE;
+            for (Material e : Material.values()) {
+                String enumName = e.name();
+                if (enumName.length() < length && enumName.startsWith(formatted)) {
+                    length = enumName.length();
+                    possibleEnums.add(e);
+                } else if (typeParts.length > 1) {
+                    String[] nameParts = enumName.split("_");
+                    if (typeParts.length == nameParts.length) {
+                        boolean matched = true;
+                        for (int i = 0; i < nameParts.length; i++) {
+                            if (!nameParts[i].startsWith(typeParts[i])) {
+                                matched = false;
+                                break;
+                            }
+                        }
+                        if (matched) {
+                            possibleEnums.add(e);
+                        }
+                    }
+                }
+            }
+
+            int closestDeviation = Short.MAX_VALUE;
+            Material closestEnum = null;
+            for (Material possibleEnum : possibleEnums) {
+                int deviation = possibleEnum.name().length() - formatted.length();
+                if (deviation < closestDeviation) {
+                    closestDeviation = deviation;
+                    closestEnum = possibleEnum;
+                }
+            }
+            return closestEnum;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.Acrobot.Breeze.Utils;
+
+import org.bukkit.Material;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the {@link InventoryCount} counts and fits items exactly like the per-item inventory scans did
+ */
+public class InventoryCountTest {
+    private static final Material[] MATERIALS = {Material.STONE, Material.DIRT, Material.ENDER_PEARL, Material.DIAMOND_SWORD};
+
+    @Test
+    public void testOverStackedSlots() {
+        // The items fit into the empty slot before the over-stacked pearls take away space again
+        Inventory inventory = inventory(InventoryType.CHEST,
+                item(Material.ENDER_PEARL, 10), null, item(Material.ENDER_PEARL, 40), item(Material.STONE, 64));
+        InventoryCount count = InventoryCount.of(inventory, item(Material.ENDER_PEARL, 22));
+
+        assertEquals(50, count.getAmount(0));
+        assertEquals(6 - 24, count.getStackSpace(0));
+        assertTrue(count.fits(0, 22));
+        assertFalse(count.fits(0, 23));
+        assertEquals(oldFits(item(Material.ENDER_PEARL, 1), 22, inventory), count.fits(0, 22));
+        assertEquals(oldFits(item(Material.ENDER_PEARL, 1), 23, inventory), count.fits(0, 23));
+    }
+
+    @Test
+    public void testAdminInventory() {
+        Inventory inventory = inventory(null, item(Material.STONE, 1), null);
+        InventoryCount count = InventoryCount.of(inventory, item(Material.STONE, 5000), item(Material.DIRT, 1));
+
+        assertEquals(oldGetAmount(item(Material.STONE, 1), inventory), count.getAmount(0));
+        assertEquals(oldGetAmount(item(Material.DIRT, 1), inventory), count.getAmount(1));
+        assertEquals(oldHasItems(new ItemStack[]{item(Material.STONE, 5000)}, inventory),
+                InventoryCount.of(inventory, item(Material.STONE, 5000)).hasItems());
+    }
+
+    @Test
+    public void testRandomInventories() {
+        Random random = new Random(42);
+        for (int run = 0; run < 5000; run++) {
+            Inventory inventory = randomInventory(random);
+            ItemStack[] items = randomItems(random);
+            InventoryCount count = InventoryCount.of(inventory, items);
+
+            assertCount(inventory, items, count);
+            assertEquals(oldHasItems(items, inventory), count.hasItems(), () -> describe(inventory, items));
+            assertEquals(oldFits(items, inventory), count.fits(), () -> describe(inventory, items));
+            assertEquals(InventoryUtil.countEmpty(inventory), count.getEmptySlots());
+
+            for (int i = 0; i < count.getTargetCount(); i++) {
+                int amount = random.nextInt(40 * 64);
+                assertEquals(oldFits(count.getTarget(i), amount, inventory), count.fits(i, amount),
+                        () -> amount + " in " + describe(inventory, items));
+            }
+        }
+    }
+
+    @Test
+    public void testWithStock() {
+        Random random = new Random(1337);
+        for (int run = 0; run < 5000; run++) {
+            Inventory inventory = randomInventory(random);
+            ItemStack[] items = randomItems(random);
+            InventoryCount count = InventoryCount.of(inventory, items);
+
+            // Different amounts and order of the counted items
+            ItemStack[] stock = new ItemStack[1 + random.nextInt(items.length)];
+            for (int i = 0; i < stock.length; i++) {
+                stock[i] = item(items[random.nextInt(items.length)].getType(), 1 + random.nextInt(200));
+            }
+            InventoryCount reused = count.withStock(stock);
+            assertNotNull(reused);
+            assertCount(inventory, stock, reused);
+            InventoryCount fresh = InventoryCount.of(inventory, stock);
+            assertEquals(fresh.getTargetCount(), reused.getTargetCount());
+            assertEquals(fresh.hasItems(), reused.hasItems());
+            assertEquals(fresh.fits(), reused.fits());
+            assertEquals(fresh.getEmptySlots(), reused.getEmptySlots());
+            for (int i = 0; i < fresh.getTargetCount(); i++) {
+                assertEquals(fresh.getTarget(i).getType(), reused.getTarget(i).getType());
+                assertEquals(fresh.getWanted(i), reused.getWanted(i));
+                assertEquals(fresh.getAmount(i), reused.getAmount(i));
+                assertEquals(fresh.getStackSpace(i), reused.getStackSpace(i));
+            }
+
+            Material missing = Arrays.stream(MATERIALS)
+                    .filter(material -> Arrays.stream(items).noneMatch(item -> item.getType() == material))
+                    .findFirst().orElse(null);
+            if (missing != null) {
+                assertNull(count.withStock(item(missing, 1)));
+            }
+        }
+    }
+
+    /**
+     * Compare every counted target with the results of the old per-item methods
+     */
+    private static void assertCount(Inventory inventory, ItemStack[] items, InventoryCount count) {
+        Map<ItemStack, Integer> itemCounts = InventoryUtil.getItemCounts(items);
+        assertEquals(itemCounts.size(), count.getTargetCount());
+
+        int target = 0;
+        for (Map.Entry<ItemStack, Integer> entry : itemCounts.entrySet()) {
+            ItemStack item = entry.getKey();
+            assertEquals(item.getType(), count.getTarget(target).getType());
+            assertEquals(1, count.getTarget(target).getAmount());
+            assertEquals((int) entry.getValue(), count.getWanted(target));
+            assertEquals(oldGetAmount(item, inventory), count.getAmount(target), () -> describe(inventory, items));
+            assertEquals(oldStackSpace(item, inventory), count.getStackSpace(target), () -> describe(inventory, items));
+            assertEquals(oldFits(item, entry.getValue(), inventory), count.fits(target, entry.getValue()),
+                    () -> describe(inventory, items));
+            target++;
+        }
+    }
+
+    private static Inventory randomInventory(Random random) {
+        ItemStack[] contents = new ItemStack[1 + random.nextInt(36)];
+        for (int i = 0; i < contents.length; i++) {
+            int kind = random.nextInt(10);
+            if (kind < 3) {
+                continue;
+            }
+            if (kind == 3) {
+                contents[i] = item(Material.AIR, 1);
+                continue;
+            }
+            Material material = MATERIALS[random.nextInt(MATERIALS.length)];
+            int maxStackSize = maxStackSize(material);
+            // Some slots are over-stacked
+            int amount = kind == 4 ? maxStackSize + 1 + random.nextInt(2 * maxStackSize) : 1 + random.nextInt(maxStackSize);
+            contents[i] = item(material, amount);
+        }
+        return inventory(random.nextInt(20) == 0 ? null : InventoryType.CHEST, contents);
+    }
+
+    private static ItemStack[] randomItems(Random random) {
+        ItemStack[] items = new ItemStack[1 + random.nextInt(5)];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = item(MATERIALS[random.nextInt(MATERIALS.length)], 1 + random.nextInt(random.nextBoolean() ? 64 : 2000));
+        }
+        return items;
+    }
+
+    private static String describe(Inventory inventory, ItemStack[] items) {
+        return Arrays.toString(items) + " in " + inventory.getType() + " " + Arrays.toString(inventory.getStorageContents());
+    }
+
+    /**
+     * The InventoryUtil#getAmount that was used before the count
+     */
+    private static int oldGetAmount(ItemStack item, Inventory inventory) {
+        if (!inventory.contains(item.getType())) {
+            return 0;
+        }
+
+        if (inventory.getType() == null) {
+            return Integer.MAX_VALUE;
+        }
+
+        HashMap<Integer, ? extends ItemStack> items = inventory.all(item.getType());
+        int itemAmount = 0;
+
+        for (ItemStack iStack : items.values()) {
+            if (!MaterialUtil.equals(iStack, item)) {
+                continue;
+            }
+
+            itemAmount += iStack.getAmount();
+        }
+
+        return itemAmount;
+    }
+
+    /**
+     * The InventoryUtil#hasItems that was used before the count
+     */
+    private static boolean oldHasItems(ItemStack[] items, Inventory inventory) {
+        Map<ItemStack, Integer> itemCounts = InventoryUtil.getItemCounts(items);
+        for (Map.Entry<ItemStack, Integer> entry : itemCounts.entrySet()) {
+            if (oldGetAmount(entry.getKey(), inventory) < entry.getValue()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * The InventoryUtil#fits(ItemStack[], Inventory) that was used before the count
+     */
+    private static boolean oldFits(ItemStack[] items, Inventory inventory) {
+        Map<ItemStack, Integer> itemCounts = InventoryUtil.getItemCounts(items);
+        for (Map.Entry<ItemStack, Integer> entry : itemCounts.entrySet()) {
+            if (!oldFits(entry.getKey(), entry.getValue(), inventory)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * The InventoryUtil#fits(ItemStack, int, Inventory) that the old multi-item methods called for each item
+     */
+    private static boolean oldFits(ItemStack item, int amount, Inventory inventory) {
+        int left = amount;
+        if (inventory.getSize() == Integer.MAX_VALUE) {
+            return true;
+        }
+
+        for (ItemStack iStack : inventory.getStorageContents()) {
+            if (left <= 0) {
+                return true;
+            }
+
+            if (MaterialUtil.isEmpty(iStack)) {
+                left -= InventoryUtil.getMaxStackSize(item);
+                continue;
+            }
+
+            if (!MaterialUtil.equals(iStack, item)) {
+                continue;
+            }
+
+            left -= (InventoryUtil.getMaxStackSize(iStack) - iStack.getAmount());
+        }
+
+        return left <= 0;
+    }
+
+    /**
+     * The free space in the existing stacks like PartialTransactionModule calculated it before the count
+     */
+    private static int oldStackSpace(ItemStack item, Inventory inventory) {
+        int space = 0;
+        for (ItemStack iStack : inventory.getStorageContents()) {
+            if (!MaterialUtil.isEmpty(iStack) && MaterialUtil.equals(iStack, item)) {
+                space += InventoryUtil.getMaxStackSize(iStack) - iStack.getAmount();
+            }
+        }
+        return space;
+    }
+
+    private static int maxStackSize(Material material) {
+        switch (material) {
+            case ENDER_PEARL:
+                return 16;
+            case DIAMOND_SWORD:
+                return 1;
+            default:
+                return 64;
+        }
+    }
+
+    private static ItemStack item(Material material, int amount) {
+        return new TestItem(material, amount);
+    }
+
+    /**
+     * A simple inventory, <tt>null</tt> as the type makes it an admin inventory
+     */
+    private static Inventory inventory(InventoryType type, ItemStack... contents) {
+        return (Inventory) Proxy.newProxyInstance(Inventory.class.getClassLoader(), new Class[]{Inventory.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getStorageContents":
+                case "getContents":
+                    return contents.clone();
+                case "getType":
+                    return type;
+                case "getSize":
+                    return type == null ? Integer.MAX_VALUE : contents.length;
+                case "contains":
+                    if (args.length == 1 && args[0] instanceof Material) {
+                        return Arrays.stream(contents).anyMatch(stack -> stack != null && stack.getType() == args[0]);
+                    }
+                    break;
+                case "all":
+                    if (args.length == 1 && args[0] instanceof Material) {
+                        HashMap<Integer, ItemStack> all = new HashMap<>();
+                        for (int i = 0; i < contents.length; i++) {
+                            if (contents[i] != null && contents[i].getType() == args[0]) {
+                                all.put(i, contents[i]);
+                            }
+                        }
+                        return all;
+                    }
+                    break;
+                case "toString":
+                    return "Inventory" + Arrays.toString(contents);
+            }
+            throw new UnsupportedOperationException(method.toString());
+        });
+    }
+
+    /**
+     * An item without any meta which doesn't need a server to compare itself
+     */
+    private static class TestItem extends ItemStack {
+        private TestItem(Material type, int amount) {
+            super(type, amount);
+        }
+
+        @Override
+        public boolean isSimilar(ItemStack stack) {
+            return stack != null && stack.getType() == getType();
+        }
+
+        @Override
+        public short getDurability() {
+            return 0;
+        }
+
+        @Override
+        public boolean hasItemMeta() {
+            return false;
+        }
+
+        @Override
+        public ItemMeta getItemMeta() {
+            return null;
+        }
+
+        @Override
+        public int getMaxStackSize() {
+            return maxStackSize(getType());
+        }
+
+        @Override
+        public String toString() {
+            return getType() + " x " + getAmount();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.Acrobot.ChestShop.Tests;
+
+import com.Acrobot.ChestShop.Database.CacheInvalidation;
+import com.Acrobot.ChestShop.Database.ConnectionManager;
+import com.Acrobot.ChestShop.Database.DaoCreator;
+import com.Acrobot.ChestShop.Database.DatabaseBackend;
+import com.Acrobot.ChestShop.Database.Invalidation.DatabaseTransport;
+import com.Acrobot.ChestShop.Database.Invalidation.Invalidation;
+import com.Acrobot.ChestShop.Database.Invalidation.InvalidationBus;
+import com.Acrobot.ChestShop.Database.Invalidation.LoopbackTransport;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.support.DatabaseConnection;
+import com.j256.ormlite.support.ConnectionSource;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that invalidations reach the other servers but not the sender
+ */
+public class InvalidationBusTest {
+
+    @Test
+    public void testEncoding() throws IOException {
+        Invalidation invalidation = new Invalidation("node", Invalidation.Topic.ACCOUNT, "Short", "Full name", "\u00e4\u00f6\u00fc");
+        Invalidation decoded = Invalidation.decode(invalidation.encode());
+        assertEquals("node", decoded.getOrigin());
+        assertEquals(Invalidation.Topic.ACCOUNT, decoded.getTopic());
+        assertArrayEquals(invalidation.getKeys(), decoded.getKeys());
+        assertTrue(Invalidation.decode(new Invalidation("node", Invalidation.Topic.ITEM).encode()).isAll());
+    }
+
+    @Test
+    public void testLoopback() {
+        LoopbackTransport transport = new LoopbackTransport();
+        InvalidationBus first = new InvalidationBus(transport);
+        InvalidationBus second = new InvalidationBus(transport.join());
+        List<String> firstReceived = new ArrayList<>();
+        List<String> secondReceived = new ArrayList<>();
+        first.subscribe(Invalidation.Topic.ITEM, invalidation -> firstReceived.add(invalidation.getKeys()[0]));
+        second.subscribe(Invalidation.Topic.ITEM, invalidation -> secondReceived.add(invalidation.getKeys()[0]));
+        first.start();
+        second.start();
+
+        first.publish(Invalidation.Topic.ITEM, "1");
+        second.publish(Invalidation.Topic.ITEM, "2");
+        second.publish(Invalidation.Topic.ACCOUNT, "Short", "Name", UUID.randomUUID().toString());
+
+        assertEquals(List.of("2"), firstReceived);
+        assertEquals(List.of("1"), secondReceived);
+        assertEquals(2, first.getReceived());
+        assertEquals(2, second.getPublished());
+
+        second.stop();
+        first.publish(Invalidation.Topic.ITEM, "3");
+        assertEquals(List.of("1"), secondReceived);
+        first.stop();
+    }
+
+    @Test
+    public void testDatabase() throws Exception {
+        ConnectionSource store = ConnectionManager.openPooled(DatabaseBackend.H2, "jdbc:h2:mem:invalidations-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "", "", 2);
+        try {
+            DaoCreator.createTableIfNotExists(store, CacheInvalidation.class, "cs_");
+            Dao<CacheInvalidation, Long> dao = DaoCreator.getDao(store, CacheInvalidation.class, "cs_");
+            dao.create(new CacheInvalidation("old", Invalidation.Topic.ITEM.name(), new String[]{"0"}, System.currentTimeMillis()));
+
+            InvalidationBus first = new InvalidationBus(new DatabaseTransport(dao, 10));
+            InvalidationBus second = new InvalidationBus(new DatabaseTransport(dao, 10));
+            BlockingQueue<Invalidation> firstReceived = new LinkedBlockingQueue<>();
+            BlockingQueue<Invalidation> secondReceived = new LinkedBlockingQueue<>();
+            first.subscribe(Invalidation.Topic.ITEM, firstReceived::add);
+            second.subscribe(Invalidation.Topic.ITEM, secondReceived::add);
+            first.start();
+            second.start();
+
+            first.publish(Invalidation.Topic.ITEM, "1");
+            first.publish(Invalidation.Topic.ITEM, "2");
+
+            // Invalidations written before the start were skipped
+            Invalidation invalidation = secondReceived.poll(5, TimeUnit.SECONDS);
+            assertNotNull(invalidation);
+            assertArrayEquals(new String[]{"1"}, invalidation.getKeys());
+            invalidation = secondReceived.poll(5, TimeUnit.SECONDS);
+            assertNotNull(invalidation);
+            assertArrayEquals(new String[]{"2"}, invalidation.getKeys());
+
+            first.stop();
+            second.stop();
+            assertNull(firstReceived.poll());
+            assertEquals(3, dao.countOf());
+        } finally {
+            store.closeQuietly();
+        }
+    }
+
+    @Test
+    public void testDatabaseLateCommit() throws Exception {
+        ConnectionSource store = ConnectionManager.openPooled(DatabaseBackend.H2, "jdbc:h2:mem:invalidations-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "", "", 3);
+        try {
+            DaoCreator.createTableIfNotExists(store, CacheInvalidation.class, "cs_");
+            Dao<CacheInvalidation, Long> dao = DaoCreator.getDao(store, CacheInvalidation.class, "cs_");
+
+            InvalidationBus first = new InvalidationBus(new DatabaseTransport(dao, 10));
+            InvalidationBus second = new InvalidationBus(new DatabaseTransport(dao, 10));
+            BlockingQueue<Invalidation> secondReceived = new LinkedBlockingQueue<>();
+            second.subscribe(Invalidation.Topic.ITEM, secondReceived::add);
+            first.start();
+            second.start();
+
+            // A transaction which gets its ID first but commits after a later invalidation was read
+            DatabaseConnection connection = dao.startThreadConnection();
+            try {
+                dao.setAutoCommit(connection, false);
+                dao.create(new CacheInvalidation("late", Invalidation.Topic.ITEM.name(), new String[]{"late"}, System.currentTimeMillis()));
+
+                first.publish(Invalidation.Topic.ITEM, "early");
+                Invalidation invalidation = secondReceived.poll(5, TimeUnit.SECONDS);
+                assertNotNull(invalidation);
+                assertArrayEquals(new String[]{"early"}, invalidation.getKeys());
+
+                dao.commit(connection);
+            } finally {
+                dao.endThreadConnection(connection);
+            }
+
+            Invalidation invalidation = secondReceived.poll(5, TimeUnit.SECONDS);
+            assertNotNull(invalidation);
+            assertArrayEquals(new String[]{"late"}, invalidation.getKeys());
+
+            first.stop();
+            second.stop();
+            assertNull(secondReceived.poll());
+        } finally {
+            store.closeQuietly();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.Acrobot.ChestShop.Tests;
+
+import com.Acrobot.ChestShop.Utils.ItemAliasIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the {@link ItemAliasIndex} resolves item strings exactly like the linear alias search did
+ */
+public class ItemAliasIndexTest {
+
+    private static final String[] ALIAS_TOKENS = {
+            "My", "my", "Cool", "cool", "Item", "ITEM", "Sword", "Sw", "S", "a", "b", "ab", "Diamond", "dia",
+            "Stick", "2", "1", "0", " ", "_", "-", "  ", "\u00e9", "\u00df", "\u0130", "\u017f"
+    };
+
+    private static final String[] INPUT_TOKENS = {
+            "My", "my", "M", "Co", "cool", "I", "it", "Sw", "S", "s", "a", "b", "A", "B", "Dia", "D", "st",
+            "2", "1", "0", " ", "_", "-", "\u00e9", "\u00df", "SS", "\u0130", "I\u0307", "\u017f"
+    };
+
+    @Test
+    public void testExampleAliases() {
+        Map<String, String> aliases = new LinkedHashMap<>();
+        aliases.put("Item String#3d", "My Cool Item");
+        aliases.put("Other Material#Eg", "Some other Item");
+        aliases.put("Diamond Sword#1", "Super Sword");
+        aliases.put("Diamond Sword#2", "Super Sword 2");
+        aliases.put("Stick#5", "Magic");
+
+        String[] inputs = {
+                "My Cool Item", "my cool item", "My", "MyCoolItem", "M C I", "Some", "S O I", "SomeOtherItem",
+                "Super", "Super Sword 2", "S S", "S S 2", "SupSw2", "Magic", "mag", "x", "", " ", "_", "Ma_"
+        };
+        ItemAliasIndex index = new ItemAliasIndex(aliases);
+        for (String input : inputs) {
+            assertEquals(resolveLinear(aliases, input), index.resolve(input), input);
+        }
+    }
+
+    @Test
+    public void testRandomAliases() {
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            Map<String, String> aliases = new LinkedHashMap<>();
+            int aliasCount = 1 + random.nextInt(40);
+            for (int i = 0; i < aliasCount; i++) {
+                aliases.putIfAbsent("Code#" + i, randomString(random, ALIAS_TOKENS, 1 + random.nextInt(6)));
+            }
+
+            ItemAliasIndex index = new ItemAliasIndex(aliases);
+            List<String> inputs = new ArrayList<>(aliases.values());
+            for (int i = 0; i < 200; i++) {
+                inputs.add(randomString(random, INPUT_TOKENS, random.nextInt(6)));
+            }
+            for (String input : inputs) {
+                assertEquals(resolveLinear(aliases, input), index.resolve(input), input + " in " + aliases);
+            }
+        }
+    }
+
+    private static String randomString(Random random, String[] tokens, int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            builder.append(tokens[random.nextInt(tokens.length)]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The linear search that was used before the index
+     */
+    private static String resolveLinear(Map<String, String> aliases, String itemString) {
+        for (Map.Entry<String, String> entry : aliases.entrySet()) {
+            if (entry.getValue().equals(itemString)) {
+                return entry.getKey();
+            }
+        }
+
+        String code = null;
+        String[] typeParts = itemString.replaceAll("(?<!^)([A-Z1-9])", "_$1").toUpperCase(Locale.ROOT).split("[ _\\-]");
+        int length = Short.MAX_VALUE;
+        for (Map.Entry<String, String> entry : aliases.entrySet()) {
+            if (entry.getValue().length() < length && entry.getValue().toUpperCase(Locale.ROOT).startsWith(itemString.toUpperCase(Locale.ROOT))) {
+                length = (short) entry.getValue().length();
+                code = entry.getKey();
+            } else if (typeParts.length > 1) {
+                String[] nameParts = entry.getValue().toUpperCase(Locale.ROOT).split("[ _\\-]");
+                if (typeParts.length == nameParts.length) {
+                    boolean matched = true;
+                    for (int i = 0; i < nameParts.length; i++) {
+                        if (!nameParts[i].startsWith(typeParts[i])) {
+                            matched = false;
+                            break;
+                        }
+                    }
+                    if (matched) {
+                        code = entry.getKey();
+                        break;
+                    }
+                }
+            }
+        }
+        return code;
+    }
+}
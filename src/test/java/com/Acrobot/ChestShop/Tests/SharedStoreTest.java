@@ -0,0 +1,185 @@
+package com.Acrobot.ChestShop.Tests;
+
+import com.Acrobot.ChestShop.Database.Account;
+import com.Acrobot.ChestShop.Database.ConnectionManager;
+import com.Acrobot.ChestShop.Database.DaoCreator;
+import com.Acrobot.ChestShop.Database.DatabaseBackend;
+import com.Acrobot.ChestShop.Database.Item;
+import com.Acrobot.ChestShop.Database.SqliteImporter;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.support.ConnectionSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the shared store and the import into it with embedded H2 databases
+ */
+public class SharedStoreTest {
+    private ConnectionSource local;
+    private ConnectionSource store;
+
+    @BeforeEach
+    public void openDatabases() throws SQLException {
+        String name = UUID.randomUUID().toString();
+        local = ConnectionManager.openPooled(DatabaseBackend.H2, "jdbc:h2:mem:local-" + name + ";DB_CLOSE_DELAY=-1", "", "", 2);
+        store = ConnectionManager.openPooled(DatabaseBackend.H2, "jdbc:h2:mem:store-" + name + ";DB_CLOSE_DELAY=-1", "", "", 2);
+    }
+
+    @AfterEach
+    public void closeDatabases() {
+        local.closeQuietly();
+        store.closeQuietly();
+    }
+
+    @Test
+    public void testTablePrefix() throws SQLException {
+        DaoCreator.createTableIfNotExists(store, Item.class, "cs_");
+        Dao<Item, Integer> items = DaoCreator.getDao(store, Item.class, "cs_");
+        assertEquals("cs_items", items.getTableName());
+
+        Item item = new Item(String.join("", Collections.nCopies(100, "long item code ")));
+        items.create(item);
+        assertEquals(item.getBase64ItemCode(), items.queryForId(item.getId()).getBase64ItemCode());
+    }
+
+    @Test
+    public void testImportItemsKeepsIds() throws SQLException {
+        Dao<Item, Integer> from = createItemTable(local);
+        Dao<Item, Integer> to = createItemTable(store);
+
+        Item first = new Item("first");
+        Item second = new Item("second");
+        Item third = new Item("third");
+        from.create(first);
+        from.create(second);
+        from.create(third);
+        from.deleteById(second.getId());
+
+        // Left from an earlier import which didn't finish
+        to.create(new Item("first"));
+
+        SqliteImporter.Result result = SqliteImporter.importItems(from, to, DatabaseBackend.H2, message -> {});
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getSkipped());
+        assertEquals(Collections.emptyList(), result.getConflicts());
+        assertEquals("third", to.queryForId(third.getId()).getBase64ItemCode());
+
+        // New items must not reuse the imported IDs
+        Item created = new Item("new");
+        to.create(created);
+        assertTrue(created.getId() > third.getId());
+    }
+
+    @Test
+    public void testImportItemsRefusesOtherItems() throws SQLException {
+        Dao<Item, Integer> from = createItemTable(local);
+        Dao<Item, Integer> to = createItemTable(store);
+
+        Item item = new Item("local");
+        from.create(item);
+        from.create(new Item("second"));
+        to.create(new Item("different"));
+
+        assertThrows(SQLException.class, () -> SqliteImporter.importItems(from, to, DatabaseBackend.H2, message -> {}));
+        assertEquals(1, to.countOf());
+        assertEquals("different", to.queryForId(item.getId()).getBase64ItemCode());
+    }
+
+    @Test
+    public void testImportItemsFromSqlite(@TempDir File folder) throws SQLException {
+        ConnectionSource sqlite = ConnectionManager.openSqlite(ConnectionManager.getURI(new File(folder, "items.db")));
+        try {
+            DaoCreator.createTableIfNotExists(sqlite, Item.class, "");
+            Dao<Item, Integer> from = DaoCreator.getDao(sqlite, Item.class, "");
+            Dao<Item, Integer> to = createItemTable(store);
+
+            Item first = new Item("first");
+            Item second = new Item("second");
+            Item third = new Item("third");
+            from.create(first);
+            from.create(second);
+            from.create(third);
+            from.deleteById(first.getId());
+
+            SqliteImporter.Result result = SqliteImporter.importItems(from, to, DatabaseBackend.H2, message -> {});
+            assertEquals(2, result.getImported());
+            assertEquals(Collections.emptyList(), result.getConflicts());
+            assertNull(to.queryForId(first.getId()));
+            assertEquals("second", to.queryForId(second.getId()).getBase64ItemCode());
+            assertEquals("third", to.queryForId(third.getId()).getBase64ItemCode());
+
+            // Running it again only skips the imported items
+            result = SqliteImporter.importItems(from, to, DatabaseBackend.H2, message -> {});
+            assertEquals(0, result.getImported());
+            assertEquals(2, result.getSkipped());
+
+            Item created = new Item("new");
+            to.create(created);
+            assertTrue(created.getId() > third.getId());
+        } finally {
+            sqlite.closeQuietly();
+        }
+    }
+
+    @Test
+    public void testImportAccounts() throws SQLException {
+        DaoCreator.createTableIfNotExists(local, Account.class, "");
+        DaoCreator.createTableIfNotExists(store, Account.class, "cs_");
+        Dao<Account, String> from = DaoCreator.getDao(local, Account.class, "");
+        Dao<Account, String> to = DaoCreator.getDao(store, Account.class, "cs_");
+
+        from.create(createAccount("Alice"));
+        from.create(createAccount("Bob"));
+        to.create(createAccount("Bob"));
+
+        SqliteImporter.Result result = SqliteImporter.importAccounts(from, to, DatabaseBackend.H2, message -> {});
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getSkipped());
+        assertNotNull(to.queryForId("Alice"));
+        assertNull(to.queryForId("Carol"));
+    }
+
+    @Test
+    public void testImportAccountConflicts() throws SQLException {
+        DaoCreator.createTableIfNotExists(local, Account.class, "");
+        DaoCreator.createTableIfNotExists(store, Account.class, "cs_");
+        Dao<Account, String> from = DaoCreator.getDao(local, Account.class, "");
+        Dao<Account, String> to = DaoCreator.getDao(store, Account.class, "cs_");
+
+        from.create(createAccount("Bob"));
+        Account other = new Account("Bob", "Bob", UUID.randomUUID());
+        other.setLastSeen(new Date(0));
+        to.create(other);
+
+        SqliteImporter.Result result = SqliteImporter.importAccounts(from, to, DatabaseBackend.H2, message -> {});
+        assertEquals(0, result.getImported());
+        assertEquals(0, result.getSkipped());
+        assertEquals(Collections.singletonList("Bob"), result.getConflicts());
+        assertEquals(other.getUuid(), to.queryForId("Bob").getUuid());
+    }
+
+    private static Dao<Item, Integer> createItemTable(ConnectionSource connectionSource) throws SQLException {
+        DaoCreator.createTableIfNotExists(connectionSource, Item.class, "cs_");
+        return DaoCreator.getDao(connectionSource, Item.class, "cs_");
+    }
+
+    private static Account createAccount(String name) {
+        Account account = new Account(name, name, UUID.nameUUIDFromBytes(name.getBytes()));
+        account.setLastSeen(new Date(0));
+        return account;
+    }
+}
@@ -0,0 +1,100 @@
+package com.Acrobot.ChestShop.Tests;
+
+import com.Acrobot.ChestShop.Signs.ChestShopSign;
+import com.Acrobot.ChestShop.Signs.SignLineParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static com.Acrobot.ChestShop.Signs.ChestShopSign.ITEM_LINE;
+import static com.Acrobot.ChestShop.Signs.ChestShopSign.PRICE_LINE;
+import static com.Acrobot.ChestShop.Signs.ChestShopSign.QUANTITY_LINE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the {@link SignLineParser} accepts exactly the same lines as the {@link ChestShopSign#SHOP_SIGN_PATTERN}
+ */
+public class SignLineParserTest {
+
+    private static final String[] FUZZ_TOKENS = {
+            "0", "1", "5", "9", "B", "b", "S", "s", "K", "k", "M", "m", "e", "E", ".", ":", " ", "  ",
+            "free", "FrEe", "Q ", "C ", " : C ", "#", "a", "Z", "_", "-", "?", "x", "\t",
+            "\u00e9", "\u017f", "\u212a", "\u0130", "\u0660", "\ud835\udc00"
+    };
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", "1", "17", "64", "3000", "999999", "1000000", "0", "0123", "-1", "1e10", "four", " 1", "1 ",
+            "Q 1 : C 0", "Q 64 : C 12345", "Q 12345 : C 1", "Q 123456 : C 1", "Q 1 : C 123456", "Q 0 : C 1",
+            "Q 1 : C ", "Q  1 : C 1", "q 1 : c 1", "Q 1: C 1", "Q 1 : C 1 : C 1", "Q 1 :  C 1", "Q : C 1"
+    })
+    public void testQuantityLine(String line) {
+        assertSameResult(QUANTITY_LINE, line);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", "1", "1K", "k", ".5", "e5", "1.5m", "free", "FREE", "fr ee", "1KM", "1.", "1e",
+            "B 1", "B FREE", "B 1K", "B 10M", "S 1K", "S 10M", "1K S", "1KS", "1 S", "1S", "free S", "freeS",
+            "B1", "b 1", "s1.5", "B 1e5", "B 1.5k", "B 1 : S 1", "B1:S1", "B 1 : 1 S", "1 B : S 1", "1 B : 1 S",
+            "1K B : 1K S", "1K B:1 S", "B 1K : 1K S", "B free : free S", "B 1 : S", "B : S 2", "B S 2", "B 1 2",
+            "10KB", "1 B:S -1M", "S 1MK", "B -1K : S10K", "B1Z", "B 1 : S 1 : B 1", "B 1 :", ": S 1", "B  1  :  S  1",
+            "B 1 :S 1", "B 1: S 1", "1  S", "1K  S", "B 1 S", "BS", "B", "S", "B 1 : B 1", "\u017f 1", "B \u0661"
+    })
+    public void testPriceLine(String line) {
+        assertSameResult(PRICE_LINE, line);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", "?", "??", "Stone", "Diamond_Sword", "Diamond-Sword", "Diamond Sword", "Diamond Sword:203",
+            "Diamond#123", "Diamond#az3", "Diamond#BE2", "Stone Sword:123#123", "Diamond#223:123",
+            "Stone Sword:as", "Dirt:23:432", "Dirt#a#b", "Dirt:", "Dirt#", ":1", "#1", "Dirt:1#", "Dirt#1:",
+            "\u00a9", "\u00e9p\u00e9e", "Stone\u0660", "\ud835\udc00", "Dirt #1", "Dirt:1 ", "Dirt:\u0661"
+    })
+    public void testItemLine(String line) {
+        assertSameResult(ITEM_LINE, line);
+    }
+
+    @Test
+    public void testRandomLines() {
+        Random random = new Random(1337);
+        for (int i = 0; i < 200000; i++) {
+            StringBuilder line = new StringBuilder();
+            int length = random.nextInt(10);
+            for (int j = 0; j < length; j++) {
+                line.append(FUZZ_TOKENS[random.nextInt(FUZZ_TOKENS.length)]);
+            }
+            assertSameResult(QUANTITY_LINE, line.toString());
+            assertSameResult(PRICE_LINE, line.toString());
+            assertSameResult(ITEM_LINE, line.toString());
+        }
+    }
+
+    private static void assertSameResult(int lineNumber, String line) {
+        boolean parsed;
+        switch (lineNumber) {
+            case QUANTITY_LINE:
+                parsed = SignLineParser.isValidQuantityLine(line);
+                break;
+            case PRICE_LINE:
+                parsed = SignLineParser.isValidPriceLine(line);
+                break;
+            default:
+                parsed = SignLineParser.isValidItemLine(line);
+        }
+        assertEquals(matchesPatterns(lineNumber, line), parsed, "Line " + lineNumber + ": '" + line + "'");
+    }
+
+    private static boolean matchesPatterns(int lineNumber, String line) {
+        for (Pattern pattern : ChestShopSign.SHOP_SIGN_PATTERN[lineNumber - 1]) {
+            if (pattern.matcher(line).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,245 @@
+package com.Acrobot.ChestShop.UUIDs;
+
+import com.Acrobot.ChestShop.Database.Account;
+import com.Acrobot.ChestShop.Database.ConnectionManager;
+import com.Acrobot.ChestShop.Database.DaoCreator;
+import com.Acrobot.ChestShop.Database.DatabaseBackend;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.SelectArg;
+import com.j256.ormlite.support.ConnectionSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that the {@link AccountIndex} finds the same accounts as the database queries
+ * that the {@link NameManager} used before it, with an embedded H2 database
+ */
+public class AccountIndexTest {
+    private ConnectionSource connectionSource;
+    private Dao<Account, String> accounts;
+    private final Set<Long> usedDates = new HashSet<>();
+
+    @BeforeEach
+    public void openDatabase() throws SQLException {
+        connectionSource = ConnectionManager.openPooled(DatabaseBackend.H2, "jdbc:h2:mem:accounts-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "", "", 2);
+        DaoCreator.createTableIfNotExists(connectionSource, Account.class, "");
+        accounts = DaoCreator.getDao(connectionSource, Account.class, "");
+    }
+
+    @AfterEach
+    public void closeDatabase() {
+        connectionSource.closeQuietly();
+    }
+
+    @Test
+    public void testRenamesAndUuidChanges() throws SQLException {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        AccountIndex index = new AccountIndex();
+
+        put(index, account("Alice", "Alice", first, 1));
+        put(index, account("Alice", "Alice1", second, 2));
+        put(index, account("Bob", "Bob", first, 3));
+        assertLookups(index, "Alice", "Alice1", "Bob", "Carol", first, second, third);
+        assertEquals("Alice1", index.getByName("Alice").getShortName());
+        assertEquals("Bob", index.getByUuid(first).getShortName());
+
+        // Renaming the head of a name chain and changing the UUID of the head of a UUID chain
+        put(index, account("Carol", "Alice1", second, 4));
+        put(index, account("Bob", "Bob", third, 5));
+        assertLookups(index, "Alice", "Alice1", "Bob", "Carol", first, second, third);
+        assertEquals("Alice", index.getByName("Alice").getShortName());
+        assertEquals("Alice", index.getByUuid(first).getShortName());
+
+        // And the last ones of the chains
+        put(index, account("Dave", "Alice", first, 6));
+        put(index, account("Erin", "Bob", second, 7));
+        assertLookups(index, "Alice", "Alice1", "Bob", "Carol", "Dave", "Erin", first, second, third);
+        assertNull(index.getByName("Alice"));
+        assertNull(index.getByUuid(third));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testLoadKeepsStoredAccounts() throws SQLException {
+        UUID uuid = UUID.randomUUID();
+        accounts.create(account("Alice", "Alice", uuid, 1));
+        List<Account> rows = accounts.queryForAll();
+
+        // Stored while the table was being loaded
+        AccountIndex index = new AccountIndex();
+        put(index, account("Alice", "Alice", uuid, 2));
+        for (Account row : rows) {
+            index.load(row);
+        }
+        index.setReady();
+
+        assertEquals(2, index.getByShortName("Alice").getLastSeen().getTime());
+        assertLookups(index, "Alice", uuid);
+    }
+
+    @Test
+    public void testRandomOperations() throws SQLException {
+        Random random = new Random(42);
+
+        List<String> shortNames = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            shortNames.add("Short" + i);
+        }
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            names.add("Name" + i);
+        }
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            long most = random.nextLong();
+            long least = random.nextLong();
+            uuids.add(new UUID(most, least));
+            // Same hash code, so that they collide in the UUID table
+            uuids.add(new UUID(most ^ 0x5555L, least ^ 0x5555L));
+        }
+
+        // Some rows exist before the index is loaded
+        for (int i = 0; i < 60; i++) {
+            store(randomAccount(random, shortNames, names, uuids));
+        }
+        List<Account> rows = accounts.queryForAll();
+        Collections.shuffle(rows, random);
+
+        // Accounts keep getting stored while the table is loaded
+        AccountIndex index = new AccountIndex();
+        for (Account row : rows) {
+            index.load(row);
+            if (random.nextInt(3) == 0) {
+                put(index, randomAccount(random, shortNames, names, uuids));
+            }
+        }
+        index.setReady();
+        assertAllLookups(index, shortNames, names, uuids);
+
+        for (int operation = 0; operation < 3000; operation++) {
+            Account account = randomAccount(random, shortNames, names, uuids);
+            Account previous = accounts.queryForId(account.getShortName());
+            put(index, account);
+
+            assertLookups(index, account.getShortName(), account.getName(), account.getUuid());
+            if (previous != null) {
+                assertLookups(index, previous.getName(), previous.getUuid());
+            }
+            if (operation % 100 == 0) {
+                assertAllLookups(index, shortNames, names, uuids);
+            }
+        }
+        assertAllLookups(index, shortNames, names, uuids);
+        assertEquals(accounts.countOf(), (long) index.size());
+    }
+
+    private Account randomAccount(Random random, List<String> shortNames, List<String> names, List<UUID> uuids) {
+        String shortName = shortNames.get(random.nextInt(shortNames.size()));
+        // Some short names are the same as the name, the index shares the string for those
+        String name = random.nextInt(5) == 0 ? shortName : names.get(random.nextInt(names.size()));
+        Account account = account(name, shortName, uuids.get(random.nextInt(uuids.size())), uniqueDate(random));
+        account.setIgnoreMessages(random.nextBoolean());
+        return account;
+    }
+
+    /**
+     * The database queries can't decide between accounts with the same last seen date, so they are all different
+     */
+    private long uniqueDate(Random random) {
+        long date;
+        do {
+            date = 1 + random.nextInt(1_000_000_000);
+        } while (!usedDates.add(date));
+        return date;
+    }
+
+    /**
+     * Store an account like NameManager#storeAccount and put it into the index if that worked.
+     * Accounts with the UUID and name of another account are refused by the database.
+     */
+    private void put(AccountIndex index, Account account) {
+        if (store(account)) {
+            index.put(account);
+        }
+    }
+
+    private boolean store(Account account) {
+        try {
+            if (accounts.update(account) == 0) {
+                accounts.create(account);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void assertAllLookups(AccountIndex index, List<String> shortNames, List<String> names, List<UUID> uuids) throws SQLException {
+        for (String shortName : shortNames) {
+            assertLookups(index, shortName);
+        }
+        for (String name : names) {
+            assertLookups(index, name);
+        }
+        for (UUID uuid : uuids) {
+            assertLookups(index, uuid);
+        }
+        for (Account row : accounts.queryForAll()) {
+            assertAccount(row, index.get(row.getUuid(), row.getName()));
+            assertAccount(findAccount(row.getUuid(), row.getShortName()), index.get(row.getUuid(), row.getShortName()));
+        }
+    }
+
+    private void assertLookups(AccountIndex index, Object... keys) throws SQLException {
+        for (Object key : keys) {
+            if (key instanceof UUID) {
+                UUID uuid = (UUID) key;
+                assertAccount(accounts.queryBuilder().orderBy("lastSeen", false).where().eq("uuid", new SelectArg(uuid)).queryForFirst(), index.getByUuid(uuid));
+            } else {
+                String name = (String) key;
+                assertAccount(accounts.queryBuilder().orderBy("lastSeen", false).where().eq("name", new SelectArg(name)).queryForFirst(), index.getByName(name));
+                assertAccount(accounts.queryBuilder().where().eq("shortName", new SelectArg(name)).queryForFirst(), index.getByShortName(name));
+            }
+        }
+    }
+
+    private Account findAccount(UUID uuid, String name) throws SQLException {
+        return accounts.queryBuilder().where().eq("uuid", new SelectArg(uuid)).and().eq("name", new SelectArg(name)).queryForFirst();
+    }
+
+    private static void assertAccount(Account expected, Account actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        String description = expected.getShortName() + "/" + expected.getName() + "/" + expected.getUuid();
+        assertEquals(expected.getShortName(), actual != null ? actual.getShortName() : null, description);
+        assertEquals(expected.getName(), actual.getName(), description);
+        assertEquals(expected.getUuid(), actual.getUuid(), description);
+        assertEquals(expected.getLastSeen(), actual.getLastSeen(), description);
+        assertEquals(expected.isIgnoringMessages(), actual.isIgnoringMessages(), description);
+    }
+
+    private Account account(String name, String shortName, UUID uuid, long lastSeen) {
+        usedDates.add(lastSeen);
+        Account account = new Account(name, shortName, uuid);
+        account.setLastSeen(new Date(lastSeen));
+        return account;
+    }
+}